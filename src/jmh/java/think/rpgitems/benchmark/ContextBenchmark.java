@@ -0,0 +1,54 @@
+package think.rpgitems.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.data.Context;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Context} values as written by powers: temporary values of one dispatch and tick values of all players
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ContextBenchmark {
+    @Param({"1", "64"})
+    public int players;
+
+    private UUID[] contexts;
+    private final Object value = new Object();
+
+    @Setup
+    public void setup() {
+        contexts = new UUID[players];
+        for (int i = 0; i < players; i++) {
+            contexts[i] = UUID.randomUUID();
+        }
+    }
+
+    @Benchmark
+    public Object temp() {
+        Context context = Context.instance();
+        UUID uuid = contexts[0];
+        context.putTemp(uuid, "first", value);
+        context.putTemp(uuid, "second", value);
+        Object result = context.get(uuid, "first");
+        context.cleanTemp(uuid);
+        return result;
+    }
+
+    @Benchmark
+    public void tick() {
+        Context context = Context.instance();
+        for (UUID uuid : contexts) {
+            context.put(uuid, "tick", value);
+        }
+        context.cleanTick();
+    }
+
+    @Benchmark
+    public Object getMissing() {
+        return Context.instance().get(contexts[0], "missing");
+    }
+}
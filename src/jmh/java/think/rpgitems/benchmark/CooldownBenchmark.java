@@ -0,0 +1,41 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.item.RPGItem;
+import think.rpgitems.power.Power;
+import think.rpgitems.power.Utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Utils#checkCooldown} for a power that is ready and for one that is cooling down
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class CooldownBenchmark {
+    private Power power;
+    private Player ready;
+    private Player coolingDown;
+
+    @Setup
+    public void setup() {
+        Fixtures.start();
+        RPGItem item = Fixtures.item("cooldown", 1, 0);
+        power = item.getPowers().get(0);
+        ready = FakeServer.player("ready");
+        coolingDown = FakeServer.player("coolingDown");
+        Utils.checkCooldown(power, coolingDown, 20 * 3600, false, false);
+    }
+
+    @Benchmark
+    public boolean ready() {
+        return Utils.checkCooldown(power, ready, 0, false, false);
+    }
+
+    @Benchmark
+    public boolean coolingDown() {
+        return Utils.checkCooldown(power, coolingDown, 20 * 3600, false, false);
+    }
+}
@@ -0,0 +1,432 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.tags.CustomItemTagContainer;
+import org.bukkit.inventory.meta.tags.ItemTagAdapterContext;
+import org.bukkit.inventory.meta.tags.ItemTagType;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.SimplePluginManager;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import think.rpgitems.Configuration;
+import think.rpgitems.I18n;
+import think.rpgitems.RPGItems;
+import think.rpgitems.data.Font;
+import think.rpgitems.power.Power;
+import think.rpgitems.power.PowerManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * In-process stand-in for a Bukkit server, just enough for benchmarks to drive RPGItems offline.
+ * <p>
+ * Server, world, players and entities are dynamic proxies answering with default values except for
+ * the few methods the benchmarked code paths rely on. Item metas are backed by plain maps, so
+ * {@link org.bukkit.inventory.ItemStack} behaves as an API-only stack holding a meta.
+ */
+public final class FakeServer {
+    private static final Logger logger = Logger.getLogger("FakeServer");
+    private static World world;
+
+    private FakeServer() {
+    }
+
+    /**
+     * Installs the fake server and loads the plugin once per JVM
+     *
+     * @param powers Powers to register
+     */
+    @SafeVarargs
+    public static synchronized void start(Class<? extends Power>... powers) {
+        if (RPGItems.plugin == null) {
+            Server server = proxy(Server.class, FakeServer::server);
+            Bukkit.setServer(server);
+            world = proxy(World.class, (self, method, args) -> method.getName().equals("getName") ? "world" : null);
+            File dataFolder;
+            try {
+                dataFolder = Files.createTempDirectory("rpgitems-jmh").toFile();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            @SuppressWarnings("deprecation") JavaPluginLoader loader = new JavaPluginLoader(server);
+            PluginDescriptionFile description = new PluginDescriptionFile("RPGItems", "3.7.0-mc1.13.2", RPGItems.class.getName());
+            RPGItems plugin = new BenchmarkPlugin(loader, description, dataFolder, new File(dataFolder, "RPGItems.jar"));
+            RPGItems.plugin = plugin;
+            RPGItems.logger = plugin.getLogger();
+            plugin.cfg = new Configuration(plugin);
+            plugin.cfg.itemCompat = true;
+            plugin.i18n = new I18n(plugin, plugin.cfg.language);
+            Font.load();
+        }
+        PowerManager.registerPowers(RPGItems.plugin, powers);
+    }
+
+    public static World world() {
+        return world;
+    }
+
+    public static Player player(String name) {
+        return entity(Player.class, EntityType.PLAYER, name, new Location(world, 0, 64, 0));
+    }
+
+    /**
+     * @param type     Entity interface
+     * @param entity   Entity type
+     * @param name     Name of the entity
+     * @param location Fixed location of the entity
+     * @param tags     Scoreboard tags
+     * @return Entity proxy
+     */
+    public static <T extends Entity> T entity(Class<T> type, EntityType entity, String name, Location location, String... tags) {
+        UUID uuid = UUID.randomUUID();
+        Set<String> scoreboardTags = new HashSet<>(Arrays.asList(tags));
+        return proxy(type, (self, method, args) -> {
+            switch (method.getName()) {
+                case "getUniqueId":
+                    return uuid;
+                case "getName":
+                    return name;
+                case "getType":
+                    return entity;
+                case "getWorld":
+                    return world;
+                case "getLocation":
+                    if (args != null && args.length == 1 && args[0] != null) {
+                        Location loc = (Location) args[0];
+                        loc.setWorld(world);
+                        loc.setX(location.getX());
+                        loc.setY(location.getY());
+                        loc.setZ(location.getZ());
+                        loc.setYaw(location.getYaw());
+                        loc.setPitch(location.getPitch());
+                        return loc;
+                    }
+                    return location.clone();
+                case "getEyeLocation":
+                    return location.clone().add(0, 1.62, 0);
+                case "getScoreboardTags":
+                    return scoreboardTags;
+                case "hasPermission":
+                case "isOnline":
+                case "isValid":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * @param type    Interface to implement
+     * @param handler Handler, a {@code null} result is replaced by the default value of the return type
+     * @return Proxy with identity equality
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    if (method.getParameterCount() == 1) return self == args[0];
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) return System.identityHashCode(self);
+                    break;
+                case "toString":
+                    if (method.getParameterCount() == 0) return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                    break;
+            }
+            Object result = handler.invoke(self, method, args);
+            return result != null ? result : defaultValue(method.getReturnType());
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return '\0';
+        if (type == String.class) return "";
+        if (type == List.class || type == Collection.class) return Collections.emptyList();
+        if (type == Set.class) return Collections.emptySet();
+        if (type == Map.class) return Collections.emptyMap();
+        if (type == Iterator.class) return Collections.emptyIterator();
+        return null;
+    }
+
+    private static SimplePluginManager pluginManager;
+
+    private static Object server(Object self, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return "FakeServer";
+            case "getVersion":
+                return "fake (MC: 1.13.2)";
+            case "getBukkitVersion":
+                return "1.13.2-R0.1-SNAPSHOT";
+            case "getLogger":
+                return logger;
+            case "isPrimaryThread":
+                return true;
+            case "getItemFactory":
+                return ITEM_FACTORY;
+            case "getPluginManager":
+                if (pluginManager == null) {
+                    pluginManager = new SimplePluginManager((Server) self, new SimpleCommandMap((Server) self));
+                }
+                return pluginManager;
+            case "getWorlds":
+                return Collections.singletonList(world);
+            case "getWorld":
+                return world;
+            default:
+                return null;
+        }
+    }
+
+    private static final ItemFactory ITEM_FACTORY = proxy(ItemFactory.class, (self, method, args) -> {
+        switch (method.getName()) {
+            case "getItemMeta":
+                return meta(new MetaState());
+            case "isApplicable":
+                return true;
+            case "asMetaFor":
+                return args[0] == null ? null : ((ItemMeta) args[0]).clone();
+            case "updateMaterial":
+                return args[1];
+            case "equals": {
+                MetaState first = args[0] == null ? new MetaState() : state((ItemMeta) args[0]);
+                MetaState second = args[1] == null ? new MetaState() : state((ItemMeta) args[1]);
+                return first.equals(second);
+            }
+            default:
+                return null;
+        }
+    });
+
+    private static MetaState state(ItemMeta meta) {
+        return ((MetaHandler) Proxy.getInvocationHandler(meta)).state;
+    }
+
+    private static ItemMeta meta(MetaState state) {
+        return (ItemMeta) Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{ItemMeta.class, Damageable.class}, new MetaHandler(state));
+    }
+
+    private static final class MetaState {
+        String displayName;
+        List<String> lore;
+        int damage;
+        boolean unbreakable;
+        final Set<ItemFlag> flags = EnumSet.noneOf(ItemFlag.class);
+        final Map<Enchantment, Integer> enchants = new HashMap<>();
+        final TagContainer tags = new TagContainer();
+
+        MetaState copy() {
+            MetaState copy = new MetaState();
+            copy.displayName = displayName;
+            copy.lore = lore == null ? null : new ArrayList<>(lore);
+            copy.damage = damage;
+            copy.unbreakable = unbreakable;
+            copy.flags.addAll(flags);
+            copy.enchants.putAll(enchants);
+            copy.tags.values.putAll(tags.copy().values);
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MetaState)) return false;
+            MetaState that = (MetaState) o;
+            return damage == that.damage && unbreakable == that.unbreakable
+                           && Objects.equals(displayName, that.displayName) && Objects.equals(lore, that.lore)
+                           && flags.equals(that.flags) && enchants.equals(that.enchants) && tags.equals(that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(displayName, lore, damage);
+        }
+    }
+
+    private static final class MetaHandler implements InvocationHandler {
+        private final MetaState state;
+
+        MetaHandler(MetaState state) {
+            this.state = state;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "clone":
+                    return meta(state.copy());
+                case "equals":
+                    return args[0] instanceof ItemMeta && Proxy.isProxyClass(args[0].getClass()) && state.equals(state((ItemMeta) args[0]));
+                case "hashCode":
+                    return state.hashCode();
+                case "toString":
+                    return "FakeMeta";
+                case "hasDisplayName":
+                    return state.displayName != null;
+                case "getDisplayName":
+                    return state.displayName;
+                case "setDisplayName":
+                    state.displayName = (String) args[0];
+                    return null;
+                case "hasLore":
+                    return state.lore != null && !state.lore.isEmpty();
+                case "getLore":
+                    return state.lore == null ? null : new ArrayList<>(state.lore);
+                case "setLore":
+                    @SuppressWarnings("unchecked") List<String> lore = (List<String>) args[0];
+                    state.lore = lore == null ? null : new ArrayList<>(lore);
+                    return null;
+                case "hasDamage":
+                    return state.damage > 0;
+                case "getDamage":
+                    return state.damage;
+                case "setDamage":
+                    state.damage = (int) args[0];
+                    return null;
+                case "isUnbreakable":
+                    return state.unbreakable;
+                case "setUnbreakable":
+                    state.unbreakable = (boolean) args[0];
+                    return null;
+                case "getItemFlags":
+                    return EnumSet.copyOf(state.flags);
+                case "hasItemFlag":
+                    return state.flags.contains(args[0]);
+                case "addItemFlags":
+                    state.flags.addAll(Arrays.asList((ItemFlag[]) args[0]));
+                    return null;
+                case "removeItemFlags":
+                    state.flags.removeAll(Arrays.asList((ItemFlag[]) args[0]));
+                    return null;
+                case "hasEnchants":
+                    return !state.enchants.isEmpty();
+                case "hasEnchant":
+                    return state.enchants.containsKey(args[0]);
+                case "getEnchants":
+                    return new HashMap<>(state.enchants);
+                case "getEnchantLevel":
+                    return state.enchants.getOrDefault(args[0], 0);
+                case "addEnchant":
+                    return state.enchants.put((Enchantment) args[0], (Integer) args[1]) == null;
+                case "removeEnchant":
+                    return state.enchants.remove(args[0]) != null;
+                case "getCustomTagContainer":
+                    return state.tags;
+                case "serialize":
+                    return Collections.emptyMap();
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * Tag container storing primitives, nested containers being copied on write as NBT would
+     */
+    private static final class TagContainer implements CustomItemTagContainer, ItemTagAdapterContext {
+        private final Map<NamespacedKey, Object> values = new HashMap<>();
+
+        @Override
+        public <T, Z> void setCustomTag(NamespacedKey key, ItemTagType<T, Z> type, Z value) {
+            Object primitive = type.toPrimitive(value, this);
+            if (primitive instanceof TagContainer) {
+                primitive = ((TagContainer) primitive).copy();
+            }
+            values.put(key, primitive);
+        }
+
+        @Override
+        public <T, Z> boolean hasCustomTag(NamespacedKey key, ItemTagType<T, Z> type) {
+            Object primitive = values.get(key);
+            return primitive != null && type.getPrimitiveType().isInstance(primitive);
+        }
+
+        @Override
+        public <T, Z> Z getCustomTag(NamespacedKey key, ItemTagType<T, Z> type) {
+            Object primitive = values.get(key);
+            if (primitive == null) return null;
+            if (primitive instanceof TagContainer) {
+                primitive = ((TagContainer) primitive).copy();
+            }
+            return type.fromPrimitive(type.getPrimitiveType().cast(primitive), this);
+        }
+
+        @Override
+        public void removeCustomTag(NamespacedKey key) {
+            values.remove(key);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return values.isEmpty();
+        }
+
+        @Override
+        public ItemTagAdapterContext getAdapterContext() {
+            return this;
+        }
+
+        @Override
+        public CustomItemTagContainer newTagContainer() {
+            return new TagContainer();
+        }
+
+        TagContainer copy() {
+            TagContainer copy = new TagContainer();
+            values.forEach((k, v) -> copy.values.put(k, v instanceof TagContainer ? ((TagContainer) v).copy() : v));
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TagContainer)) return false;
+            Map<NamespacedKey, Object> other = ((TagContainer) o).values;
+            if (!values.keySet().equals(other.keySet())) return false;
+            for (Map.Entry<NamespacedKey, Object> entry : values.entrySet()) {
+                Object a = entry.getValue(), b = other.get(entry.getKey());
+                if (!(a instanceof byte[] && b instanceof byte[] ? Arrays.equals((byte[]) a, (byte[]) b) : Objects.equals(a, b))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return values.keySet().hashCode();
+        }
+    }
+
+    private static final class BenchmarkPlugin extends RPGItems {
+        BenchmarkPlugin(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+            super(loader, description, dataFolder, file);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.RPGItem;
+import think.rpgitems.power.PowerManager;
+import think.rpgitems.power.impl.PowerDummy;
+import think.rpgitems.power.impl.PowerDurabilityCondition;
+import think.rpgitems.power.impl.PowerSelector;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Items and stacks shared by the benchmarks
+ */
+final class Fixtures {
+    private static int nextUid = -1000;
+
+    private Fixtures() {
+    }
+
+    static void start() {
+        FakeServer.start(PowerDummy.class, PowerDurabilityCondition.class, PowerSelector.class);
+    }
+
+    /**
+     * @param name       Item name, unique
+     * @param powers     Count of dummy powers
+     * @param conditions Count of durability conditions every power depends on
+     * @return Registered item
+     */
+    static RPGItem item(String name, int powers, int conditions) {
+        RPGItem item = new RPGItem(name, nextUid--, null);
+        item.setMaxDurability(1000);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < conditions; i++) {
+            PowerDurabilityCondition condition = PowerManager.instantiate(PowerDurabilityCondition.class);
+            condition.id = "condition" + i;
+            condition.setItem(item);
+            item.addPower(condition.getNamespacedKey(), condition);
+            ids.add(condition.id);
+        }
+        for (int i = 0; i < powers; i++) {
+            PowerDummy dummy = PowerManager.instantiate(PowerDummy.class);
+            dummy.cooldownKey = "dummy" + i;
+            dummy.showCDWarning = false;
+            dummy.conditions = new HashSet<>(ids);
+            dummy.setItem(item);
+            item.addPower(dummy.getNamespacedKey(), dummy);
+        }
+        ItemManager.addItem(item);
+        return item;
+    }
+
+    /**
+     * @param item Item
+     * @return Stack identified by the pre 3.7 lore encoding instead of tags
+     */
+    static ItemStack legacyStack(RPGItem item) {
+        StringBuilder id = new StringBuilder();
+        for (char c : String.format("%08x", item.getUid()).toCharArray()) {
+            id.append(ChatColor.COLOR_CHAR).append(c);
+        }
+        ItemStack stack = new ItemStack(item.getItem());
+        ItemMeta meta = stack.getItemMeta();
+        meta.setDisplayName(item.getDisplayName());
+        meta.setLore(Collections.singletonList(id.toString() + item.getDisplayName()));
+        stack.setItemMeta(meta);
+        return stack;
+    }
+
+    static ItemStack plainStack() {
+        return new ItemStack(Material.STONE);
+    }
+}
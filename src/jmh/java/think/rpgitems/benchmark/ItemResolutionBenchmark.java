@@ -0,0 +1,56 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.RPGItem;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ItemManager#toRPGItem} on tagged, legacy lore and vanilla stacks.
+ * <p>
+ * Plain API stacks bypass the identity cache, so these measure a full resolution,
+ * except {@link #taggedSlot()} which goes through the per slot cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ItemResolutionBenchmark {
+    private ItemStack tagged;
+    private ItemStack legacy;
+    private ItemStack plain;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        Fixtures.start();
+        RPGItem item = Fixtures.item("resolution", 4, 0);
+        tagged = item.toItemStack();
+        legacy = Fixtures.legacyStack(item);
+        plain = Fixtures.plainStack();
+        player = FakeServer.player("resolution");
+    }
+
+    @Benchmark
+    public Optional<RPGItem> tagged() {
+        return ItemManager.toRPGItem(tagged);
+    }
+
+    @Benchmark
+    public Optional<RPGItem> legacy() {
+        return ItemManager.toRPGItem(legacy);
+    }
+
+    @Benchmark
+    public Optional<RPGItem> plain() {
+        return ItemManager.toRPGItem(plain);
+    }
+
+    @Benchmark
+    public Optional<RPGItem> taggedSlot() {
+        return ItemManager.toRPGItem(player, 0, tagged);
+    }
+}
@@ -0,0 +1,45 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.item.RPGItem;
+import think.rpgitems.power.Trigger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RPGItem#power} on a right click, with N powers each guarded by M conditions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PowerDispatchBenchmark {
+    @Param({"1", "8", "32"})
+    public int powers;
+
+    @Param({"0", "4"})
+    public int conditions;
+
+    private RPGItem item;
+    private ItemStack stack;
+    private Player player;
+
+    @Setup
+    public void setup() {
+        Fixtures.start();
+        item = Fixtures.item("dispatch_" + powers + "_" + conditions, powers, conditions);
+        stack = item.toItemStack();
+        player = FakeServer.player("dispatch");
+    }
+
+    @Benchmark
+    public Void rightClick() {
+        return item.power(player, stack, null, Trigger.RIGHT_CLICK);
+    }
+
+    @Benchmark
+    public Void noPowers() {
+        return item.power(player, stack, null, Trigger.LEFT_CLICK);
+    }
+}
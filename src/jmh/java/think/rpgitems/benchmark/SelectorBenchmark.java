@@ -0,0 +1,57 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.power.PowerManager;
+import think.rpgitems.power.impl.PowerSelector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PowerSelector#inPlaceFilter} with radius, type and tag limits on entities spread around the player
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class SelectorBenchmark {
+    private static final EntityType[] TYPES = {EntityType.ZOMBIE, EntityType.SKELETON, EntityType.COW, EntityType.VILLAGER};
+
+    @Param({"16", "256"})
+    public int entities;
+
+    private PowerSelector selector;
+    private Player player;
+    private List<Entity> nearby;
+
+    @Setup
+    public void setup() {
+        Fixtures.start();
+        selector = PowerManager.instantiate(PowerSelector.class);
+        selector.id = "selector";
+        selector.r = 16;
+        selector.type = "ZOMBIE,SKELETON";
+        selector.tag = "hostile,!tamed";
+        player = FakeServer.player("selector");
+        Random random = new Random(42);
+        nearby = new ArrayList<>(entities);
+        for (int i = 0; i < entities; i++) {
+            Location location = new Location(FakeServer.world(), random.nextDouble() * 64 - 32, 64, random.nextDouble() * 64 - 32);
+            String[] tags = i % 4 == 0 ? new String[]{"hostile", "tamed"} : i % 2 == 0 ? new String[]{"hostile"} : new String[0];
+            nearby.add(FakeServer.entity(LivingEntity.class, TYPES[i % TYPES.length], "entity" + i, location, tags));
+        }
+    }
+
+    @Benchmark
+    public List<Entity> inPlaceFilter() {
+        List<Entity> result = new ArrayList<>(nearby);
+        selector.inPlaceFilter(player, result);
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package think.rpgitems.benchmark;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+import think.rpgitems.item.RPGItem;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RPGItem#updateItem} on a stack, fully with the stack up to date or after a change of the item, and lore only
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class UpdateItemBenchmark {
+    @Param({"1", "8"})
+    public int powers;
+
+    private RPGItem item;
+    private ItemStack stack;
+
+    @Setup
+    public void setup() {
+        Fixtures.start();
+        item = Fixtures.item("update_" + powers, powers, 0);
+        stack = item.toItemStack();
+    }
+
+    @Benchmark
+    public ItemStack full() {
+        item.updateItem(stack, false);
+        return stack;
+    }
+
+    @Benchmark
+    public ItemStack fullAfterChange() {
+        item.touch();
+        item.updateItem(stack, false);
+        return stack;
+    }
+
+    @Benchmark
+    public ItemStack loreOnly() {
+        item.updateItem(stack, true);
+        return stack;
+    }
+}
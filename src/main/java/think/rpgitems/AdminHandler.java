@@ -26,8 +26,12 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.tags.CustomItemTagContainer;
 import org.bukkit.inventory.meta.tags.ItemTagType;
 import org.librazy.nclangchecker.LangKey;
+import think.rpgitems.data.CooldownStore;
+import think.rpgitems.data.ProjectileRegistry;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemGroup;
 import think.rpgitems.item.ItemManager;
+import think.rpgitems.item.ItemResolutionCache;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
 import think.rpgitems.power.impl.PowerCommand;
@@ -135,6 +139,27 @@ public class AdminHandler extends RPGCommandReceiver {
     @Attribute("command")
     public void save(CommandSender sender, Arguments args) {
         ItemManager.save();
+        ItemManager.flush();
+    }
+
+    @SubCommand("stats")
+    @Attribute("command")
+    public void stats(CommandSender sender, Arguments args) {
+        ItemResolutionCache resolutionCache = ItemManager.getResolutionCache();
+        msg(sender, "message.stats.resolution", resolutionCache.getHits(), resolutionCache.getMisses(), resolutionCache.getHitRate() * 100, resolutionCache.size());
+        msg(sender, "message.stats.equipment", EquipmentIndex.instance().size());
+        msg(sender, "message.stats.cooldowns", CooldownStore.instance().size());
+        msg(sender, "message.stats.projectiles", ProjectileRegistry.instance().size());
+        EffectEngine effectEngine = EffectEngine.instance();
+        msg(sender, "message.stats.effects", effectEngine.size());
+        effectEngine.sizeByWorld().forEach((world, size) -> msg(sender, "message.stats.effects_world", world.getName(), size));
+        effectEngine.getStats().stream()
+                    .sorted(Comparator.comparingLong(EffectEngine.Stats::getNanos).reversed())
+                    .forEach(stats -> msg(sender, "message.stats.effects_power", stats.getPower(), stats.getSteps(), stats.getNanos() / 1e6));
+        if (args.top() != null && args.nextString().equals("reset")) {
+            resolutionCache.resetStats();
+            effectEngine.resetStats();
+        }
     }
 
     @SubCommand("reload")
@@ -145,6 +170,7 @@ public class AdminHandler extends RPGCommandReceiver {
         plugin.i18n = new I18n(plugin, plugin.cfg.language);
         WGSupport.reload();
         ItemManager.reload(plugin);
+        ItemManager.refreshItem(sender);
         plugin.managedPlugins.forEach(Bukkit.getPluginManager()::disablePlugin);
         plugin.managedPlugins.clear();
         plugin.loadExtensions();
@@ -488,7 +514,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (value != null) {
             item.setDisplayName(value);
             msg(sender, "message.display.set", item.getName(), item.getDisplayName());
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         } else {
             msg(sender, "message.display.get", item.getName(), item.getDisplayName());
@@ -517,7 +543,7 @@ public class AdminHandler extends RPGCommandReceiver {
             } else {
                 msg(sender, "message.damage.set.value", item.getName(), item.getDamageMin());
             }
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         } catch (BadCommandException e) {
             msg(sender, "message.damage.get", item.getName(), item.getDamageMin(), item.getDamageMax());
@@ -532,7 +558,7 @@ public class AdminHandler extends RPGCommandReceiver {
             int armour = args.nextInt();
             item.setArmour(armour);
             msg(sender, "message.armour.set", item.getName(), item.getArmour());
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         } catch (BadCommandException e) {
             msg(sender, "message.armour.get", item.getName(), item.getArmour());
@@ -547,7 +573,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (type != null) {
             item.setType(type);
             msg(sender, "message.type.set", item.getName(), item.getType());
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         } else {
             msg(sender, "message.type.get", item.getName(), item.getType());
@@ -562,7 +588,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (type != null) {
             item.setHand(type);
             msg(sender, "message.hand.set", item.getName(), item.getType());
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         } else {
             msg(sender, "message.hand.get", item.getName(), item.getType());
@@ -602,7 +628,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 item.setDataValue(dataValue);
             }
             item.rebuild();
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
 
             new Message("")
                     .append(I18n.format("message.item.set", item.getName(), item.getItem().name(), item.getDataValue()), new ItemStack(item.getItem()))
@@ -654,7 +680,7 @@ public class AdminHandler extends RPGCommandReceiver {
                             item.setEnchantMap(Collections.emptyMap());
                         }
                         item.rebuild();
-                        ItemManager.refreshItem();
+                        ItemManager.refreshItem(sender);
                         ItemManager.save(item);
                         msg(sender, "message.enchantment.success");
                     }
@@ -666,7 +692,7 @@ public class AdminHandler extends RPGCommandReceiver {
             case "clear": {
                 item.setEnchantMap(null);
                 item.rebuild();
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 ItemManager.save(item);
                 msg(sender, "message.enchantment.removed");
             }
@@ -688,7 +714,7 @@ public class AdminHandler extends RPGCommandReceiver {
             if (op.isPresent()) {
                 item.removePower(op.get());
                 msg(sender, "message.power.removed", powerStr);
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 ItemManager.save(item);
             } else {
                 msg(sender, "message.power_property.power_notfound", powerStr, nth);
@@ -708,7 +734,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 String line = args.nextString();
                 item.addDescription(ChatColor.WHITE + line);
                 msg(sender, "message.description.ok");
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 ItemManager.save(item);
             }
             break;
@@ -722,7 +748,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 }
                 item.getDescription().add(lineNo, ChatColor.translateAlternateColorCodes('&', ChatColor.WHITE + line));
                 item.rebuild();
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 msg(sender, "message.description.ok");
                 ItemManager.save(item);
             }
@@ -736,7 +762,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 }
                 item.getDescription().set(lineNo, ChatColor.translateAlternateColorCodes('&', ChatColor.WHITE + line));
                 item.rebuild();
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 msg(sender, "message.description.change");
                 ItemManager.save(item);
             }
@@ -749,7 +775,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 }
                 item.getDescription().remove(lineNo);
                 item.rebuild();
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 msg(sender, "message.description.remove");
                 ItemManager.save(item);
             }
@@ -765,7 +791,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 @SuppressWarnings("deprecation") List<String> wrapLines = Utils.wrapLines(line, item.getTooltipWidth());
                 item.getDescription().addAll(lineNo, wrapLines);
                 item.rebuild();
-                ItemManager.refreshItem();
+                ItemManager.refreshItem(sender);
                 msg(sender, "message.description.change");
                 ItemManager.save(item);
             }
@@ -921,7 +947,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 return;
             }
             item.rebuild();
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
             msg(sender, "message.power_property.change");
         } catch (UnknownExtensionException e) {
@@ -999,14 +1025,14 @@ public class AdminHandler extends RPGCommandReceiver {
         try {
             int durability = Integer.parseInt(arg);
             item.setMaxDurability(durability);
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
             msg(sender, "message.durability.max_and_default", String.valueOf(durability));
         } catch (NumberFormatException e) {
             switch (arg) {
                 case "infinite": {
                     item.setMaxDurability(-1);
-                    ItemManager.refreshItem();
+                    ItemManager.refreshItem(sender);
                     ItemManager.save(item);
                     msg(sender, "message.durability.max_and_default", "infinite");
                 }
@@ -1018,7 +1044,7 @@ public class AdminHandler extends RPGCommandReceiver {
                         throw new CommandException("message.num_out_of_range", durability, 0, item.getMaxDurability());
                     }
                     item.setDefaultDurability(durability);
-                    ItemManager.refreshItem();
+                    ItemManager.refreshItem(sender);
                     ItemManager.save(item);
                     msg(sender, "message.durability.default", String.valueOf(durability));
                 }
@@ -1027,7 +1053,7 @@ public class AdminHandler extends RPGCommandReceiver {
                     int min = args.nextInt();
                     int max = args.nextInt();
                     item.setDurabilityBound(min, max);
-                    ItemManager.refreshItem();
+                    ItemManager.refreshItem(sender);
                     ItemManager.save(item);
                     msg(sender, "message.durability.bound", String.valueOf(min), String.valueOf(max));
                 }
@@ -1056,7 +1082,7 @@ public class AdminHandler extends RPGCommandReceiver {
         RPGItem item = getItem(args.nextString(), sender);
         item.setShowPowerText(!item.isShowPowerText());
         item.rebuild();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.toggleLore." + (item.isShowPowerText() ? "show" : "hide"));
     }
@@ -1067,7 +1093,7 @@ public class AdminHandler extends RPGCommandReceiver {
         RPGItem item = getItem(args.nextString(), sender);
         item.setShowArmourLore(!item.isShowArmourLore());
         item.rebuild();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.toggleLore." + (item.isShowArmourLore() ? "show" : "hide"));
     }
@@ -1079,7 +1105,7 @@ public class AdminHandler extends RPGCommandReceiver {
         ItemFlag flag = args.nextEnum(ItemFlag.class);
         item.getItemFlags().add(ItemFlag.valueOf(flag.name()));
         item.rebuild();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.itemflag.add", flag.name());
     }
@@ -1093,7 +1119,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (item.getItemFlags().contains(itemFlag)) {
             item.getItemFlags().remove(itemFlag);
             item.rebuild();
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
             msg(sender, "message.itemflag.remove", flag.name());
         } else {
@@ -1107,7 +1133,7 @@ public class AdminHandler extends RPGCommandReceiver {
         RPGItem item = getItem(args.nextString(), sender);
         item.setCustomItemModel(!item.isCustomItemModel());
         item.rebuild();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.customitemmodel." + (item.isCustomItemModel() ? "enable" : "disable"));
     }
@@ -1117,7 +1143,7 @@ public class AdminHandler extends RPGCommandReceiver {
     public void toggleBar(CommandSender sender, Arguments args) {
         RPGItem item = getItem(args.nextString(), sender);
         item.toggleBar();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.durability.toggle");
     }
@@ -1128,7 +1154,7 @@ public class AdminHandler extends RPGCommandReceiver {
         RPGItem item = getItem(args.nextString(), sender);
         item.setBarFormat(args.nextEnum(BarFormat.class));
         item.rebuild();
-        ItemManager.refreshItem();
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.barformat." + item.getBarFormat().name());
     }
@@ -1146,7 +1172,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (args.top() != null) {
             item.setEnchantMode(args.nextEnum(RPGItem.EnchantMode.class));
             item.rebuild();
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         }
         msg(sender, "message.enchantmode." + item.getEnchantMode().name(), item.getName());
@@ -1159,7 +1185,7 @@ public class AdminHandler extends RPGCommandReceiver {
         if (args.top() != null) {
             item.setDamageMode(args.nextEnum(RPGItem.DamageMode.class));
             item.rebuild();
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
         }
         msg(sender, "message.damagemode." + item.getDamageMode().name(), item.getName());
@@ -1238,7 +1264,7 @@ public class AdminHandler extends RPGCommandReceiver {
                 settled.add(field);
             }
             item.addPower(key, power);
-            ItemManager.refreshItem();
+            ItemManager.refreshItem(sender);
             ItemManager.save(item);
             msg(sender, "message.power.ok");
         } catch (Exception e) {
@@ -1416,9 +1442,8 @@ public class AdminHandler extends RPGCommandReceiver {
             msg(sender, "message.num_out_of_range", origin, 0, size);
             return;
         }
-        Power remove = item.getPowers().remove(origin);
-        item.getPowers().add(next, remove);
-        ItemManager.refreshItem();
+        Power remove = item.reorderPower(origin, next);
+        ItemManager.refreshItem(sender);
         ItemManager.save(item);
         msg(sender, "message.power.reorder", item.getName(), remove.getName());
     }
@@ -2081,9 +2106,9 @@ public class AdminHandler extends RPGCommandReceiver {
         }
         for (RPGItem item : items) {
             ItemManager.addItem(item);
+            ItemManager.save(item);
             msg(sender, "message.import.success", item.getName(), item.getUid());
         }
-        ItemManager.save();
     }
 
     public static class CommandException extends BadCommandException {
@@ -82,6 +82,21 @@ public class Configuration extends PluginConfigure {
     @Serializable(name = "general.item.show_loaded")
     public boolean itemShowLoaded = false;
 
+    @Serializable(name = "general.item.snapshot")
+    public boolean itemSnapshot = true;
+
+    @Serializable(name = "general.equipment_reconcile_interval")
+    public int equipmentReconcileInterval = 100;
+
+    @Serializable(name = "general.refresh.budget_ns")
+    public int refreshBudget = 2000000;
+
+    @Serializable(name = "general.refresh.containers")
+    public boolean refreshContainers = false;
+
+    @Serializable(name = "general.effects.budget_ns")
+    public int effectBudget = 10000000;
+
     @SuppressWarnings("unused")
     @Serializable(name = "unused.locale_inv", alias = {"general.locale_inv", "localeInv"})
     public boolean oldLocaleInv = false;
@@ -9,6 +9,7 @@ import org.bukkit.entity.*;
 import org.bukkit.event.*;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
 import org.bukkit.event.block.BlockPhysicsEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.enchantment.EnchantItemEvent;
@@ -19,12 +20,18 @@ import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.*;
 import org.bukkit.inventory.*;
 import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.metadata.FixedMetadataValue;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.projectiles.ProjectileSource;
-import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.data.Context;
+import think.rpgitems.data.CooldownStore;
+import think.rpgitems.data.PermissionElevation;
+import think.rpgitems.data.ProjectileRegistry;
+import think.rpgitems.item.DurabilityTransaction;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
+import think.rpgitems.power.EffectEngine;
 import think.rpgitems.power.Power;
 import think.rpgitems.power.PowerSneak;
 import think.rpgitems.power.PowerSprint;
@@ -53,10 +60,6 @@ public class Events implements Listener {
 
     static HashMap<String, Integer> recipeWindows = new HashMap<>();
 
-    private static HashSet<Integer> removeProjectiles = new HashSet<>();
-    private static HashMap<Integer, Integer> rpgProjectiles = new HashMap<>();
-    private static Map<UUID, ItemStack> localItemStacks = new HashMap<>();
-
     private static RPGItem projectileRpgItem;
     private static ItemStack projectileItemStack;
     private static Player projectilePlayer;
@@ -75,22 +78,6 @@ public class Events implements Listener {
         }
     }
 
-    public static void registerLocalItemStack(UUID entityId, ItemStack item) {
-        localItemStacks.put(entityId, item);
-    }
-
-    public static boolean hasLocalItemStack(UUID entityId) {
-        return localItemStacks.containsKey(entityId);
-    }
-
-    public static ItemStack getLocalItemStack(UUID entityId) {
-        return localItemStacks.get(entityId);
-    }
-
-    public static ItemStack removeLocalItemStack(UUID entityId) {
-        return localItemStacks.remove(entityId);
-    }
-
     public static void registerRPGProjectile(RPGItem rpgItem, ItemStack itemStack, Player player) {
         if (projectilePlayer != null) {
             throw new IllegalStateException();
@@ -100,12 +87,12 @@ public class Events implements Listener {
         Events.projectilePlayer = player;
     }
 
-    public static void registerRPGProjectile(int entityId, int uid) {
-        rpgProjectiles.put(entityId, uid);
+    public static void registerRPGProjectile(Projectile projectile, int uid) {
+        ProjectileRegistry.instance().track(projectile).setItemUid(uid);
     }
 
-    public static void autoRemoveProjectile(int entityId) {
-        removeProjectiles.add(entityId);
+    public static void autoRemoveProjectile(Projectile projectile) {
+        ProjectileRegistry.instance().track(projectile).setAutoRemove(true);
     }
 
     @EventHandler
@@ -190,15 +177,18 @@ public class Events implements Listener {
     @EventHandler
     public void onProjectileHit(ProjectileHitEvent e) {
         final Projectile entity = e.getEntity();
-        if (removeProjectiles.contains(entity.getEntityId())) {
+        ProjectileRegistry registry = ProjectileRegistry.instance();
+        ProjectileRegistry.Record record = registry.get(entity);
+        if (record == null) return;
+        if (record.isAutoRemove()) {
             Bukkit.getScheduler().runTask(plugin, () -> {
-                removeProjectiles.remove(entity.getEntityId());
+                registry.remove(entity);
                 entity.remove();
             });
         }
-        if (rpgProjectiles.containsKey(entity.getEntityId())) {
+        if (record.getItemUid() != null) {
             try {
-                RPGItem rItem = ItemManager.getItem(rpgProjectiles.get(entity.getEntityId())).orElse(null);
+                RPGItem rItem = ItemManager.getItem(record.getItemUid()).orElse(null);
 
                 if (rItem == null || !(entity.getShooter() instanceof Player))
                     return;
@@ -207,8 +197,8 @@ public class Events implements Listener {
                     ItemStack item = player.getInventory().getItemInMainHand();
                     RPGItem hItem = ItemManager.toRPGItem(item).orElse(null);
 
-                    if (hasLocalItemStack(entity.getUniqueId())) {
-                        item = getLocalItemStack(entity.getUniqueId());
+                    if (record.getStack() != null) {
+                        item = record.getStack();
                         rItem = ItemManager.toRPGItem(item).orElse(null);
                         if (rItem == null) throw new IllegalStateException();
                     } else {
@@ -231,11 +221,27 @@ public class Events implements Listener {
                     rItem.power(player, item, e, Trigger.PROJECTILE_HIT);
                 }
             } finally {
-                Bukkit.getScheduler().runTask(plugin, () -> rpgProjectiles.remove(entity.getEntityId()));
+                Bukkit.getScheduler().runTask(plugin, () -> record.setItemUid(null));
             }
         }
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        ProjectileRegistry registry = ProjectileRegistry.instance();
+        if (registry.size() == 0) return;
+        for (Entity entity : e.getChunk().getEntities()) {
+            if (entity instanceof Projectile) {
+                registry.remove(entity);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent e) {
+        EffectEngine.instance().cancelWorld(e.getWorld());
+    }
+
     @EventHandler(priority = EventPriority.LOW)
     public void onPlayerShootBow(EntityShootBowEvent e) {
         LivingEntity entity = e.getEntity();
@@ -248,10 +254,11 @@ public class Events implements Listener {
             e.setCancelled(true);
             return;
         }
-        if (e.getForce() != 0) {
-            e.getProjectile().setMetadata("RPGItems.OriginalForce", new FixedMetadataValue(plugin, e.getForce()));
+        if (force != e.getForce() || entity instanceof Player) {
+            if (e.getProjectile() instanceof Projectile) {
+                ProjectileRegistry.instance().track((Projectile) e.getProjectile()).setForce(e.getForce(), force);
+            }
         }
-        e.getProjectile().setMetadata("RPGItems.Force", new FixedMetadataValue(plugin, force));
     }
 
     @EventHandler
@@ -264,7 +271,7 @@ public class Events implements Listener {
             if (projectilePlayer != player) {
                 throw new IllegalStateException();
             }
-            registerRPGProjectile(e.getEntity().getEntityId(), projectileRpgItem.getUid());
+            registerRPGProjectile(entity, projectileRpgItem.getUid());
             projectileRpgItem.power(player, projectileItemStack, e, Trigger.LAUNCH_PROJECTILE);
             projectileRpgItem = null;
             projectilePlayer = null;
@@ -279,7 +286,7 @@ public class Events implements Listener {
             rItem = ItemManager.toRPGItem(item).orElse(null);
             if (rItem == null) return;
             UUID uuid = entity.getUniqueId();
-            registerLocalItemStack(uuid, item);
+            ProjectileRegistry.instance().track(entity).setStack(item);
             ItemStack fakeItem = rItem.toItemStack();
             List<String> fakeLore = new ArrayList<>(1);
             fakeLore.add(uuid.toString());
@@ -302,7 +309,7 @@ public class Events implements Listener {
         if (ItemManager.canUse(player, rItem) == Event.Result.DENY) {
             return;
         }
-        registerRPGProjectile(e.getEntity().getEntityId(), rItem.getUid());
+        registerRPGProjectile(entity, rItem.getUid());
         rItem.power(player, item, e, Trigger.LAUNCH_PROJECTILE);
     }
 
@@ -432,6 +439,7 @@ public class Events implements Listener {
         for (ItemStack item : player.getInventory().getArmorContents()) {
             ItemManager.toRPGItem(item).ifPresent(rpgItem -> rpgItem.updateItem(item));
         }
+        invalidateInventory(player);
         if (WGSupport.hasSupport() && WGSupport.useWorldGuard) {
             WGHandler.onPlayerJoin(e);
         }
@@ -445,12 +453,13 @@ public class Events implements Listener {
         }
         ItemStack tridentItem = e.getItem().getItemStack();
         ItemMeta itemMeta = tridentItem.getItemMeta();
-        if (!rpgProjectiles.containsKey(e.getArrow().getEntityId()) || !itemMeta.hasLore() || itemMeta.getLore().isEmpty()) {
+        ProjectileRegistry.Record record = ProjectileRegistry.instance().get(e.getArrow());
+        if (record == null || !itemMeta.hasLore() || itemMeta.getLore().isEmpty()) {
             return;
         }
         try {
             UUID uuid = UUID.fromString(itemMeta.getLore().get(0));
-            ItemStack realItem = removeLocalItemStack(uuid);
+            ItemStack realItem = uuid.equals(e.getArrow().getUniqueId()) ? record.takeStack() : null;
             if (realItem != null) {
                 if (realItem.getType() == Material.AIR) {
                     e.getArrow().setPickupStatus(Arrow.PickupStatus.DISALLOWED);
@@ -467,26 +476,16 @@ public class Events implements Listener {
         }
     }
 
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onPlayerPickup(EntityPickupItemEvent e) {
         if (!(e.getEntity() instanceof Player)) {
             return;
         }
-        final Player p = (Player) e.getEntity();
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!p.isOnline()) return;
-                PlayerInventory in = p.getInventory();
-                for (int i = 0; i < in.getSize(); i++) {
-                    ItemStack item = in.getItem(i);
-                    ItemManager.toRPGItem(item).ifPresent(rpgItem -> rpgItem.updateItem(item));
-                }
-                for (ItemStack item : in.getArmorContents()) {
-                    ItemManager.toRPGItem(item).ifPresent(rpgItem -> rpgItem.updateItem(item));
-                }
-            }
-        }.runTaskLater(plugin, 1L);
+        ItemStack item = e.getItem().getItemStack();
+        ItemManager.toRPGItem(item).ifPresent(rpgItem -> {
+            rpgItem.updateItem(item);
+            e.getItem().setItemStack(item);
+        });
     }
 
     @EventHandler
@@ -508,7 +507,7 @@ public class Events implements Listener {
             }
             item.setHasRecipe(true);
             item.resetRecipe(true);
-            ItemManager.save();
+            ItemManager.save(item);
             e.getPlayer().sendMessage(ChatColor.AQUA + "Recipe set for " + item.getName());
         }
     }
@@ -559,7 +558,14 @@ public class Events implements Listener {
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
     public void onDamage(EntityDamageByEntityEvent ev) {
         if (ev.getDamager() instanceof Player) {
-            playerDamager(ev);
+            // Melee cost and hit powers of the same stack are written once
+            DurabilityTransaction transaction = DurabilityTransaction.instance();
+            transaction.begin();
+            try {
+                playerDamager(ev);
+            } finally {
+                transaction.commit();
+            }
         } else if (ev.getDamager() instanceof Projectile) {
             projectileDamager(ev);
         }
@@ -614,10 +620,11 @@ public class Events implements Listener {
             e.setCancelled(true);
             return;
         }
-        Integer projectileID = rpgProjectiles.get(projectile.getEntityId());
+        ProjectileRegistry.Record record = ProjectileRegistry.instance().get(projectile);
+        Integer projectileID = record == null ? null : record.getItemUid();
         if (projectileID == null) {
-            if (projectile.hasMetadata("RPGItems.OriginalForce")) {
-                e.setDamage(e.getDamage() * projectile.getMetadata("RPGItems.Force").get(0).asFloat() / projectile.getMetadata("RPGItems.OriginalForce").get(0).asFloat());
+            if (record != null && record.getOriginalForce() != 0) {
+                e.setDamage(e.getDamage() * record.getForce() / record.getOriginalForce());
             }
             return;
         }
@@ -631,8 +638,8 @@ public class Events implements Listener {
         ItemStack item = player.getInventory().getItemInMainHand();
         RPGItem hItem = ItemManager.toRPGItem(item).orElse(null);
 
-        if (hasLocalItemStack(projectile.getUniqueId())) {
-            item = getLocalItemStack(projectile.getUniqueId());
+        if (record.getStack() != null) {
+            item = record.getStack();
             rItem = ItemManager.toRPGItem(item).orElse(null);
             if (rItem == null) throw new IllegalStateException();
         } else {
@@ -674,8 +681,10 @@ public class Events implements Listener {
     }
 
     private void runHitTrigger(EntityDamageByEntityEvent e, Player player, double damage, ItemStack[] armorContents) {
-        for (ItemStack armorContent : armorContents) {
-            if (armorContent == null) continue;
+        EquipmentIndex index = EquipmentIndex.instance();
+        for (int i = 0; i < armorContents.length; i++) {
+            ItemStack armorContent = armorContents[i];
+            if (armorContent == null || !index.hasTrigger(player, EquipmentIndex.ARMOR_SLOT + i, Trigger.HIT)) continue;
             RPGItem rpgItem = ItemManager.toRPGItem(armorContent).orElse(null);
             if (rpgItem == null) continue;
             damage = maxWithCancel(rpgItem.power(player, armorContent, e, Trigger.HIT).orElse(null), damage);
@@ -701,6 +710,8 @@ public class Events implements Listener {
             damage = pRItem.takeDamage(player, damage, pArmour, e.getDamager());
         }
         if (hasRPGItem) {
+            // Write changes deferred by an enclosing transaction before the stacks are copied back
+            DurabilityTransaction.instance().flush();
             player.getInventory().setArmorContents(armour);
         }
         e.setDamage(damage);
@@ -715,8 +726,10 @@ public class Events implements Listener {
 
     private double playerHitTaken(Player e, EntityDamageEvent ev) {
         double ret = ev.getDamage();
-        for (ItemStack item : e.getInventory().getContents()) {
-            RPGItem ri = ItemManager.toRPGItem(item).orElse(null);
+        PlayerInventory inventory = e.getInventory();
+        for (int slot : EquipmentIndex.instance().getSlots(e, Trigger.HIT_TAKEN)) {
+            ItemStack item = inventory.getItem(slot);
+            RPGItem ri = ItemManager.toRPGItem(e, slot, item).orElse(null);
             if (ri == null) continue;
             ret = minWithCancel(ri.power(e, item, ev, Trigger.HIT_TAKEN).orElse(null), ret);
         }
@@ -727,8 +740,10 @@ public class Events implements Listener {
     private void onPlayerHurt(EntityDamageByEntityEvent ev) {
         if (ev.getEntity() instanceof Player) {
             Player e = (Player) ev.getEntity();
-            for (ItemStack item : e.getInventory().getContents()) {
-                RPGItem ri = ItemManager.toRPGItem(item).orElse(null);
+            PlayerInventory inventory = e.getInventory();
+            for (int slot : EquipmentIndex.instance().getSlots(e, Trigger.HURT)) {
+                ItemStack item = inventory.getItem(slot);
+                RPGItem ri = ItemManager.toRPGItem(e, slot, item).orElse(null);
                 if (ri == null) continue;
                 ri.power(e, item, ev, Trigger.HURT);
             }
@@ -776,4 +791,113 @@ public class Events implements Listener {
         }
 
     }
-}
\ No newline at end of file
+
+    private static void invalidateInventory(Entity entity) {
+        if (entity instanceof Player) {
+            ItemManager.getResolutionCache().invalidate((Player) entity);
+            EquipmentIndex.instance().invalidate((Player) entity);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(InventoryClickEvent e) {
+        invalidateInventory(e.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(InventoryDragEvent e) {
+        invalidateInventory(e.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(InventoryCloseEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(EntityPickupItemEvent e) {
+        invalidateInventory(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(PlayerInteractEvent e) {
+        Action action = e.getAction();
+        if ((action == Action.RIGHT_CLICK_AIR || action == Action.RIGHT_CLICK_BLOCK) && e.useItemInHand() != Event.Result.DENY && isWearable(e.getMaterial())) {
+            EquipmentIndex.instance().invalidate(e.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(BlockDispenseArmorEvent e) {
+        invalidateInventory(e.getTargetEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(PlayerArmorStandManipulateEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    private static boolean isWearable(Material material) {
+        String name = material.name();
+        return material == Material.ELYTRA || name.endsWith("_HELMET") || name.endsWith("_CHESTPLATE") || name.endsWith("_LEGGINGS") || name.endsWith("_BOOTS");
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(PlayerDropItemEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(PlayerSwapHandItemsEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(PlayerItemConsumeEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(BlockPlaceEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(PlayerItemBreakEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(PlayerDeathEvent e) {
+        invalidateInventory(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(PlayerRespawnEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryChange(PlayerChangedWorldEvent e) {
+        invalidateInventory(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        invalidateInventory(e.getPlayer());
+        EquipmentIndex.instance().remove(e.getPlayer());
+        CooldownStore.instance().release(e.getPlayer().getUniqueId());
+        Context.instance().release(e.getPlayer().getUniqueId());
+        PermissionElevation.instance().release(e.getPlayer());
+        if (WGSupport.hasSupport()) {
+            WGSupport.release(e.getPlayer());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChange(PlayerCommandPreprocessEvent e) {
+        // Commands like /clear may rewrite the sender's inventory, stacks replaced in other inventories are
+        // caught by the stack identity check of the resolution cache
+        invalidateInventory(e.getPlayer());
+    }
+}
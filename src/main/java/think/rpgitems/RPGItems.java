@@ -2,26 +2,26 @@ package think.rpgitems;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.server.ServerLoadEvent;
-import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.InvalidDescriptionException;
 import org.bukkit.plugin.InvalidPluginException;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 import org.librazy.nclangchecker.LangKey;
 import think.rpgitems.data.Font;
+import think.rpgitems.data.PermissionElevation;
+import think.rpgitems.data.ProjectileRegistry;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.power.*;
 import think.rpgitems.power.impl.BasePower;
 import think.rpgitems.support.WGSupport;
 
 import java.io.File;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -42,6 +42,17 @@ public class RPGItems extends JavaPlugin {
     public I18n i18n;
     public Configuration cfg;
 
+    public RPGItems() {
+        super();
+    }
+
+    /**
+     * Used to load the plugin outside of a server, e.g. in benchmarks
+     */
+    protected RPGItems(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
     @Override
     public void onLoad() {
         plugin = this;
@@ -71,10 +82,10 @@ public class RPGItems extends JavaPlugin {
         cfg.load();
         i18n = new I18n(this, cfg.language);
 
-        PowerManager.registerAdapter(PowerPlain.class, PowerOffhandClick.class, p -> getWrapper(p, PowerOffhandClick.class, "offhandClick"));
-        PowerManager.registerAdapter(PowerPlain.class, PowerSprint.class, p -> getWrapper(p, PowerSprint.class, "sprint"));
-        PowerManager.registerAdapter(PowerPlain.class, PowerSneak.class, p -> getWrapper(p, PowerSneak.class, "sneak"));
-        PowerManager.registerAdapter(PowerPlain.class, PowerAttachment.class, p -> getWrapper(p, PowerAttachment.class, "attachment"));
+        PowerManager.registerAdapter(PowerPlain.class, PowerOffhandClick.class, PowerPlainAdapter.OffhandClick::new);
+        PowerManager.registerAdapter(PowerPlain.class, PowerSprint.class, PowerPlainAdapter.Sprint::new);
+        PowerManager.registerAdapter(PowerPlain.class, PowerSneak.class, PowerPlainAdapter.Sneak::new);
+        PowerManager.registerAdapter(PowerPlain.class, PowerAttachment.class, PowerPlainAdapter.Attachment::new);
 
         PowerManager.addDescriptionResolver(RPGItems.plugin, (power, property) -> {
             if (property == null) {
@@ -195,19 +206,10 @@ public class RPGItems extends JavaPlugin {
         getCommand("rpgitem").setExecutor(null);
         getCommand("rpgitem").setTabCompleter(null);
         this.getServer().getScheduler().cancelTasks(plugin);
+        PermissionElevation.instance().unload();
+        ProjectileRegistry.instance().unload();
+        EffectEngine.instance().unload();
         ItemManager.unload();
         managedPlugins.forEach(Bukkit.getPluginManager()::disablePlugin);
     }
-
-    @SuppressWarnings({"unchecked", "JavaReflectionInvocation"})
-    private static <T> T getWrapper(final PowerPlain obj, final Class<T> implInterface, final String delegateMethod) {
-        InvocationHandler invocationHandler = (proxy, method, args) -> {
-            if (!method.getName().equals(delegateMethod)) {
-                return obj.getClass().getMethod(method.getName(), method.getParameterTypes()).invoke(obj, args);
-            } else {
-                return obj.getClass().getDeclaredMethod("fire", Player.class, ItemStack.class).invoke(obj, args[0], args[1]);
-            }
-        };
-        return (T) Proxy.newProxyInstance(obj.getClass().getClassLoader(), new Class[]{implInterface}, invocationHandler);
-    }
 }
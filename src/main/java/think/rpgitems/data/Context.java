@@ -4,14 +4,14 @@ import cat.nyaa.nyaacore.Pair;
 import org.bukkit.Location;
 import org.bukkit.entity.LivingEntity;
 
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class Context {
-    private HashMap<UUID, ExpiringMap<String, Object>> storage = new HashMap<>();
+    private static final long TEMP = Long.MAX_VALUE;
+    private static final long TICK = Long.MAX_VALUE - 1;
+
+    private HashMap<UUID, Local> storage = new HashMap<>();
+    private HashSet<UUID> tickScoped = new HashSet<>();
 
     private static Context instance = new Context();
 
@@ -20,7 +20,7 @@ public class Context {
     }
 
     public LivingEntity getLivingEntity(UUID context, String key) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return null;
         Object obj = local.get(key);
         if (obj instanceof LivingEntity) {
@@ -30,7 +30,7 @@ public class Context {
     }
 
     public Boolean getBoolean(UUID context, String key) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return null;
         Object obj = local.get(key);
         if (obj instanceof Boolean) {
@@ -40,7 +40,7 @@ public class Context {
     }
 
     public Double getDouble(UUID context, String key) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return null;
         Object obj = local.get(key);
         if (obj instanceof Double) {
@@ -50,7 +50,7 @@ public class Context {
     }
 
     public Location getLocation(UUID context, String key) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return null;
         Object obj = local.get(key);
         if (obj instanceof Location) {
@@ -60,21 +60,21 @@ public class Context {
     }
 
     public Object get(UUID context, String key) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return null;
         return local.get(key);
     }
 
     public void put(UUID context, String key, Object obj) {
-        storage.computeIfAbsent(context, (ignored) -> new ExpiringMap<>()).put(key, obj);
+        put(context, key, obj, getCurrentMillis());
     }
 
     public void putTemp(UUID context, String key, Object obj) {
-        storage.computeIfAbsent(context, (ignored) -> new ExpiringMap<>()).putTemp(key, obj);
+        local(context).put(key, obj, TEMP);
     }
 
     public void put(UUID context, String key, Object obj, long expire) {
-        storage.computeIfAbsent(context, (ignored) -> new ExpiringMap<>()).put(key, obj, expire);
+        local(context).put(key, obj, expire);
     }
 
     public void putExpiringSeconds(UUID context, String key, Object obj, int expiringSeconds) {
@@ -82,178 +82,124 @@ public class Context {
     }
 
     public void cleanTemp(UUID context) {
-        ExpiringMap<String, Object> local = storage.get(context);
+        Local local = storage.get(context);
         if (local == null) return;
-        local.cleanupTemp();
-    }
-
-    public void cleanTick() {
-        for (ExpiringMap<String, Object> local : storage.values()) {
-            local.cleanup(null, null, ExpiringMap.TICK);
+        local.clearScope(TEMP);
+        if (local.isEmpty()) {
+            storage.remove(context);
         }
     }
 
-    public class ExpiringMap<K, V> implements Map<K, V> {
-        private final int aliveAge;
-        private final HashMap<K, Long> birth = new HashMap<>();
-        private final HashMap<K, V> inner;
-
-        private static final long TEMP = Long.MAX_VALUE;
-        private static final long TICK = Long.MAX_VALUE - 1;
-
-        public ExpiringMap() {
-            this(0);
-        }
-
-        public ExpiringMap(int aliveAge) {
-            inner = new HashMap<>();
-            this.aliveAge = aliveAge;
-        }
-
-        public ExpiringMap(int initialCapacity, int aliveAge) {
-            inner = new HashMap<>(initialCapacity);
-            this.aliveAge = aliveAge;
-        }
-
-        private void rec(K i, long birth) {
-            this.birth.put(i, birth);
-            this.cleanup();
-        }
-
-        private void rec(K key) {
-            long currentMillis = getCurrentMillis();
-            rec(key, currentMillis);
-        }
-
-        public void cleanup() {
-            cleanup(null, null, null);
-        }
-
-        public void cleanupTemp() {
-            cleanup(null, null, TEMP);
-        }
-
-        @Nullable
-        public Pair<K, V> cleanup(Object findKey, Object findValue, Long removing) {
-            long currentMillis = getCurrentMillis();
-            Iterator<Map.Entry<K, Long>> expireIter = this.birth.entrySet().iterator();
-
-            while (expireIter.hasNext()) {
-                Map.Entry<K, Long> entry = expireIter.next();
-                K key = entry.getKey();
-                V value = inner.get(key);
-                Long birth = entry.getValue();
-
-                if ((currentMillis - birth <= (long) this.aliveAge)
-                            && !Objects.equals(birth, removing)) {
-                    if (Objects.equals(findKey, key)) {
-                        return Pair.of(key, value);
-                    }
-                    if (value != null && Objects.equals(findValue, value)) {
-                        return Pair.of(key, value);
-                    }
-                    continue;
-                }
-
-                inner.remove(key);
-                expireIter.remove();
+    public void cleanTick() {
+        if (tickScoped.isEmpty()) return;
+        for (UUID context : tickScoped) {
+            Local local = storage.get(context);
+            if (local == null) continue;
+            local.clearScope(TICK);
+            if (local.isEmpty()) {
+                storage.remove(context);
             }
-            return null;
         }
+        tickScoped.clear();
+    }
 
-        @Override
-        public int size() {
-            this.cleanup();
-            return inner.size();
-        }
+    /**
+     * Releases all values of a context, e.g. when a player quits
+     *
+     * @param context Context
+     */
+    public void release(UUID context) {
+        storage.remove(context);
+        tickScoped.remove(context);
+    }
 
-        @Override
-        public boolean isEmpty() {
-            this.cleanup();
-            return inner.isEmpty();
+    private Local local(UUID context) {
+        Local local = storage.get(context);
+        if (local == null) {
+            local = new Local(context);
+            storage.put(context, local);
         }
+        return local;
+    }
 
-        @Override
-        public boolean containsKey(Object key) {
-            return this.cleanup(key, null, null) == null;
-        }
+    private static final class Value {
+        private final Object obj;
+        /**
+         * Expire time in millis, or {@link #TEMP} / {@link #TICK}
+         */
+        private final long expire;
 
-        @Override
-        public boolean containsValue(Object value) {
-            return this.cleanup(null, value, null) == null;
+        private Value(Object obj, long expire) {
+            this.obj = obj;
+            this.expire = expire;
         }
+    }
 
-        @SuppressWarnings("unchecked")
-        @Override
-        public V get(Object key) {
-            Pair<K, V> cleanup = this.cleanup(key, null, null);
-            if (cleanup == null) {
+    /**
+     * Values of a single context.
+     * <p>
+     * Timed values are indexed by a deadline-ordered queue, TEMP and TICK values by a plain list of keys,
+     * so every scope is cleared without walking the others.
+     * Stale index entries of overwritten keys are skipped by identity when they come up.
+     */
+    private final class Local {
+        private final UUID context;
+        private final HashMap<String, Value> values = new HashMap<>();
+        private final PriorityQueue<Pair<String, Value>> deadlines = new PriorityQueue<>(Comparator.comparingLong(p -> p.getValue().expire));
+        private final List<Pair<String, Value>> temp = new ArrayList<>();
+        private final List<Pair<String, Value>> tick = new ArrayList<>();
+
+        private Local(UUID context) {
+            this.context = context;
+        }
+
+        private Object get(String key) {
+            Value value = values.get(key);
+            if (value == null) return null;
+            if (value.expire < TICK && getCurrentMillis() > value.expire) {
+                expire();
                 return null;
             }
-            return cleanup.getValue();
-        }
-
-        @Override
-        public V put(K i, V value) {
-            this.rec(i);
-            return inner.put(i, value);
-        }
-
-        public V put(K i, V value, long birth) {
-            this.rec(i, birth);
-            return inner.put(i, value);
-        }
-
-        public V putTemp(K i, V value) {
-            this.rec(i, TEMP);
-            return inner.put(i, value);
-        }
-
-        @Override
-        public V remove(Object key) {
-            birth.remove(key);
-            return inner.remove(key);
+            return value.obj;
+        }
+
+        private void put(String key, Object obj, long expire) {
+            Value value = new Value(obj, expire);
+            values.put(key, value);
+            Pair<String, Value> entry = Pair.of(key, value);
+            if (expire == TEMP) {
+                temp.add(entry);
+            } else if (expire == TICK) {
+                if (tick.isEmpty()) {
+                    tickScoped.add(context);
+                }
+                tick.add(entry);
+            } else {
+                deadlines.add(entry);
+                expire();
+            }
         }
 
-        @Override
-        public void putAll(@Nonnull Map<? extends K, ? extends V> map) {
+        private void expire() {
             long currentMillis = getCurrentMillis();
-            birth.putAll(map.keySet().stream().collect(Collectors.toMap(e -> e, e -> currentMillis)));
-            inner.putAll(map);
-            cleanup();
-        }
-
-        @Override
-        public void clear() {
-            birth.clear();
-            inner.clear();
-        }
-
-        @Override
-        @Nonnull
-        public Set<K> keySet() {
-            cleanup();
-            return birth.keySet();
-        }
-
-        @Override
-        public V computeIfAbsent(K key, Function<? super K, ? extends V> value) {
-            this.birth.put(key, getCurrentMillis());
-            return inner.computeIfAbsent(key, value);
+            Pair<String, Value> head;
+            while ((head = deadlines.peek()) != null && head.getValue().expire < currentMillis) {
+                deadlines.poll();
+                values.remove(head.getKey(), head.getValue());
+            }
         }
 
-        @Override
-        @Nonnull
-        public Collection<V> values() {
-            this.cleanup();
-            return inner.values();
+        private void clearScope(long scope) {
+            List<Pair<String, Value>> entries = scope == TEMP ? temp : tick;
+            for (Pair<String, Value> entry : entries) {
+                values.remove(entry.getKey(), entry.getValue());
+            }
+            entries.clear();
+            expire();
         }
 
-        @Override
-        @Nonnull
-        public Set<Entry<K, V>> entrySet() {
-            this.cleanup();
-            return inner.entrySet();
+        private boolean isEmpty() {
+            return values.isEmpty();
         }
     }
 
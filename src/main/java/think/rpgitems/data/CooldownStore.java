@@ -0,0 +1,268 @@
+package think.rpgitems.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import think.rpgitems.RPGItems;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cooldown deadlines of powers, per player.
+ * <p>
+ * A cooldown is identified by the item uid and either the power key or a custom key, packed into a single
+ * {@code long} after interning the key. Deadlines are stored in ticks in primitive tables, expired entries
+ * are dropped lazily, and the table of a player is released once the player is offline and all its
+ * cooldowns have expired.
+ */
+public class CooldownStore {
+    private static CooldownStore instance = new CooldownStore();
+
+    private final Map<UUID, Deadlines> storage = new HashMap<>();
+    private final Map<NamespacedKey, Integer> powerKeys = new HashMap<>();
+    private final Map<String, Integer> customKeys = new HashMap<>();
+    private int nextKey = 1;
+
+    public static CooldownStore instance() {
+        return instance;
+    }
+
+    /**
+     * @return Current time in ticks, as used for deadlines
+     */
+    public static long now() {
+        return System.currentTimeMillis() / 50;
+    }
+
+    /**
+     * @param uid      Item uid
+     * @param powerKey Key of the power
+     * @return Packed cooldown key
+     */
+    public long key(int uid, NamespacedKey powerKey) {
+        Integer id = powerKeys.get(powerKey);
+        if (id == null) {
+            id = nextKey++;
+            powerKeys.put(powerKey, id);
+        }
+        return pack(uid, id);
+    }
+
+    /**
+     * @param uid       Item uid
+     * @param customKey Custom key
+     * @return Packed cooldown key
+     */
+    public long key(int uid, String customKey) {
+        Integer id = customKeys.get(customKey);
+        if (id == null) {
+            id = nextKey++;
+            customKeys.put(customKey, id);
+        }
+        return pack(uid, id);
+    }
+
+    private static long pack(int uid, int id) {
+        return ((long) uid << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param player Player
+     * @param key    Packed cooldown key
+     * @return Remaining cooldown in ticks, {@code 0} if not cooling down
+     */
+    public long getRemaining(UUID player, long key) {
+        Deadlines deadlines = storage.get(player);
+        if (deadlines == null) return 0;
+        long now = now();
+        long deadline = deadlines.get(key);
+        if (deadline == 0) return 0;
+        if (deadline <= now) {
+            deadlines.remove(key);
+            return 0;
+        }
+        return deadline - now;
+    }
+
+    /**
+     * Starts a cooldown unless one is already running
+     *
+     * @param player   Player
+     * @param key      Packed cooldown key
+     * @param cooldown Cooldown in ticks
+     * @return Remaining ticks of the running cooldown, or {@code 0} if a new cooldown was started
+     */
+    public long acquire(UUID player, long key, long cooldown) {
+        long now = now();
+        Deadlines deadlines = storage.get(player);
+        if (deadlines != null) {
+            long deadline = deadlines.get(key);
+            if (deadline > now) {
+                return deadline - now;
+            }
+        }
+        if (cooldown <= 0) {
+            if (deadlines != null) deadlines.remove(key);
+            return 0;
+        }
+        if (deadlines == null) {
+            deadlines = new Deadlines();
+            storage.put(player, deadlines);
+        }
+        deadlines.put(key, now + cooldown, now);
+        return 0;
+    }
+
+    /**
+     * Releases the cooldowns of a player who left, once they have expired
+     *
+     * @param player Player
+     */
+    public void release(UUID player) {
+        Deadlines deadlines = storage.get(player);
+        if (deadlines == null) return;
+        long now = now();
+        deadlines.removeExpired(now);
+        if (deadlines.isEmpty()) {
+            storage.remove(player);
+            return;
+        }
+        // Keep running cooldowns so relogging does not reset them
+        long delay = deadlines.latest() - now;
+        Bukkit.getScheduler().runTaskLater(RPGItems.plugin, () -> {
+            if (Bukkit.getPlayer(player) == null) {
+                release(player);
+            }
+        }, delay + 1);
+    }
+
+    public int size() {
+        return storage.values().stream().mapToInt(d -> d.size).sum();
+    }
+
+    /**
+     * Open addressing {@code long -> long} table, {@code 0} being the empty key
+     */
+    private static final class Deadlines {
+        private long[] keys = new long[8];
+        private long[] values = new long[8];
+        private int size;
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int pos = mix(key) & mask; keys[pos] != 0; pos = (pos + 1) & mask) {
+                if (keys[pos] == key) return values[pos];
+            }
+            return 0;
+        }
+
+        void put(long key, long value, long now) {
+            int mask = keys.length - 1;
+            int pos = mix(key) & mask;
+            for (; keys[pos] != 0; pos = (pos + 1) & mask) {
+                if (keys[pos] == key) {
+                    values[pos] = value;
+                    return;
+                }
+            }
+            if ((size + 1) * 4 > keys.length * 3) {
+                removeExpired(now);
+                if ((size + 1) * 4 > keys.length * 3) {
+                    rehash(keys.length * 2);
+                }
+                put(key, value, now);
+                return;
+            }
+            keys[pos] = key;
+            values[pos] = value;
+            ++size;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            for (int pos = mix(key) & mask; keys[pos] != 0; pos = (pos + 1) & mask) {
+                if (keys[pos] == key) {
+                    shift(pos);
+                    --size;
+                    return;
+                }
+            }
+        }
+
+        private void shift(int pos) {
+            int mask = keys.length - 1;
+            for (; ; ) {
+                int last = pos;
+                pos = (pos + 1) & mask;
+                long curr;
+                for (; ; ) {
+                    if ((curr = keys[pos]) == 0) {
+                        keys[last] = 0;
+                        return;
+                    }
+                    int slot = mix(curr) & mask;
+                    if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                    pos = (pos + 1) & mask;
+                }
+                keys[last] = curr;
+                values[last] = values[pos];
+            }
+        }
+
+        void removeExpired(long now) {
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0 && values[i] > now) ++live;
+            }
+            if (live == size) return;
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            int capacity = 8;
+            while (live * 4 > capacity * 3) capacity *= 2;
+            keys = new long[capacity];
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] > now) insert(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[capacity];
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) insert(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void insert(long key, long value) {
+            int mask = keys.length - 1;
+            int pos = mix(key) & mask;
+            while (keys[pos] != 0) pos = (pos + 1) & mask;
+            keys[pos] = key;
+            values[pos] = value;
+            ++size;
+        }
+
+        long latest() {
+            long latest = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) latest = Math.max(latest, values[i]);
+            }
+            return latest;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
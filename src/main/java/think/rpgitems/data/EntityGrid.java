@@ -0,0 +1,224 @@
+package think.rpgitems.data;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Snapshot of the living entities of a world, bucketed by position in a spatial hash grid.
+ * <p>
+ * A snapshot is built on the first query of a tick and dropped by {@link #clear()} on the next one,
+ * so every query of the same tick shares it. Queries compare squared distances against the
+ * positions recorded in the snapshot and skip entities that died since.
+ */
+public class EntityGrid {
+    private static final int CELL_SHIFT = 3;
+
+    private static final Map<UUID, EntityGrid> grids = new HashMap<>();
+
+    private final World world;
+    private final LivingEntity[] entities;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final long[] cells;
+    /**
+     * Entries of bucket {@code b} are {@code [starts[b], starts[b + 1])}
+     */
+    private final int[] starts;
+    private final int mask;
+    private final int minCellY;
+    private final int maxCellY;
+
+    public static EntityGrid of(World world) {
+        EntityGrid grid = grids.get(world.getUID());
+        if (grid == null) {
+            grid = new EntityGrid(world);
+            grids.put(world.getUID(), grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Drops all snapshots, called once per tick
+     */
+    public static void clear() {
+        grids.clear();
+    }
+
+    private EntityGrid(World world) {
+        this.world = world;
+        List<LivingEntity> living = world.getLivingEntities();
+        int size = living.size();
+        int buckets = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        mask = buckets - 1;
+
+        LivingEntity[] unsorted = living.toArray(new LivingEntity[0]);
+        double[] x = new double[size], y = new double[size], z = new double[size];
+        long[] cell = new long[size];
+        int[] bucket = new int[size];
+        int[] counts = new int[buckets + 1];
+        int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        Location location = new Location(world, 0, 0, 0);
+        for (int i = 0; i < size; i++) {
+            unsorted[i].getLocation(location);
+            x[i] = location.getX();
+            y[i] = location.getY();
+            z[i] = location.getZ();
+            int cy = cellOf(y[i]);
+            minY = Math.min(minY, cy);
+            maxY = Math.max(maxY, cy);
+            cell[i] = key(cellOf(x[i]), cy, cellOf(z[i]));
+            bucket[i] = hash(cell[i]) & mask;
+            ++counts[bucket[i] + 1];
+        }
+        minCellY = minY;
+        maxCellY = maxY;
+
+        starts = new int[buckets + 1];
+        for (int b = 0; b < buckets; b++) {
+            starts[b + 1] = starts[b] + counts[b + 1];
+        }
+        int[] next = Arrays.copyOf(starts, buckets);
+        entities = new LivingEntity[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+        cells = new long[size];
+        for (int i = 0; i < size; i++) {
+            int slot = next[bucket[i]]++;
+            entities[slot] = unsorted[i];
+            xs[slot] = x[i];
+            ys[slot] = y[i];
+            zs[slot] = z[i];
+            cells[slot] = cell[i];
+        }
+    }
+
+    private static int cellOf(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    private static long key(int cx, int cy, int cz) {
+        return ((long) (cx & 0xFFFFFF) << 40) | ((long) (cy & 0xFFFF) << 24) | (cz & 0xFFFFFF);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Living entities whose position is in a sphere shell
+     *
+     * @param center    Center
+     * @param radius    Max distance, inclusive
+     * @param minRadius Min distance, inclusive
+     * @param filter    Additional filter, nullable
+     * @return Matching entities, nearest first
+     */
+    public List<LivingEntity> sphere(Location center, double radius, double minRadius, Predicate<? super LivingEntity> filter) {
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        double max = radius * radius, min = minRadius * minRadius;
+        Hits hits = new Hits();
+        scan(cx - radius, cy - radius, cz - radius, cx + radius, cy + radius, cz + radius, i -> {
+            double x = xs[i] - cx, y = ys[i] - cy, z = zs[i] - cz;
+            double distance = x * x + y * y + z * z;
+            if (distance > max || distance < min) return;
+            if (filter != null && !filter.test(entities[i])) return;
+            hits.add(i, distance);
+        });
+        List<LivingEntity> result = new ArrayList<>(hits.size);
+        for (int i = 0; i < hits.size; i++) {
+            result.add(entities[hits.indexes[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Living entities whose position is in an axis aligned box
+     *
+     * @param center Center of the box
+     * @param dx     Half size in X axis
+     * @param dy     Half size in Y axis
+     * @param dz     Half size in Z axis
+     * @param filter Additional filter, nullable
+     * @return Matching entities
+     */
+    public List<LivingEntity> box(Location center, double dx, double dy, double dz, Predicate<? super LivingEntity> filter) {
+        double minX = center.getX() - dx, minY = center.getY() - dy, minZ = center.getZ() - dz;
+        double maxX = center.getX() + dx, maxY = center.getY() + dy, maxZ = center.getZ() + dz;
+        List<LivingEntity> result = new ArrayList<>();
+        scan(minX, minY, minZ, maxX, maxY, maxZ, i -> {
+            if (xs[i] < minX || xs[i] > maxX || ys[i] < minY || ys[i] > maxY || zs[i] < minZ || zs[i] > maxZ) return;
+            if (filter != null && !filter.test(entities[i])) return;
+            result.add(entities[i]);
+        });
+        return result;
+    }
+
+    /**
+     * Entity indexes kept sorted by distance, by insertion as results are small
+     */
+    private static final class Hits {
+        private int[] indexes = new int[8];
+        private double[] distances = new double[8];
+        private int size;
+
+        private void add(int index, double distance) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int pos = size++;
+            while (pos > 0 && distances[pos - 1] > distance) {
+                indexes[pos] = indexes[pos - 1];
+                distances[pos] = distances[pos - 1];
+                --pos;
+            }
+            indexes[pos] = index;
+            distances[pos] = distance;
+        }
+    }
+
+    private interface Visitor {
+        void visit(int index);
+    }
+
+    private void scan(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, Visitor visitor) {
+        if (entities.length == 0) return;
+        int fromX = cellOf(minX), toX = cellOf(maxX);
+        int fromY = Math.max(cellOf(minY), minCellY), toY = Math.min(cellOf(maxY), maxCellY);
+        int fromZ = cellOf(minZ), toZ = cellOf(maxZ);
+        if (fromY > toY) return;
+        long probes = (long) (toX - fromX + 1) * (toY - fromY + 1) * (toZ - fromZ + 1);
+        if (probes >= entities.length) {
+            for (int i = 0; i < entities.length; i++) {
+                if (entities[i].isValid()) visitor.visit(i);
+            }
+            return;
+        }
+        for (int x = fromX; x <= toX; x++) {
+            for (int y = fromY; y <= toY; y++) {
+                for (int z = fromZ; z <= toZ; z++) {
+                    long key = key(x, y, z);
+                    int bucket = hash(key) & mask;
+                    for (int i = starts[bucket]; i < starts[bucket + 1]; i++) {
+                        if (cells[i] == key && entities[i].isValid()) visitor.visit(i);
+                    }
+                }
+            }
+        }
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int size() {
+        return entities.length;
+    }
+}
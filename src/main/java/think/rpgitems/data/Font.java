@@ -1,24 +1,80 @@
 package think.rpgitems.data;
 
+import com.google.common.io.ByteStreams;
+import org.bukkit.ChatColor;
 import think.rpgitems.RPGItems;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
 
 public class Font {
-    public static int[] widths;
+    private static final int CACHE_SIZE = 512;
+
+    private static byte[] widths = new byte[0x10000];
+
+    private static final Map<String, Integer> cache = new LinkedHashMap<String, Integer>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
 
     public static void load() {
-        widths = new int[0xFFFF];
+        byte[] table = new byte[0x10000];
+        try (InputStream in = RPGItems.plugin.getResource("font.bin")) {
+            ByteStreams.read(in, table, 0, table.length);
+        } catch (IOException e) {
+            RPGItems.logger.log(Level.WARNING, "Error loading font.bin", e);
+        }
+        widths = table;
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
 
-        try {
-            InputStream in = RPGItems.plugin.getResource("font.bin");
-            for (int i = 0; i < widths.length; i++) {
-                widths[i] = in.read();
+    /**
+     * @param c Character
+     * @return Width of the character in pixels, without the spacing after it
+     */
+    public static int charWidth(char c) {
+        return widths[c] & 0xFF;
+    }
+
+    /**
+     * Measures a string as displayed, the same as measuring it after {@link ChatColor#stripColor(String)}.
+     * Recently measured strings are cached, as the same lore lines are measured over and over.
+     *
+     * @param str String, may contain color codes
+     * @return Width in pixels
+     */
+    public static int getStringWidth(String str) {
+        synchronized (cache) {
+            Integer cached = cache.get(str);
+            if (cached != null) {
+                return cached;
             }
-            in.close();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        int width = 0;
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if (c == ChatColor.COLOR_CHAR && i + 1 < length && isCode(str.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            width += charWidth(c) + 1;
+        }
+        synchronized (cache) {
+            cache.put(str, width);
+        }
+        return width;
+    }
+
+    private static boolean isCode(char c) {
+        c = Character.toLowerCase(c);
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'k' && c <= 'o') || c == 'r';
     }
 }
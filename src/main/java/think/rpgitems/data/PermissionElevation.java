@@ -0,0 +1,222 @@
+package think.rpgitems.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.Permission;
+import org.bukkit.permissions.PermissionAttachment;
+import org.bukkit.permissions.PermissionDefault;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitTask;
+import think.rpgitems.RPGItems;
+
+import java.util.*;
+
+/**
+ * Temporary permissions given to players by command powers.
+ * <p>
+ * Every player gets one long-lived attachment. Each permission of a power, e.g. {@code a.b.c}, is registered once as
+ * a permission whose children are {@code a}, {@code a.b} and {@code a.b.c}, so granting or revoking it costs a single
+ * permission recalculation. Grants are scoped by {@link Grant#close()}, but revoked at the next tick at the earliest,
+ * so repeated grants of the same permissions within a tick are coalesced.
+ */
+public class PermissionElevation {
+    private static final String PREFIX = "rpgitems.elevation.";
+
+    private static PermissionElevation instance = new PermissionElevation();
+
+    private final Map<String, Elevation[]> elevations = new HashMap<>();
+    private final Map<UUID, Holder> holders = new HashMap<>();
+    private final Set<Holder> expiring = new LinkedHashSet<>();
+    private BukkitTask revokeTask;
+    private int nextId;
+
+    public static PermissionElevation instance() {
+        return instance;
+    }
+
+    /**
+     * Grants {@code player} the {@code ;} separated permissions it does not have yet.
+     * As before, permissions after the first one the player already has are not granted.
+     *
+     * @param player      Player
+     * @param permissions Permissions, nothing is granted for an empty string or {@code *}
+     * @return Grant to close once the command was run
+     */
+    public Grant grant(Player player, String permissions) {
+        if (permissions.length() == 0 || permissions.equals("*")) {
+            return Grant.NONE;
+        }
+        Holder holder = null;
+        List<Permission> acquired = null;
+        for (Elevation elevation : getElevations(permissions)) {
+            if (player.hasPermission(elevation.name)) {
+                break;
+            }
+            if (holder == null) {
+                holder = holders.computeIfAbsent(player.getUniqueId(), uuid -> new Holder(player));
+                acquired = new ArrayList<>(1);
+            }
+            holder.acquire(elevation.permission);
+            acquired.add(elevation.permission);
+        }
+        return holder == null ? Grant.NONE : new Grant(this, holder, acquired);
+    }
+
+    /**
+     * Drops the attachment of a player, e.g. on quit
+     */
+    public void release(Player player) {
+        Holder holder = holders.remove(player.getUniqueId());
+        if (holder != null) {
+            expiring.remove(holder);
+            holder.remove();
+        }
+    }
+
+    /**
+     * Revokes everything and unregisters the permissions, on disable
+     */
+    public void unload() {
+        if (revokeTask != null) {
+            revokeTask.cancel();
+            revokeTask = null;
+        }
+        expiring.clear();
+        holders.values().forEach(Holder::remove);
+        holders.clear();
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        for (Elevation[] permissions : elevations.values()) {
+            for (Elevation elevation : permissions) {
+                pluginManager.removePermission(elevation.permission);
+            }
+        }
+        elevations.clear();
+    }
+
+    private Elevation[] getElevations(String permissions) {
+        Elevation[] cached = elevations.get(permissions);
+        if (cached != null) {
+            return cached;
+        }
+        String[] names = permissions.split(";");
+        cached = new Elevation[names.length];
+        PluginManager pluginManager = Bukkit.getPluginManager();
+        for (int i = 0; i < names.length; i++) {
+            Map<String, Boolean> children = new LinkedHashMap<>();
+            StringBuilder node = new StringBuilder();
+            for (String part : names[i].split("\\.")) {
+                node.append(part);
+                children.put(node.toString(), true);
+                node.append('.');
+            }
+            Permission permission = new Permission(PREFIX + nextId++, "Granted by RPGItems while running " + names[i], PermissionDefault.FALSE, children);
+            if (pluginManager.getPermission(permission.getName()) != null) {
+                pluginManager.removePermission(permission.getName());
+            }
+            pluginManager.addPermission(permission);
+            cached[i] = new Elevation(names[i], permission);
+        }
+        elevations.put(permissions, cached);
+        return cached;
+    }
+
+    private void expire(Holder holder) {
+        expiring.add(holder);
+        if (revokeTask == null && RPGItems.plugin.isEnabled()) {
+            revokeTask = Bukkit.getScheduler().runTask(RPGItems.plugin, this::revokeExpired);
+        }
+    }
+
+    private void revokeExpired() {
+        revokeTask = null;
+        Holder[] holders = expiring.toArray(new Holder[0]);
+        expiring.clear();
+        for (Holder holder : holders) {
+            holder.revokeUnused();
+        }
+    }
+
+    public static final class Grant implements AutoCloseable {
+        private static final Grant NONE = new Grant(null, null, Collections.emptyList());
+
+        private final PermissionElevation elevation;
+        private final Holder holder;
+        private final List<Permission> acquired;
+        private boolean closed;
+
+        private Grant(PermissionElevation elevation, Holder holder, List<Permission> acquired) {
+            this.elevation = elevation;
+            this.holder = holder;
+            this.acquired = acquired;
+        }
+
+        @Override
+        public void close() {
+            if (closed || holder == null) {
+                return;
+            }
+            closed = true;
+            for (Permission permission : acquired) {
+                holder.releasePermission(permission);
+            }
+            elevation.expire(holder);
+        }
+    }
+
+    private static final class Elevation {
+        private final String name;
+        private final Permission permission;
+
+        Elevation(String name, Permission permission) {
+            this.name = name;
+            this.permission = permission;
+        }
+    }
+
+    private static final class Holder {
+        private final Player player;
+        private final Map<Permission, Integer> references = new HashMap<>();
+        private PermissionAttachment attachment;
+
+        Holder(Player player) {
+            this.player = player;
+        }
+
+        void acquire(Permission permission) {
+            Integer count = references.get(permission);
+            if (count == null) {
+                if (attachment == null) {
+                    attachment = player.addAttachment(RPGItems.plugin);
+                }
+                attachment.setPermission(permission, true);
+                references.put(permission, 1);
+            } else {
+                references.put(permission, count + 1);
+            }
+        }
+
+        void releasePermission(Permission permission) {
+            references.computeIfPresent(permission, (p, count) -> count - 1);
+        }
+
+        void revokeUnused() {
+            Iterator<Map.Entry<Permission, Integer>> iterator = references.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Permission, Integer> entry = iterator.next();
+                if (entry.getValue() > 0) continue;
+                iterator.remove();
+                if (player.isOnline()) {
+                    attachment.unsetPermission(entry.getKey());
+                }
+            }
+        }
+
+        void remove() {
+            references.clear();
+            if (attachment != null && player.isOnline()) {
+                player.removeAttachment(attachment);
+            }
+            attachment = null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package think.rpgitems.data;
+
+import cat.nyaa.nyaacore.utils.TridentUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Projectile;
+import org.bukkit.entity.Trident;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.projectiles.ProjectileSource;
+
+import java.util.*;
+
+/**
+ * Projectiles launched by RPGItems, or whose force was changed by one.
+ * <p>
+ * Each projectile has a small {@link Record} keyed by its entity id. Records are put on a tick wheel and
+ * checked every {@link #CHECK_INTERVAL} ticks: the record of a projectile that no longer exists is dropped,
+ * as is any record older than {@link #LIFETIME} ticks. Records of projectiles in an unloading chunk are
+ * dropped by {@link #remove(Entity)}. A thrown trident gets its real item back when its record is dropped
+ * before it was picked up.
+ */
+public class ProjectileRegistry {
+    public static final int CHECK_INTERVAL = 100;
+    public static final int LIFETIME = 2400;
+
+    private static final int WHEEL_SIZE = 128;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static ProjectileRegistry instance = new ProjectileRegistry();
+
+    private final Map<Integer, Record> records = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final List<Record>[] wheel = new List[WHEEL_SIZE];
+    private long tick;
+
+    public static ProjectileRegistry instance() {
+        return instance;
+    }
+
+    /**
+     * @param projectile Projectile
+     * @return Record of the projectile, created if it had none
+     */
+    public Record track(Projectile projectile) {
+        Record record = records.get(projectile.getEntityId());
+        if (record == null) {
+            ProjectileSource shooter = projectile.getShooter();
+            record = new Record(projectile.getEntityId(), projectile.getUniqueId(), shooter instanceof Entity ? ((Entity) shooter).getUniqueId() : null, tick);
+            records.put(record.entityId, record);
+            schedule(record);
+        }
+        return record;
+    }
+
+    /**
+     * @param entity Entity
+     * @return Record of the entity, or {@code null}
+     */
+    public Record get(Entity entity) {
+        return records.get(entity.getEntityId());
+    }
+
+    /**
+     * Drops the record of an entity, giving a thrown trident its real item back
+     *
+     * @param entity Entity
+     */
+    public void remove(Entity entity) {
+        Record record = records.remove(entity.getEntityId());
+        if (record != null) {
+            release(record, entity);
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick
+     */
+    public void tick() {
+        long now = ++tick;
+        int slot = (int) (now & WHEEL_MASK);
+        List<Record> due = wheel[slot];
+        if (due == null) {
+            return;
+        }
+        wheel[slot] = null;
+        for (Record record : due) {
+            if (record.released) continue;
+            Entity entity = Bukkit.getEntity(record.entityUuid);
+            if (entity == null || !entity.isValid()) {
+                records.remove(record.entityId);
+                record.released = true;
+            } else if (now - record.launchTick >= LIFETIME) {
+                records.remove(record.entityId);
+                release(record, entity);
+            } else {
+                schedule(record);
+            }
+        }
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * Drops every record on disable, giving thrown tridents their real item back
+     */
+    public void unload() {
+        for (Record record : records.values()) {
+            release(record, Bukkit.getEntity(record.entityUuid));
+        }
+        records.clear();
+        Arrays.fill(wheel, null);
+    }
+
+    private void schedule(Record record) {
+        int slot = (int) ((tick + CHECK_INTERVAL) & WHEEL_MASK);
+        List<Record> bucket = wheel[slot];
+        if (bucket == null) {
+            bucket = new ArrayList<>();
+            wheel[slot] = bucket;
+        }
+        bucket.add(record);
+    }
+
+    private static void release(Record record, Entity entity) {
+        record.released = true;
+        ItemStack stack = record.stack;
+        record.stack = null;
+        if (stack != null && stack.getType() != Material.AIR && entity instanceof Trident && entity.isValid()) {
+            TridentUtils.setTridentItemStack((Trident) entity, stack);
+        }
+    }
+
+    public static final class Record {
+        private final int entityId;
+        private final UUID entityUuid;
+        private final UUID shooter;
+        private final long launchTick;
+        private Integer itemUid;
+        private ItemStack stack;
+        private float force = 1;
+        private float originalForce;
+        private boolean autoRemove;
+        private boolean released;
+
+        private Record(int entityId, UUID entityUuid, UUID shooter, long launchTick) {
+            this.entityId = entityId;
+            this.entityUuid = entityUuid;
+            this.shooter = shooter;
+            this.launchTick = launchTick;
+        }
+
+        /**
+         * @return Shooter at launch, or {@code null} if it was not an entity
+         */
+        public UUID getShooter() {
+            return shooter;
+        }
+
+        public long getLaunchTick() {
+            return launchTick;
+        }
+
+        /**
+         * @return Uid of the RPGItem whose powers handle this projectile, or {@code null}
+         */
+        public Integer getItemUid() {
+            return itemUid;
+        }
+
+        public void setItemUid(Integer itemUid) {
+            this.itemUid = itemUid;
+        }
+
+        /**
+         * @return Real item of a thrown trident, or {@code null}
+         */
+        public ItemStack getStack() {
+            return stack;
+        }
+
+        public void setStack(ItemStack stack) {
+            this.stack = stack;
+        }
+
+        /**
+         * Takes the real item of a thrown trident, which is then no longer given back to it
+         *
+         * @return Real item, or {@code null}
+         */
+        public ItemStack takeStack() {
+            ItemStack stack = this.stack;
+            this.stack = null;
+            return stack;
+        }
+
+        /**
+         * @return Force after the bow shoot powers, {@code 1} if not shot by a bow
+         */
+        public float getForce() {
+            return force;
+        }
+
+        /**
+         * @return Force of the bow shot before the powers, {@code 0} if unknown
+         */
+        public float getOriginalForce() {
+            return originalForce;
+        }
+
+        public void setForce(float originalForce, float force) {
+            this.originalForce = originalForce;
+            this.force = force;
+        }
+
+        /**
+         * @return Whether the projectile is removed once it hit something
+         */
+        public boolean isAutoRemove() {
+            return autoRemove;
+        }
+
+        public void setAutoRemove(boolean autoRemove) {
+            this.autoRemove = autoRemove;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package think.rpgitems.item;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Batches durability changes of item stacks.
+ * <p>
+ * While a transaction is open, durability changes are kept per stack and reads see the pending value.
+ * Mirrors handed out by an inventory are keyed by the server's stack behind them, so every mirror of
+ * one slot shares a single pending change. When the outermost transaction is committed, each changed
+ * stack gets a single meta write and lore rebuild. Outside of a transaction changes are applied at once.
+ */
+public class DurabilityTransaction {
+    private static DurabilityTransaction instance = new DurabilityTransaction();
+
+    private final Map<Object, Pending> pending = new IdentityHashMap<>();
+    private int depth;
+
+    public static DurabilityTransaction instance() {
+        return instance;
+    }
+
+    /**
+     * Opens a transaction, must be paired with {@link #commit()} in a finally block
+     */
+    public void begin() {
+        ++depth;
+    }
+
+    /**
+     * Closes a transaction, writing the pending changes if it is the outermost one
+     */
+    public void commit() {
+        if (depth == 0) {
+            throw new IllegalStateException("No transaction to commit");
+        }
+        if (--depth == 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the pending changes now, e.g. before the stacks are copied elsewhere
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Pending[] changes = pending.values().toArray(new Pending[0]);
+        pending.clear();
+        for (Pending change : changes) {
+            if (change.stack.getType() == Material.AIR) continue;
+            change.item.updateItem(change.stack, true, change.durability);
+        }
+    }
+
+    public boolean isOpen() {
+        return depth > 0;
+    }
+
+    int getDurability(RPGItem item, ItemStack stack) {
+        Pending change = pending.get(key(stack));
+        return change != null ? change.durability : item.readDurability(stack);
+    }
+
+    /**
+     * @return Durability set in the open transaction and not yet written, or {@code null}
+     */
+    Integer getPendingDurability(ItemStack stack) {
+        Pending change = pending.get(key(stack));
+        return change != null ? change.durability : null;
+    }
+
+    void setDurability(RPGItem item, ItemStack stack, int durability) {
+        if (depth == 0) {
+            item.updateItem(stack, true, durability);
+            return;
+        }
+        Object key = key(stack);
+        Pending change = pending.get(key);
+        if (change == null) {
+            pending.put(key, new Pending(item, stack, durability));
+        } else {
+            change.durability = durability;
+        }
+    }
+
+    private static Object key(ItemStack stack) {
+        Object handle = StackIdentity.handle(stack);
+        return handle != null ? handle : stack;
+    }
+
+    private static final class Pending {
+        private final RPGItem item;
+        private final ItemStack stack;
+        private int durability;
+
+        Pending(RPGItem item, ItemStack stack, int durability) {
+            this.item = item;
+            this.stack = stack;
+            this.durability = durability;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package think.rpgitems.item;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import think.rpgitems.power.Trigger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Index of the RPGItems carried by each online player.
+ * <p>
+ * Keeps for every player the slot to {@link RPGItem} mapping of its inventory, and for every trigger
+ * the slots whose item has powers for it, so handlers only visit the slots that matter.
+ * A player's entry is rebuilt lazily after one of its inventory-change events invalidated it, or once per tick
+ * when the stack in its held, armor or offhand slot is no longer the one it was built from, which catches
+ * plugins setting those slots directly. Every entry is also reconciled against the inventory once per
+ * reconcile interval, players being spread over the ticks of the interval.
+ * <p>
+ * Slots are numbered as in {@link org.bukkit.inventory.PlayerInventory#getContents()}.
+ */
+public class EquipmentIndex {
+    public static final int ARMOR_SLOT = 36;
+    public static final int OFFHAND_SLOT = 40;
+
+    private static final int HOTBAR_SIZE = 9;
+    private static final int WATCHED_SLOTS = OFFHAND_SLOT + 1;
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    private static EquipmentIndex instance = new EquipmentIndex();
+
+    private final Map<UUID, Equipment> equipments = new HashMap<>();
+    private int revision;
+    private long tick;
+
+    public static EquipmentIndex instance() {
+        return instance;
+    }
+
+    /**
+     * @param player  Player
+     * @param trigger Trigger
+     * @return Slots holding an RPGItem with powers for this trigger, ascending
+     */
+    public int[] getSlots(Player player, Trigger trigger) {
+        return getEquipment(player).getSlots(trigger);
+    }
+
+    /**
+     * @param player Player
+     * @param slot   Slot index
+     * @return Whether the item in this slot has powers for this trigger
+     */
+    public boolean hasTrigger(Player player, int slot, Trigger trigger) {
+        RPGItem item = getItem(player, slot);
+        return item != null && item.hasTrigger(trigger);
+    }
+
+    /**
+     * @param player Player
+     * @param slot   Slot index
+     * @return RPGItem in this slot, or {@code null}
+     */
+    public RPGItem getItem(Player player, int slot) {
+        RPGItem[] items = getEquipment(player).items;
+        return slot < 0 || slot >= items.length ? null : items[slot];
+    }
+
+    /**
+     * @param player Player
+     * @return Whether the player carries any RPGItem
+     */
+    public boolean hasAny(Player player) {
+        return getEquipment(player).occupied.length > 0;
+    }
+
+    /**
+     * @param player Player
+     * @return Whether the player wears, holds in the hotbar or offhand an RPGItem with per tick or sneaking powers
+     */
+    public boolean isTicking(Player player) {
+        return getEquipment(player).ticking;
+    }
+
+    /**
+     * Marks a player's entry stale after its inventory changed
+     *
+     * @param player Player
+     */
+    public void invalidate(Player player) {
+        Equipment equipment = equipments.get(player.getUniqueId());
+        if (equipment != null) {
+            equipment.stale = true;
+        }
+    }
+
+    /**
+     * Marks every entry stale, e.g. after the powers of an item changed
+     */
+    public void invalidateAll() {
+        ++revision;
+    }
+
+    public void remove(Player player) {
+        equipments.remove(player.getUniqueId());
+    }
+
+    /**
+     * Advances the index by one tick, forcing the players due in this tick to be rescanned
+     * to catch inventory changes no event reported
+     *
+     * @param tick              Current tick
+     * @param reconcileInterval Ticks between two rescans of a player, {@code 0} to disable
+     */
+    public void tick(long tick, int reconcileInterval) {
+        this.tick = tick;
+        if (reconcileInterval <= 0) {
+            return;
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            if (Math.floorMod(player.getUniqueId().hashCode() + tick, (long) reconcileInterval) != 0) continue;
+            ItemManager.getResolutionCache().invalidate(player);
+            invalidate(player);
+        }
+        if (tick % reconcileInterval == 0) {
+            equipments.keySet().removeIf(uuid -> Bukkit.getPlayer(uuid) == null);
+        }
+    }
+
+    public int size() {
+        return equipments.size();
+    }
+
+    private Equipment getEquipment(Player player) {
+        Equipment equipment = equipments.get(player.getUniqueId());
+        int epoch = ItemManager.getResolutionCache().getEpoch();
+        if (equipment == null || equipment.stale || equipment.revision != revision || equipment.epoch != epoch || !equipment.verify(player, tick)) {
+            equipment = new Equipment(player, revision, epoch);
+            equipment.checked = tick;
+            equipments.put(player.getUniqueId(), equipment);
+        }
+        return equipment;
+    }
+
+    private static final class Equipment {
+        private final RPGItem[] items;
+        private final int[] occupied;
+        private final Map<Trigger, int[]> slotsByTrigger = new HashMap<>();
+        private final int revision;
+        private final int epoch;
+        private final boolean ticking;
+        private final Object[] handles = new Object[WATCHED_SLOTS];
+        private boolean stale;
+        private long checked;
+
+        Equipment(Player player, int revision, int epoch) {
+            this.revision = revision;
+            this.epoch = epoch;
+            ItemStack[] contents = player.getInventory().getContents();
+            items = new RPGItem[contents.length];
+            int[] occupied = new int[contents.length];
+            int count = 0;
+            for (int slot = 0; slot < contents.length; slot++) {
+                if (isWatched(slot) && contents[slot] != null) {
+                    handles[slot] = StackIdentity.handle(contents[slot]);
+                }
+                RPGItem item = ItemManager.toRPGItem(player, slot, contents[slot]).orElse(null);
+                if (item == null) continue;
+                items[slot] = item;
+                occupied[count++] = slot;
+            }
+            this.occupied = count == 0 ? NO_SLOTS : Arrays.copyOf(occupied, count);
+            this.ticking = hasTickers();
+        }
+
+        private static boolean isWatched(int slot) {
+            return slot < HOTBAR_SIZE || (slot >= ARMOR_SLOT && slot < WATCHED_SLOTS);
+        }
+
+        /**
+         * Checks at most once per tick that the held, armor and offhand slots still hold the stacks this entry was built from
+         */
+        boolean verify(Player player, long tick) {
+            if (checked == tick) {
+                return true;
+            }
+            checked = tick;
+            PlayerInventory inventory = player.getInventory();
+            if (!holds(inventory, inventory.getHeldItemSlot())) {
+                return false;
+            }
+            for (int slot = ARMOR_SLOT; slot < WATCHED_SLOTS; slot++) {
+                if (!holds(inventory, slot)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean holds(PlayerInventory inventory, int slot) {
+            ItemStack stack = inventory.getItem(slot);
+            if (stack == null || stack.getType() == Material.AIR) {
+                return handles[slot] == null && items[slot] == null;
+            }
+            Object handle = StackIdentity.handle(stack);
+            return handle == null || handle == handles[slot];
+        }
+
+        private boolean hasTickers() {
+            for (int slot : occupied) {
+                RPGItem item = items[slot];
+                if (slot < HOTBAR_SIZE && (item.hasTrigger(Trigger.TICK) || item.hasTrigger(Trigger.SNEAKING))) return true;
+                if (slot >= ARMOR_SLOT && slot < OFFHAND_SLOT && item.hasTrigger(Trigger.TICK)) return true;
+                if (slot == OFFHAND_SLOT && item.hasTrigger(Trigger.TICK_OFFHAND)) return true;
+            }
+            return false;
+        }
+
+        int[] getSlots(Trigger trigger) {
+            if (occupied.length == 0) {
+                return NO_SLOTS;
+            }
+            return slotsByTrigger.computeIfAbsent(trigger, t -> Arrays.stream(occupied).filter(slot -> items[slot].hasTrigger(t)).toArray());
+        }
+    }
+}
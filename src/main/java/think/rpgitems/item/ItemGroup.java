@@ -78,6 +78,7 @@ public class ItemGroup {
         try {
             itemUids.add(uid);
             items.add(item);
+            ItemManager.touchMembership();
         } catch (Throwable e) {
             items.remove(item);
             itemUids.remove(uid);
@@ -88,6 +89,7 @@ public class ItemGroup {
     public void removeItem(RPGItem item) {
         itemUids.remove(item.getUid());
         items.remove(item);
+        ItemManager.touchMembership();
     }
 
     public void save(ConfigurationSection s) {
@@ -160,6 +162,7 @@ public class ItemGroup {
 
     private void setItems(Set<RPGItem> items) {
         this.items = items;
+        ItemManager.touchMembership();
     }
 
     public void setLicense(String license) {
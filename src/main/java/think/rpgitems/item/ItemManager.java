@@ -2,9 +2,11 @@ package think.rpgitems.item;
 
 import cat.nyaa.nyaacore.Message;
 import cat.nyaa.nyaacore.Pair;
+import com.google.common.hash.Hashing;
 import com.sun.nio.file.ExtendedOpenOption;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.configuration.ConfigurationSection;
@@ -21,6 +23,8 @@ import org.bukkit.util.FileUtil;
 import think.rpgitems.AdminHandler;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.item.ItemResolutionCache.Resolution;
+import think.rpgitems.power.PowerManager;
 import think.rpgitems.power.UnknownExtensionException;
 import think.rpgitems.power.UnknownPowerException;
 import think.rpgitems.support.WGSupport;
@@ -34,8 +38,12 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 import static think.rpgitems.item.RPGItem.*;
 import static think.rpgitems.power.Utils.rethrow;
@@ -46,12 +54,20 @@ public class ItemManager {
     private static HashMap<String, RPGItem> itemByName = new HashMap<>();
     private static HashMap<Integer, ItemGroup> groupById = new HashMap<>();
     private static HashMap<String, ItemGroup> groupByName = new HashMap<>();
-    private static HashMap<String, FileLock> itemFileLocks = new HashMap<>();
+    /**
+     * Bumped whenever an item or group is added or removed, or the items of a group change
+     */
+    private static int membershipRevision;
+    private static Map<String, FileLock> itemFileLocks = new ConcurrentHashMap<>();
     private static HashMap<RPGItem, Pair<File, FileLock>> unlockedItem = new HashMap<>();
     private static RPGItems plugin;
     private static File itemsDir;
     private static File backupsDir;
     private static boolean extendedLock = true;
+    private static ItemSnapshot snapshot;
+    private static ItemSnapshot nextSnapshot;
+    private static SaveQueue saveQueue;
+    private static final ItemResolutionCache resolutionCache = new ItemResolutionCache();
 
     public static boolean hasName(String name) {
         return itemByName.containsKey(name) || groupByName.containsKey(name);
@@ -111,29 +127,36 @@ public class ItemManager {
     }
 
     public static void unload() {
+        if (saveQueue != null) {
+            saveQueue.close();
+            saveQueue = null;
+        }
         itemByName.values().forEach(RPGItem::deinit);
         itemById = new HashMap<>();
         itemByName = new HashMap<>();
+        resolutionCache.invalidateAll();
+        ++membershipRevision;
         resetLock();
     }
 
     public static void refreshItem() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            for (ItemStack item : player.getInventory()) {
-                Optional<RPGItem> rpgItem = ItemManager.toRPGItem(item);
-                rpgItem.ifPresent(r -> r.updateItem(item));
-            }
-            for (ItemStack item : player.getInventory().getArmorContents()) {
-                Optional<RPGItem> rpgItem = ItemManager.toRPGItem(item);
-                rpgItem.ifPresent(r -> r.updateItem(item));
-            }
-        }
+        refreshItem(null);
+    }
+
+    /**
+     * Updates the RPGItem stacks of all online players over the next ticks, replacing a refresh still running
+     *
+     * @param sender Receiver of progress messages, or {@code null}
+     */
+    public static void refreshItem(CommandSender sender) {
+        RefreshTask.start(sender);
     }
 
     public static void load(RPGItems pl) {
         plugin = pl;
         RPGItem.plugin = pl;
         ItemGroup.plugin = pl;
+        saveQueue = new SaveQueue(pl);
 
         try {
             File testFile = new File(plugin.getDataFolder(), "lock_test" + System.currentTimeMillis() + ".tmp");
@@ -165,6 +188,7 @@ public class ItemManager {
             loadFromLegacyFile(f);
             plugin.getLogger().warning("moving items to directory based storage");
             save();
+            flush();
             Path bak = f.toPath().resolveSibling("items.bak");
             try {
                 Files.move(f.toPath(), bak);
@@ -175,60 +199,175 @@ public class ItemManager {
         }
         setItemsDir(mkdir());
         setBackupsDir(mkbkdir());
-        load(getItemsDir(), plugin.cfg.itemShowLoaded ? Bukkit.getConsoleSender() : null);
+        File snapshotFile = new File(plugin.getDataFolder(), "items.snapshot");
+        if (plugin.cfg.itemSnapshot) {
+            snapshot = ItemSnapshot.read(snapshotFile);
+            nextSnapshot = new ItemSnapshot();
+        }
+        byte[] snapshotData;
+        try {
+            load(getItemsDir(), plugin.cfg.itemShowLoaded ? Bukkit.getConsoleSender() : null);
+            snapshotData = nextSnapshot == null ? null : nextSnapshot.toByteArray();
+        } finally {
+            snapshot = null;
+            nextSnapshot = null;
+        }
         groupById.values().forEach(ItemGroup::refresh);
+        if (snapshotData != null) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                try {
+                    ItemSnapshot.write(snapshotFile, snapshotData);
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Error writing item snapshot", e);
+                }
+            });
+        }
     }
 
+    /**
+     * Loads an item file, or all item files in a directory.
+     * <p>
+     * Files are parsed and validated in parallel first, then registered on the calling thread in path order.
+     * Errors are collected and reported once all files are processed.
+     *
+     * @param file   File or directory
+     * @param sender Receiver of load messages, {@code null} to only report errors
+     * @return Whether {@code file} is a single file that was loaded
+     */
     public static boolean load(File file, CommandSender sender) {
-        try {
-            if (!file.exists()) {
-                plugin.getLogger().severe("Trying to load " + file + " that does not exist.");
-                throw new IllegalStateException("Trying to load " + file + " that does not exist.");
-            }
-            if (file.isDirectory()) {
-                File[] subFiles = file.listFiles((d, n) -> (d.isFile() && n.endsWith("yml")) || d.isDirectory());
-                if (Objects.requireNonNull(subFiles).length == 0) {
-                    if (sender != null) {
-                        new Message(I18n.format("message.item.empty_dir", file.getPath())).send(sender);
-                    } else {
-                        new Message(I18n.format("message.item.empty_dir", file.getPath())).send(Bukkit.getConsoleSender());
+        if (!file.exists()) {
+            plugin.getLogger().severe("Trying to load " + file + " that does not exist.");
+            throw new IllegalStateException("Trying to load " + file + " that does not exist.");
+        }
+        flush();
+        long start = System.nanoTime();
+        List<File> files = new ArrayList<>();
+        collect(file, files, sender);
+        long scanned = System.nanoTime();
+        List<ItemFile> parsed = parse(files);
+        long parsedTime = System.nanoTime();
+
+        Map<File, Exception> errors = new LinkedHashMap<>();
+        int items = 0;
+        int groups = 0;
+        for (ItemFile itemFile : parsed) {
+            try {
+                RPGItem item;
+                try {
+                    item = register(itemFile);
+                } catch (Exception e) {
+                    if (!itemFile.restored) {
+                        throw e;
                     }
-                    return false;
+                    plugin.getLogger().log(Level.WARNING, "Error restoring " + itemFile.file + " from snapshot, reparsing it", e);
+                    itemFile = ItemFile.parse(itemFile.file, null);
+                    item = register(itemFile);
                 }
-                for (File subFile : subFiles) {
-                    load(subFile, sender);
+                recordSnapshot(itemFile, item);
+                if (item == null) {
+                    ++groups;
+                    continue;
                 }
-                return false;
-            }
-            RPGItem item = load(file);
-            if (sender != null) {
-                new Message("")
-                        .append(I18n.format("message.item.load", item.getName()), Collections.singletonMap("{item}", item.getComponent()))
-                        .send(sender);
+                ++items;
+                if (sender != null) {
+                    new Message("")
+                            .append(I18n.format("message.item.load", item.getName()), Collections.singletonMap("{item}", item.getComponent()))
+                            .send(sender);
+                }
+            } catch (Exception e) {
+                errors.put(itemFile.file, e);
             }
-            return true;
+        }
+        long registered = System.nanoTime();
+        reportErrors(errors, sender);
+        if (file.isDirectory()) {
+            plugin.getLogger().info(String.format("Loaded %d items and %d groups from %d files in %d ms (scan %d ms, parse %d ms, register %d ms)",
+                    items, groups, files.size(),
+                    (registered - start) / 1000000, (scanned - start) / 1000000, (parsedTime - scanned) / 1000000, (registered - parsedTime) / 1000000));
+        }
+        return !file.isDirectory() && errors.isEmpty();
+    }
+
+    private static void collect(File file, List<File> files, CommandSender sender) {
+        if (!file.isDirectory()) {
+            files.add(file);
+            return;
+        }
+        File[] subFiles = file.listFiles((d, n) -> n.endsWith("yml") || new File(d, n).isDirectory());
+        if (Objects.requireNonNull(subFiles).length == 0) {
+            new Message(I18n.format("message.item.empty_dir", file.getPath())).send(sender != null ? sender : Bukkit.getConsoleSender());
+            return;
+        }
+        Arrays.sort(subFiles);
+        for (File subFile : subFiles) {
+            collect(subFile, files, sender);
+        }
+    }
+
+    private static List<ItemFile> parse(List<File> files) {
+        if (files.size() <= 1) {
+            return files.stream().map(f -> ItemFile.parse(f, snapshot)).collect(Collectors.toList());
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors() - 1)));
+        try {
+            return pool.submit(() -> files.parallelStream().map(f -> ItemFile.parse(f, snapshot)).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading items", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error loading items", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void recordSnapshot(ItemFile itemFile, RPGItem item) {
+        if (nextSnapshot == null) {
+            return;
+        }
+        if (itemFile.restored) {
+            nextSnapshot.copy(snapshot, itemFile.path);
+            return;
+        }
+        try {
+            nextSnapshot.put(itemFile.path, itemFile.mtime, itemFile.hash, itemFile.config, item);
         } catch (Exception e) {
-            if (e instanceof UnknownExtensionException || e instanceof UnknownPowerException) {
-                plugin.getLogger().log(Level.WARNING, "Missing dependency when loading " + file + ". ", e);
-            } else {
-                plugin.getLogger().log(Level.SEVERE, "Error loading " + file + ".", e);
-            }
+            plugin.getLogger().log(Level.FINE, "Not adding " + itemFile.file + " to snapshot", e);
+        }
+    }
 
-            Message message = new Message(I18n.format("message.error.loading", file.getPath(), e.getLocalizedMessage()));
-            if (sender != null) {
-                message.send(sender);
-            } else {
-                message.send(Bukkit.getConsoleSender());
+    private static void reportErrors(Map<File, Exception> errors, CommandSender sender) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        StringBuilder summary = new StringBuilder("Failed to load " + errors.size() + " item file(s):");
+        for (Map.Entry<File, Exception> entry : errors.entrySet()) {
+            Exception e = entry.getValue();
+            summary.append("\n  ").append(entry.getKey()).append(": ").append(e);
+            if (!(e instanceof UnknownExtensionException || e instanceof UnknownPowerException)) {
+                plugin.getLogger().log(Level.SEVERE, "Error loading " + entry.getKey() + ".", e);
             }
+        }
+        plugin.getLogger().severe(summary.toString());
 
-            if (sender == null || sender instanceof ConsoleCommandSender) {
-                Bukkit.getOperators().forEach(message::send);
-            }
+        Message message;
+        if (errors.size() == 1) {
+            Map.Entry<File, Exception> error = errors.entrySet().iterator().next();
+            message = new Message(I18n.format("message.error.loading", error.getKey().getPath(), error.getValue().getLocalizedMessage()));
+        } else {
+            message = new Message(I18n.format("message.error.loading_summary", errors.size()));
+        }
+        message.send(sender != null ? sender : Bukkit.getConsoleSender());
+        if (sender == null || sender instanceof ConsoleCommandSender) {
+            Bukkit.getOperators().forEach(message::send);
         }
-        return false;
     }
 
-    private static RPGItem load(File file) throws Exception {
+    private static RPGItem register(ItemFile itemFile) throws Exception {
+        if (itemFile.error != null) {
+            throw itemFile.error;
+        }
+        File file = itemFile.file;
         String canonicalPath = file.getCanonicalPath();
         if (itemFileLocks.containsKey(canonicalPath) && itemFileLocks.get(canonicalPath).isValid()) {
             plugin.getLogger().severe("Trying to load " + file + " that already loaded.");
@@ -241,21 +380,99 @@ public class ItemManager {
             File newFile = createFile(getItemsDir(), file.getName(), "", false);
             plugin.getLogger().info("As " + newFile + ".");
             Files.copy(file.toPath(), newFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            itemFile.moveTo(newFile);
             file = newFile;
         }
-        YamlConfiguration itemStorage = new YamlConfiguration();
-        itemStorage.load(file);
-        if (file.getName().endsWith("-group.yml")) {
-            ItemGroup group = new ItemGroup(itemStorage, file);
+        if (itemFile.group) {
+            ItemGroup group = new ItemGroup(itemFile.config, file);
             addGroup(group);
             return null;
         }
-        RPGItem item = new RPGItem(itemStorage, file);
+        RPGItem item = new RPGItem(itemFile.config, file);
         addItem(item);
         lock(file);
         return item;
     }
 
+    /**
+     * Item file parsed and validated off the main thread
+     */
+    private static final class ItemFile {
+        private File file;
+        private String path;
+        private long mtime;
+        private final byte[] hash;
+        private final ConfigurationSection config;
+        private boolean restored;
+        private final boolean group;
+        private final Exception error;
+
+        private ItemFile(File file, String path, long mtime, byte[] hash, ConfigurationSection config, boolean restored, Exception error) {
+            this.file = file;
+            this.path = path;
+            this.mtime = mtime;
+            this.hash = hash;
+            this.config = config;
+            this.restored = restored;
+            this.group = file.getName().endsWith("-group.yml");
+            this.error = error;
+        }
+
+        /**
+         * Points the snapshot entry of this file to the copy it was loaded as, which has no entry in the previous snapshot
+         */
+        void moveTo(File newFile) throws IOException {
+            file = newFile;
+            path = newFile.getCanonicalPath();
+            mtime = newFile.lastModified();
+            restored = false;
+        }
+
+        /**
+         * Parses the file and resolves its powers, only reading immutable state shared with the main thread
+         *
+         * @param snapshot Snapshot to restore unchanged files from, or {@code null}
+         */
+        static ItemFile parse(File file, ItemSnapshot snapshot) {
+            String path = null;
+            long mtime = 0;
+            byte[] hash = null;
+            try {
+                path = file.getCanonicalPath();
+                mtime = file.lastModified();
+                byte[] content = Files.readAllBytes(file.toPath());
+                hash = Hashing.sha256().hashBytes(content).asBytes();
+                ConfigurationSection config = null;
+                if (snapshot != null) {
+                    try {
+                        config = snapshot.restore(path, mtime, hash);
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.WARNING, "Error restoring " + file + " from snapshot, reparsing it", e);
+                    }
+                }
+                boolean restored = config != null;
+                if (!restored) {
+                    YamlConfiguration yaml = new YamlConfiguration();
+                    yaml.loadFromString(new String(content, StandardCharsets.UTF_8));
+                    config = yaml;
+                }
+                ConfigurationSection powerList = config.getConfigurationSection("powers");
+                if (powerList != null) {
+                    for (String sectionKey : powerList.getKeys(false)) {
+                        ConfigurationSection section = powerList.getConfigurationSection(sectionKey);
+                        NamespacedKey key = PowerManager.parseKey(section.getString("powerName"));
+                        if (PowerManager.getPower(key) == null) {
+                            throw new UnknownPowerException(key);
+                        }
+                    }
+                }
+                return new ItemFile(file, path, mtime, hash, config, restored, null);
+            } catch (Exception e) {
+                return new ItemFile(file, path, mtime, hash, null, false, e);
+            }
+        }
+    }
+
     @SuppressWarnings("deprecation")
     public static void addItem(RPGItem item) {
         try {
@@ -271,6 +488,8 @@ public class ItemManager {
                 throw new IllegalArgumentException("Duplicated item name:" + item.getName());
             }
             item.resetRecipe(true);
+            resolutionCache.invalidateAll();
+            ++membershipRevision;
         } catch (Exception e) {
             itemById.remove(item.getId(), item);
             itemById.remove(item.getUid(), item);
@@ -287,6 +506,7 @@ public class ItemManager {
             if (itemByName.containsKey(group.getName()) || groupByName.putIfAbsent(group.getName(), group) != null) {
                 throw new IllegalArgumentException("Duplicated group name:" + group.getName());
             }
+            ++membershipRevision;
         } catch (Exception e) {
             groupById.remove(group.getUid(), group);
             groupByName.remove(group.getName(), group);
@@ -362,12 +582,24 @@ public class ItemManager {
         }
     }
 
+    /**
+     * Marks all items to be saved, see {@link #save(RPGItem)}
+     */
     public static void save() {
         for (RPGItem item : itemByName.values()) {
             save(item);
         }
     }
 
+    /**
+     * Writes all pending item saves to disk and waits for them
+     */
+    public static void flush() {
+        if (saveQueue != null) {
+            saveQueue.flush();
+        }
+    }
+
     private static File mkdir() {
         File items = new File(plugin.getDataFolder(), "items");
         if (!items.exists() || !items.isDirectory()) {
@@ -388,55 +620,25 @@ public class ItemManager {
         return backup;
     }
 
+    /**
+     * Marks an item to be saved.
+     * <p>
+     * The item is serialized at the next tick and written, backed up and verified in the background.
+     * Failures are logged and reported to operators.
+     *
+     * @param item Item
+     */
     public static void save(RPGItem item) {
-        String itemName = item.getName();
-        File itemFile = item.getFile() == null ? createFile(getItemsDir(), item.getName(), "-item", true) : item.getFile();
-        boolean exist = itemFile.exists();
-        String cfgStr = "";
-        File backup = null;
-        item.setPluginVersion(RPGItems.getVersion());
-        item.setPluginSerial(RPGItems.getSerial());
-        try {
-            YamlConfiguration configuration = new YamlConfiguration();
-            item.save(configuration);
-            cfgStr = configuration.saveToString();
-            if (exist) {
-                backup = unlockAndBackup(item, false);
-            }
-            configuration.save(itemFile);
+        saveQueue.markDirty(item);
+    }
 
-            try {
-                String canonicalPath = itemFile.getCanonicalPath();
-                YamlConfiguration test = new YamlConfiguration();
-                test.load(canonicalPath);
-                RPGItem testItem = new RPGItem(test, null);
-                testItem.deinit();
-                if (backup != null && backup.exists()) {
-                    backup.deleteOnExit();
-                }
-                item.setFile(itemFile);
-                lock(itemFile);
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Error verifying integrity for " + itemName + ".", e);
-                throw new AdminHandler.CommandException("message.error.verifying", e, itemName, e.getLocalizedMessage());
-            }
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Error saving " + itemName + ".", e);
-            plugin.getLogger().severe("Dumping current item");
-            plugin.getLogger().severe("===============");
-            plugin.getLogger().severe(cfgStr);
-            plugin.getLogger().severe("===============");
-            if (exist && backup != null && backup.exists()) {
-                try {
-                    plugin.getLogger().severe("Recovering backup: " + backup);
-                    Files.copy(backup.toPath(), itemFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    lock(itemFile);
-                } catch (Exception exRec) {
-                    plugin.getLogger().log(Level.SEVERE, "Error recovering backup: " + backup, exRec);
-                    throw new AdminHandler.CommandException("message.error.recovering", exRec, itemName, backup.getPath(), exRec.getLocalizedMessage());
-                }
-            }
-            rethrow(e);
+    /**
+     * Checks that a written item file can be loaded again, without touching loaded items
+     */
+    static void verify(File file) throws Exception {
+        ItemFile itemFile = ItemFile.parse(file, null);
+        if (itemFile.error != null) {
+            throw itemFile.error;
         }
     }
 
@@ -521,7 +723,7 @@ public class ItemManager {
         return ItemManager.unlockedItem.remove(item);
     }
 
-    private static File createFile(File items, String itemName, String postfix, boolean tran) {
+    static File createFile(File items, String itemName, String postfix, boolean tran) {
         String filename = tran ? getItemFilename(itemName, postfix) + ".yml" : itemName;
         File file = new File(items, filename);
         while (file.exists()) {
@@ -544,7 +746,7 @@ public class ItemManager {
                 }
             }
         }
-        itemFileLocks = new HashMap<>();
+        itemFileLocks = new ConcurrentHashMap<>();
         for (Pair<File, FileLock> lockPair : unlockedItem.values()) {
             try {
                 lockPair.getValue().release();
@@ -562,14 +764,22 @@ public class ItemManager {
     }
 
     public static File unlockAndBackup(RPGItem item, boolean remove) throws IOException {
-        File itemFile = item.getFile();
+        flush();
+        return unlockAndBackup(item.getFile(), remove);
+    }
+
+    static File unlockAndBackup(File itemFile) throws IOException {
+        return unlockAndBackup(itemFile, false);
+    }
+
+    private static File unlockAndBackup(File itemFile, boolean remove) throws IOException {
         File backup = new File(getBackupsDir(), itemFile.getName().replaceAll("\\.yml$", "") + "." + System.currentTimeMillis() + ".bak");
         unlock(itemFile, remove);
         try {
             if (!backup.createNewFile()) throw new IllegalStateException();
             Files.copy(itemFile.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Cannot create backup for" + item.getName() + ".", e);
+            plugin.getLogger().log(Level.SEVERE, "Cannot create backup for " + itemFile + ".", e);
         }
         return backup;
     }
@@ -581,49 +791,61 @@ public class ItemManager {
     public static Optional<RPGItem> toRPGItem(ItemStack item, boolean ignoreModel) {
         if (item == null || item.getType() == Material.AIR)
             return Optional.empty();
-        if (!item.hasItemMeta())
-            return Optional.empty();
-        ItemMeta meta = item.getItemMeta();
-        CustomItemTagContainer tagContainer = meta.getCustomTagContainer();
-        if (tagContainer.hasCustomTag(TAG_META, ItemTagType.TAG_CONTAINER)) {
-            CustomItemTagContainer metaTag = getTag(tagContainer, TAG_META);
-            int uid = getInt(metaTag, TAG_ITEM_UID);
-            Optional<Boolean> optIsModel = optBoolean(metaTag, TAG_IS_MODEL);
-            if (ignoreModel && optIsModel.orElse(false)) {
-                return Optional.empty();
-            }
-            return ItemManager.getItem(uid);
-        }
-        if (!plugin.cfg.itemCompat) {
+        return toRPGItem(resolutionCache.get(item, ItemManager::resolve), ignoreModel);
+    }
+
+    /**
+     * Resolves a stack in a player's inventory, reusing the resolution cached for that slot
+     *
+     * @param player Owner of the inventory
+     * @param slot   Slot index as in {@link org.bukkit.inventory.PlayerInventory#getContents()}
+     * @param item   Stack currently in the slot
+     * @return RPGItem of the stack, models excluded
+     */
+    public static Optional<RPGItem> toRPGItem(Player player, int slot, ItemStack item) {
+        if (item == null || item.getType() == Material.AIR)
             return Optional.empty();
-        }
+        return toRPGItem(resolutionCache.get(player, slot, item, ItemManager::resolve), true);
+    }
 
-        // Old
-        if (!meta.hasLore() || meta.getLore().size() <= 0)
+    private static Optional<RPGItem> toRPGItem(Resolution resolution, boolean ignoreModel) {
+        if (resolution.info == null)
             return Optional.empty();
-        try {
-            @SuppressWarnings("deprecation") Optional<Integer> id = decodeId(meta.getLore().get(0));
-            return id.map(ItemManager::getItemById);
-        } catch (Exception e) {
-            RPGItems.logger.log(Level.WARNING, "Error migrating old item", e);
+        if (ignoreModel && resolution.model)
             return Optional.empty();
-        }
+        if (resolution.legacy && !plugin.cfg.itemCompat)
+            return Optional.empty();
+        return Optional.of(resolution.info.item);
     }
 
     public static ItemInfo parseItemInfo(ItemStack item) {
         if (item == null || item.getType() == Material.AIR) {
             return null;
         }
-        if (!item.hasItemMeta()) {
+        ItemInfo info = resolutionCache.get(item, ItemManager::resolve).info;
+        if (info == null) {
             return null;
         }
+        ItemInfo itemInfo = new ItemInfo(info.item);
+        itemInfo.durability = info.durability;
+        itemInfo.stackOwner = info.stackOwner;
+        itemInfo.stackId = info.stackId;
+        return itemInfo;
+    }
+
+    private static Resolution resolve(ItemStack item) {
+        int epoch = resolutionCache.getEpoch();
+        if (!item.hasItemMeta()) {
+            return new Resolution(item.getType(), epoch, null, false, false);
+        }
         ItemMeta meta = item.getItemMeta();
         CustomItemTagContainer tagContainer = meta.getCustomTagContainer();
         if (tagContainer.hasCustomTag(TAG_META, ItemTagType.TAG_CONTAINER)) {
             CustomItemTagContainer itemMeta = getTag(tagContainer, TAG_META);
             int uid = getInt(itemMeta, TAG_ITEM_UID);
+            boolean isModel = optBoolean(itemMeta, TAG_IS_MODEL).orElse(false);
             Optional<RPGItem> opt = ItemManager.getItem(uid);
-            if (!opt.isPresent()) return null;
+            if (!opt.isPresent()) return new Resolution(item.getType(), epoch, null, isModel, false);
             RPGItem rpgItem = opt.get();
             ItemInfo itemInfo = new ItemInfo(rpgItem);
             if (rpgItem.getMaxDurability() > 0) {
@@ -633,20 +855,20 @@ public class ItemManager {
 
             itemInfo.stackOwner = optUUID(itemMeta, TAG_OWNER).orElse(null);
             itemInfo.stackId = optUUID(itemMeta, TAG_STACK_ID).orElse(null);
-            return itemInfo;
+            return new Resolution(item.getType(), epoch, itemInfo, isModel, false);
         }
         // Old
         if (!meta.hasLore() || meta.getLore().size() <= 0) {
-            return null;
+            return new Resolution(item.getType(), epoch, null, false, true);
         }
         try {
             @SuppressWarnings("deprecation") Optional<Integer> id = decodeId(meta.getLore().get(0));
             if (!id.isPresent()) {
-                return null;
+                return new Resolution(item.getType(), epoch, null, false, true);
             }
             Optional<RPGItem> opt = ItemManager.getItem(id.get());
             if (!opt.isPresent()) {
-                return null;
+                return new Resolution(item.getType(), epoch, null, false, true);
             }
             RPGItem rpgItem = opt.get();
             ItemInfo itemInfo = new ItemInfo(rpgItem);
@@ -657,13 +879,31 @@ public class ItemManager {
             } else if (rpgItem.getMaxDurability() > 0) {
                 itemInfo.durability = rpgItem.getDefaultDurability();
             }
-            return itemInfo;
+            return new Resolution(item.getType(), epoch, itemInfo, false, true);
         } catch (Exception e) {
             RPGItems.logger.log(Level.WARNING, "Error migrating old item", e);
-            return null;
+            return new Resolution(item.getType(), epoch, null, false, true);
         }
     }
 
+    /**
+     * @return Revision of the items resolved by {@link #getItems(String)}, for caches of resolved names
+     */
+    public static int getMembershipRevision() {
+        return membershipRevision;
+    }
+
+    static void touchMembership() {
+        ++membershipRevision;
+    }
+
+    /**
+     * @return Cache of stack to RPGItem resolutions
+     */
+    public static ItemResolutionCache getResolutionCache() {
+        return resolutionCache;
+    }
+
     public static RPGItem newItem(String name, CommandSender sender) {
         if (itemByName.containsKey(name) || groupByName.containsKey(name))
             return null;
@@ -752,10 +992,13 @@ public class ItemManager {
 
     @SuppressWarnings("deprecation")
     public static void remove(RPGItem item, boolean delete) {
+        flush();
         item.deinit();
         itemByName.remove(item.getName());
         itemById.remove(item.getId());
         itemById.remove(item.getUid());
+        resolutionCache.invalidateAll();
+        ++membershipRevision;
         if (delete) {
             try {
                 File backup = unlockAndBackup(item, true);
@@ -768,8 +1011,10 @@ public class ItemManager {
     }
 
     public static void remove(ItemGroup group, boolean delete) {
+        flush();
         groupByName.remove(group.getName());
         groupById.remove(group.getUid());
+        ++membershipRevision;
         if (delete) {
             try {
                 File itemFile = group.getFile();
@@ -0,0 +1,156 @@
+package think.rpgitems.item;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Caches the result of resolving an {@link ItemStack} to its {@link RPGItem} and {@link ItemInfo},
+ * so repeated lookups do not have to copy the ItemMeta of the stack.
+ * <p>
+ * Two levels are kept:
+ * <ul>
+ * <li>by stack identity, for the lifetime of the {@link ItemStack} object (weakly referenced)</li>
+ * <li>by player inventory slot, since Bukkit hands out a new mirror of the same stack on every access</li>
+ * </ul>
+ * Entries are validated against a global epoch that is bumped whenever the item registry changes, and against
+ * the {@link StackIdentity} of the stack: the server's stack behind the mirror and the hash of its RPGItems tag.
+ * A slot whose stack was replaced or rewritten by any means therefore misses, events or not.
+ * Slot entries of a player are also dropped on inventory-change events.
+ */
+public class ItemResolutionCache {
+    /**
+     * Size of {@link org.bukkit.inventory.PlayerInventory#getContents()}: storage, armor and off hand
+     */
+    public static final int PLAYER_SLOTS = 41;
+
+    private final Cache<ItemStack, Resolution> byStack = CacheBuilder.newBuilder().weakKeys().maximumSize(4096).build();
+    private final Map<UUID, Resolution[]> bySlot = new HashMap<>();
+    private int epoch;
+    private long hits;
+    private long misses;
+
+    Resolution get(ItemStack stack, Function<ItemStack, Resolution> resolver) {
+        // Plain ItemStacks are routinely mutated in place by callers, only cache the server's mirrors
+        Object handle = StackIdentity.handle(stack);
+        if (handle != null) {
+            Resolution cached = byStack.getIfPresent(stack);
+            if (cached != null && cached.isValid(stack, handle, epoch)) {
+                ++hits;
+                return cached;
+            }
+        }
+        ++misses;
+        Resolution resolution = resolver.apply(stack);
+        if (handle != null) {
+            resolution.handle = handle;
+            resolution.stamp = StackIdentity.stamp(handle);
+            byStack.put(stack, resolution);
+        }
+        return resolution;
+    }
+
+    Resolution get(Player player, int slot, ItemStack stack, Function<ItemStack, Resolution> resolver) {
+        if (slot < 0 || slot >= PLAYER_SLOTS) {
+            return get(stack, resolver);
+        }
+        Resolution[] slots = bySlot.computeIfAbsent(player.getUniqueId(), u -> new Resolution[PLAYER_SLOTS]);
+        Resolution cached = slots[slot];
+        if (cached != null && cached.isValid(stack, StackIdentity.handle(stack), epoch)) {
+            ++hits;
+            return cached;
+        }
+        Resolution resolution = get(stack, resolver);
+        slots[slot] = resolution.handle == null ? null : resolution;
+        return resolution;
+    }
+
+    /**
+     * Drops the cached resolution of a stack whose meta has been rewritten
+     *
+     * @param stack Item stack
+     */
+    public void invalidate(ItemStack stack) {
+        byStack.invalidate(stack);
+    }
+
+    /**
+     * Drops the cached slot resolutions of a player
+     *
+     * @param player Player whose inventory changed
+     */
+    public void invalidate(Player player) {
+        bySlot.remove(player.getUniqueId());
+    }
+
+    /**
+     * Invalidates every cached resolution, e.g. after the item registry changed
+     */
+    public void invalidateAll() {
+        ++epoch;
+        bySlot.clear();
+        byStack.invalidateAll();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long size() {
+        return byStack.size();
+    }
+
+    public void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+
+    int getEpoch() {
+        return epoch;
+    }
+
+    static final class Resolution {
+        final Material type;
+        final int epoch;
+        /**
+         * Parsed info, {@code null} if the stack is not an RPG item
+         */
+        final ItemInfo info;
+        final boolean model;
+        final boolean legacy;
+        /**
+         * The server's stack this was resolved from, and the hash of its RPGItems tag at that time
+         */
+        Object handle;
+        int stamp;
+
+        Resolution(Material type, int epoch, ItemInfo info, boolean model, boolean legacy) {
+            this.type = type;
+            this.epoch = epoch;
+            this.info = info;
+            this.model = model;
+            this.legacy = legacy;
+        }
+
+        boolean isValid(ItemStack stack, Object handle, int epoch) {
+            return this.epoch == epoch && handle != null && handle == this.handle
+                           && stack.getType() == type && StackIdentity.stamp(handle) == stamp;
+        }
+    }
+}
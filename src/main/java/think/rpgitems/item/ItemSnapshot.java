@@ -0,0 +1,360 @@
+package think.rpgitems.item;
+
+import com.google.common.base.Strings;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import think.rpgitems.RPGItems;
+import think.rpgitems.power.Power;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of loaded item files, used to skip YAML parsing of unchanged files.
+ * <p>
+ * Entries are keyed by the canonical path of the file and only used while its mtime and content hash
+ * still match. Powers implementing {@link Power#writeSnapshot} are stored as their own state, other
+ * powers as their configuration section.
+ */
+class ItemSnapshot {
+    static final String POWER_KEY = "$snapshot";
+
+    private static final int MAGIC = 0x52504753;
+    private static final int FORMAT = 1;
+
+    private static final byte SECTION = 0;
+    private static final byte NULL = 1;
+    private static final byte STRING = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte LIST = 10;
+    private static final byte MAP = 11;
+    private static final byte SERIALIZABLE = 12;
+    private static final byte BYTES = 13;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Reads a snapshot, an empty one if it does not exist or was written by another version
+     */
+    static ItemSnapshot read(File file) {
+        ItemSnapshot snapshot = new ItemSnapshot();
+        if (!file.isFile()) {
+            return snapshot;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readInt() != RPGItems.getVersion()) {
+                return snapshot;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String path = readString(in);
+                long mtime = in.readLong();
+                byte[] hash = readBytes(in);
+                byte[] data = readBytes(in);
+                snapshot.entries.put(path, new Entry(mtime, hash, data));
+            }
+        } catch (IOException e) {
+            RPGItems.logger.warning("Ignoring unreadable item snapshot " + file + ": " + e);
+            snapshot.entries.clear();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Restores the configuration of a file, safe to call from multiple threads
+     *
+     * @return Configuration, or {@code null} if the file has no valid entry
+     */
+    ConfigurationSection restore(String path, long mtime, byte[] hash) throws IOException {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.mtime != mtime || !Arrays.equals(entry.hash, hash)) {
+            return null;
+        }
+        MemoryConfiguration config = new MemoryConfiguration();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.data));
+        if (in.readByte() != SECTION) {
+            throw new IOException("Bad snapshot of " + path);
+        }
+        readSection(in, config);
+        return config;
+    }
+
+    /**
+     * Copies the entry of an unchanged file from a previous snapshot
+     */
+    void copy(ItemSnapshot previous, String path) {
+        Entry entry = previous.entries.get(path);
+        if (entry != null) {
+            entries.put(path, entry);
+        }
+    }
+
+    /**
+     * Adds the entry of a loaded file
+     *
+     * @param item Item loaded from it, or {@code null} for groups
+     */
+    void put(String path, long mtime, byte[] hash, ConfigurationSection config, RPGItem item) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(data);
+        if (item == null || !hasPowerSnapshots(config, item)) {
+            writeValue(out, config);
+        } else {
+            out.writeByte(SECTION);
+            Set<String> keys = config.getKeys(false);
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                writeString(out, key);
+                if (key.equals("powers")) {
+                    writePowers(out, config.getConfigurationSection(key), item);
+                } else {
+                    writeValue(out, config.get(key));
+                }
+            }
+        }
+        entries.put(path, new Entry(mtime, hash, data.toByteArray()));
+    }
+
+    byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(data);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(RPGItems.getVersion());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue().mtime);
+                writeBytes(out, entry.getValue().hash);
+                writeBytes(out, entry.getValue().data);
+            }
+            return data.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void write(File file, byte[] data) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), data);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean hasPowerSnapshots(ConfigurationSection config, RPGItem item) {
+        ConfigurationSection powers = config.getConfigurationSection("powers");
+        if (powers == null || powers.getKeys(false).size() != item.getPowers().size()) {
+            return false;
+        }
+        // 3.5 selectors are converted while loading, so their powers are not restored as is
+        return powers.getKeys(false).stream()
+                     .map(powers::getConfigurationSection)
+                     .allMatch(section -> section != null && Strings.isNullOrEmpty(section.getString("applyTo")));
+    }
+
+    private static void writePowers(DataOutputStream out, ConfigurationSection powers, RPGItem item) throws IOException {
+        Set<String> keys = powers.getKeys(false);
+        out.writeByte(SECTION);
+        out.writeInt(keys.size());
+        Iterator<Power> iterator = item.getPowers().iterator();
+        for (String key : keys) {
+            writeString(out, key);
+            ConfigurationSection section = powers.getConfigurationSection(key);
+            ByteArrayOutputStream state = new ByteArrayOutputStream();
+            if (!iterator.next().writeSnapshot(new DataOutputStream(state))) {
+                writeValue(out, section);
+                continue;
+            }
+            out.writeByte(SECTION);
+            out.writeInt(2);
+            writeString(out, "powerName");
+            writeValue(out, section.getString("powerName"));
+            writeString(out, POWER_KEY);
+            writeValue(out, state.toByteArray());
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof ConfigurationSection) {
+            ConfigurationSection section = (ConfigurationSection) value;
+            Set<String> keys = section.getKeys(false);
+            out.writeByte(SECTION);
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                writeString(out, key);
+                writeValue(out, section.get(key));
+            }
+        } else if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (value instanceof ConfigurationSerializable) {
+            out.writeByte(SERIALIZABLE);
+            writeString(out, ConfigurationSerialization.getAlias(((ConfigurationSerializable) value).getClass()));
+            writeMap(out, ((ConfigurationSerializable) value).serialize());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else {
+            throw new IOException("Unsupported value " + value.getClass());
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void readSection(DataInputStream in, ConfigurationSection section) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            byte type = in.readByte();
+            if (type == SECTION) {
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readValue(in, type));
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, in.readByte()));
+                }
+                return list;
+            }
+            case MAP:
+                return readMap(in);
+            case SERIALIZABLE: {
+                String alias = readString(in);
+                Map<Object, Object> map = readMap(in);
+                Map<String, Object> args = new LinkedHashMap<>();
+                map.forEach((k, v) -> args.put(String.valueOf(k), v));
+                args.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+                ConfigurationSerializable value = ConfigurationSerialization.deserializeObject(args);
+                if (value == null) {
+                    throw new IOException("Cannot deserialize " + alias);
+                }
+                return value;
+            }
+            case BYTES:
+                return readBytes(in);
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static Map<Object, Object> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Object key = readValue(in, in.readByte());
+            map.put(key, readValue(in, in.readByte()));
+        }
+        return map;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Bad length " + length);
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static final class Entry {
+        private final long mtime;
+        private final byte[] hash;
+        private final byte[] data;
+
+        Entry(long mtime, byte[] hash, byte[] data) {
+            this.mtime = mtime;
+            this.hash = hash;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package think.rpgitems.item;
+
+import think.rpgitems.power.Power;
+import think.rpgitems.power.PowerCondition;
+import think.rpgitems.power.Trigger;
+import think.rpgitems.power.impl.PowerSelector;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable dispatch table of an {@link RPGItem}, built from its power list.
+ * <p>
+ * Holds for every trigger the powers already cast to the trigger's power class,
+ * the conditions each of them depends on, and the static conditions of the item.
+ */
+class PowerDispatch {
+    private final Map<Trigger, Bucket> buckets;
+    private final List<PowerCondition> staticConditions;
+    private final boolean hasConditions;
+    private final Map<String, List<PowerSelector>> selectors;
+
+    PowerDispatch(List<Power> powers) {
+        List<PowerCondition> conditions = powers.stream()
+                                                .filter(PowerCondition.class::isInstance)
+                                                .map(PowerCondition.class::cast)
+                                                .collect(Collectors.toList());
+        hasConditions = !conditions.isEmpty();
+        Set<String> referenced = powers.stream().flatMap(p -> p.getConditions().stream()).collect(Collectors.toSet());
+        staticConditions = Collections.unmodifiableList(
+                conditions.stream().filter(PowerCondition::isStatic).filter(c -> referenced.contains(c.id())).collect(Collectors.toList())
+        );
+
+        Map<String, List<PowerSelector>> selectors = new HashMap<>();
+        for (Power power : powers) {
+            if (power instanceof PowerSelector) {
+                selectors.computeIfAbsent(((PowerSelector) power).id(), id -> new ArrayList<>()).add((PowerSelector) power);
+            }
+        }
+        this.selectors = selectors;
+
+        Map<Trigger, Bucket> buckets = new HashMap<>();
+        for (Power power : powers) {
+            Set<String> ids = power.getConditions();
+            List<PowerCondition> resolved = ids.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(
+                    conditions.stream().filter(c -> ids.contains(c.id())).collect(Collectors.toList())
+            );
+            for (Trigger trigger : power.getTriggers()) {
+                Bucket bucket = buckets.computeIfAbsent(trigger, t -> new Bucket());
+                bucket.powers.add(power.cast(trigger.getPowerClass()));
+                bucket.conditions.add(resolved);
+            }
+        }
+        this.buckets = buckets;
+    }
+
+    /**
+     * @param trigger Trigger
+     * @param <TPower> Power class of the trigger
+     * @return Powers fired by this trigger, in item order
+     */
+    @SuppressWarnings("unchecked")
+    <TPower extends Power> List<TPower> getPowers(Trigger<?, TPower, ?, ?> trigger) {
+        Bucket bucket = buckets.get(trigger);
+        return bucket == null ? Collections.emptyList() : (List<TPower>) bucket.view;
+    }
+
+    /**
+     * @param trigger Trigger
+     * @param index   Index of the power in {@link #getPowers(Trigger)}
+     * @return Conditions the power depends on
+     */
+    List<PowerCondition> getConditions(Trigger trigger, int index) {
+        return buckets.get(trigger).conditions.get(index);
+    }
+
+    /**
+     * @return Static conditions referenced by any power of the item
+     */
+    List<PowerCondition> getStaticConditions() {
+        return staticConditions;
+    }
+
+    /**
+     * @param power Power
+     * @return Selectors referenced by the power
+     */
+    List<PowerSelector> getSelectors(Power power) {
+        Set<String> ids = power.getSelectors();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<PowerSelector> resolved = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            resolved.addAll(selectors.getOrDefault(id, Collections.emptyList()));
+        }
+        return resolved;
+    }
+
+    /**
+     * @return Whether the item has any condition, which may look at the results of earlier powers
+     */
+    boolean hasConditions() {
+        return hasConditions;
+    }
+
+    boolean hasTrigger(Trigger trigger) {
+        return buckets.containsKey(trigger);
+    }
+
+    private static class Bucket {
+        private final List<Power> powers = new ArrayList<>();
+        private final List<Power> view = Collections.unmodifiableList(powers);
+        private final List<List<PowerCondition>> conditions = new ArrayList<>();
+    }
+}
@@ -17,6 +17,7 @@ import org.bukkit.block.Block;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
@@ -40,11 +41,17 @@ import think.rpgitems.Events;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
 import think.rpgitems.data.Context;
+import think.rpgitems.data.Font;
+import think.rpgitems.data.ProjectileRegistry;
 import think.rpgitems.power.*;
 import think.rpgitems.power.impl.*;
 import think.rpgitems.utils.MaterialUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
@@ -64,6 +71,7 @@ public class RPGItem {
     public static final NamespacedKey TAG_DURABILITY = new NamespacedKey(RPGItems.plugin, "durability");
     public static final NamespacedKey TAG_OWNER = new NamespacedKey(RPGItems.plugin, "owner");
     public static final NamespacedKey TAG_STACK_ID = new NamespacedKey(RPGItems.plugin, "stack_id");
+    public static final NamespacedKey TAG_REVISION = new NamespacedKey(RPGItems.plugin, "revision");
 
     static RPGItems plugin;
     private boolean ignoreWorldGuard = false;
@@ -78,6 +86,7 @@ public class RPGItem {
     // Powers
     private List<Power> powers = new ArrayList<>();
     private HashMap<Power, NamespacedKey> powerKeys = new HashMap<>();
+    private PowerDispatch dispatch;
     // Recipes
     private int recipeChance = 6;
     private boolean hasRecipe = false;
@@ -127,6 +136,12 @@ public class RPGItem {
     private int pluginSerial;
     private List<String> lore;
 
+    // Render caches, dropped on every change of the item
+    private Integer revision;
+    private List<PowerLoreFilter> loreFilters;
+    private String[] durabilityBars;
+    private String numericBarTail;
+
     public RPGItem(String name, int uid, CommandSender author) {
         this.name = name;
         this.uid = uid;
@@ -243,7 +258,16 @@ public class RPGItem {
                 }
                 Power pow = PowerManager.instantiate(power);
                 pow.setItem(this);
-                pow.init(section);
+                Object snapshot = section.get(ItemSnapshot.POWER_KEY);
+                if (snapshot instanceof byte[]) {
+                    try {
+                        pow.readSnapshot(new DataInputStream(new ByteArrayInputStream((byte[]) snapshot)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else {
+                    pow.init(section);
+                }
                 addPower(key, pow, false);
                 conf.put(pow, section);
             }
@@ -491,24 +515,43 @@ public class RPGItem {
     }
 
     public void updateItem(ItemStack item, boolean loreOnly) {
-        List<String> reservedLores = this.filterLores(item);
-        item.setType(getItem());
+        updateItem(item, loreOnly, null);
+    }
+
+    /**
+     * @param durability Durability to write in the same meta update, or {@code null} to keep the current one
+     */
+    void updateItem(ItemStack item, boolean loreOnly, Integer durability) {
         ItemMeta meta = item.getItemMeta();
+        if (!loreOnly && durability == null && isUpToDate(item, meta)) {
+            return;
+        }
+        ItemManager.getResolutionCache().invalidate(item);
+        List<String> reservedLores = this.filterLores(meta);
+        // Patch for mcMMO buff. See SkillUtils.java#removeAbilityBuff in mcMMO
+        boolean mcMMOBuff = meta.hasLore() && meta.getLore().contains("mcMMO Ability Tool");
+        if (item.getType() != getItem()) {
+            item.setType(getItem());
+            meta = item.getItemMeta();
+        }
         List<String> lore = new ArrayList<>(getLore());
         CustomItemTagContainer itemTagContainer = meta.getCustomTagContainer();
         SubItemTagContainer rpgitemsTagContainer = makeTag(itemTagContainer, TAG_META);
         set(rpgitemsTagContainer, TAG_ITEM_UID, getUid());
+        if (durability != null && getMaxDurability() > 0) {
+            set(rpgitemsTagContainer, TAG_DURABILITY, durability);
+        }
         addDurabilityBar(rpgitemsTagContainer, lore);
         if (meta instanceof LeatherArmorMeta) {
             ((LeatherArmorMeta) meta).setColor(Color.fromRGB(getDataValue()));
         }
         Damageable damageable = (Damageable) meta;
         if (getMaxDurability() > 0) {
-            int durability = computeIfAbsent(rpgitemsTagContainer, TAG_DURABILITY, ItemTagType.INTEGER, this::getDefaultDurability);
+            int current = computeIfAbsent(rpgitemsTagContainer, TAG_DURABILITY, ItemTagType.INTEGER, this::getDefaultDurability);
             if (isCustomItemModel()) {
                 damageable.setDamage(getDataValue());
             } else {
-                damageable.setDamage((getItem().getMaxDurability() - ((short) ((double) getItem().getMaxDurability() * ((double) durability / (double) getMaxDurability())))));
+                damageable.setDamage((getItem().getMaxDurability() - ((short) ((double) getItem().getMaxDurability() * ((double) current / (double) getMaxDurability())))));
             }
         } else {
             if (isCustomItemModel()) {
@@ -517,8 +560,7 @@ public class RPGItem {
                 damageable.setDamage(getItem().getMaxDurability() != 0 ? 0 : getDataValue());
             }
         }
-        // Patch for mcMMO buff. See SkillUtils.java#removeAbilityBuff in mcMMO
-        if (item.hasItemMeta() && item.getItemMeta().hasLore() && item.getItemMeta().getLore().contains("mcMMO Ability Tool"))
+        if (mcMMOBuff)
             lore.add("mcMMO Ability Tool");
         lore.addAll(reservedLores);
         meta.setLore(lore);
@@ -551,10 +593,33 @@ public class RPGItem {
                 meta.addEnchant(e.getKey(), Math.max(meta.getEnchantLevel(e.getKey()), e.getValue()), true);
             }
         }
+        set(rpgitemsTagContainer, TAG_REVISION, getRevision());
         rpgitemsTagContainer.commit();
         item.setItemMeta(refreshAttributeModifiers(meta));
     }
 
+    /**
+     * Whether a full update of the stack would not change it, as it was last fully updated at the current revision
+     */
+    private boolean isUpToDate(ItemStack item, ItemMeta meta) {
+        if (item.getType() != getItem()) {
+            return false;
+        }
+        CustomItemTagContainer tagContainer = meta.getCustomTagContainer();
+        if (!tagContainer.hasCustomTag(TAG_META, ItemTagType.TAG_CONTAINER)) {
+            return false;
+        }
+        OptionalInt stamp = optInt(getTag(tagContainer, TAG_META), TAG_REVISION);
+        if (!stamp.isPresent() || stamp.getAsInt() != getRevision()) {
+            return false;
+        }
+        if (getEnchantMode() == EnchantMode.DISALLOW && meta.hasEnchants()) {
+            Map<Enchantment, Integer> enchantMap = getEnchantMap();
+            return enchantMap != null && enchantMap.keySet().containsAll(meta.getEnchants().keySet());
+        }
+        return true;
+    }
+
     private void addDurabilityBar(CustomItemTagContainer meta, List<String> lore) {
         int maxDurability = getMaxDurability();
         if (maxDurability > 0) {
@@ -574,18 +639,16 @@ public class RPGItem {
                         out.append(ChatColor.GREEN.toString()).append(boxChar).append(" ");
                         out.append(ratio < 0.1 ? ChatColor.RED : ratio < 0.3 ? ChatColor.YELLOW : ChatColor.GREEN);
                         out.append(formatBar(durability, maxDurability, barFormat));
-                        out.append(ChatColor.RESET).append(" / ").append(ChatColor.AQUA);
-                        out.append(formatBar(maxDurability, maxDurability, barFormat));
-                        out.append(ChatColor.GREEN).append(boxChar);
+                        if (numericBarTail == null) {
+                            numericBarTail = ChatColor.RESET + " / " + ChatColor.AQUA + formatBar(maxDurability, maxDurability, barFormat) + ChatColor.GREEN + boxChar;
+                        }
+                        out.append(numericBarTail);
                         break;
                     }
                     case DEFAULT: {
                         int boxCount = tooltipWidth / 7;
                         int mid = (int) ((double) boxCount * (ratio));
-                        for (int i = 0; i < boxCount; i++) {
-                            out.append(i < mid ? ChatColor.GREEN : i == mid ? ChatColor.YELLOW : ChatColor.RED);
-                            out.append(boxChar);
-                        }
+                        out.append(defaultBar(boxCount, mid, boxChar));
                         break;
                     }
                 }
@@ -597,6 +660,29 @@ public class RPGItem {
         }
     }
 
+    /**
+     * Bars only differ by the box the durability falls in, so they are cached per box
+     */
+    private String defaultBar(int boxCount, int mid, char boxChar) {
+        String[] bars = durabilityBars;
+        if (bars == null || bars.length != boxCount + 1) {
+            bars = durabilityBars = new String[boxCount + 1];
+        }
+        if (mid >= 0 && mid <= boxCount && bars[mid] != null) {
+            return bars[mid];
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < boxCount; i++) {
+            out.append(i < mid ? ChatColor.GREEN : i == mid ? ChatColor.YELLOW : ChatColor.RED);
+            out.append(boxChar);
+        }
+        String bar = out.toString();
+        if (mid >= 0 && mid <= boxCount) {
+            bars[mid] = bar;
+        }
+        return bar;
+    }
+
     private String formatBar(int durability, int maxDurability, BarFormat barFormat) {
         switch (barFormat) {
             case NUMERIC:
@@ -620,15 +706,12 @@ public class RPGItem {
         throw new UnsupportedOperationException();
     }
 
-    private List<String> filterLores(ItemStack i) {
-        List<String> ret = new ArrayList<>();
-        List<PowerLoreFilter> patterns = getPower(PowerLoreFilter.class).stream()
-                                                                        .filter(p -> !Strings.isNullOrEmpty(p.regex))
-                                                                        .map(PowerLoreFilter::compile)
-                                                                        .collect(Collectors.toList());
+    private List<String> filterLores(ItemMeta meta) {
+        List<PowerLoreFilter> patterns = getLoreFilters();
         if (patterns.isEmpty()) return Collections.emptyList();
-        if (!i.hasItemMeta() || !i.getItemMeta().hasLore()) return Collections.emptyList();
-        for (String str : i.getItemMeta().getLore()) {
+        if (!meta.hasLore()) return Collections.emptyList();
+        List<String> ret = new ArrayList<>();
+        for (String str : meta.getLore()) {
             for (PowerLoreFilter p : patterns) {
                 Matcher matcher = p.pattern().matcher(ChatColor.stripColor(str));
                 if (p.find ? matcher.find() : matcher.matches()) {
@@ -640,6 +723,17 @@ public class RPGItem {
         return ret;
     }
 
+    private List<PowerLoreFilter> getLoreFilters() {
+        List<PowerLoreFilter> filters = loreFilters;
+        if (filters == null) {
+            filters = loreFilters = getPower(PowerLoreFilter.class).stream()
+                                                                   .filter(p -> !Strings.isNullOrEmpty(p.regex))
+                                                                   .map(PowerLoreFilter::compile)
+                                                                   .collect(Collectors.toList());
+        }
+        return filters;
+    }
+
     private ItemMeta refreshAttributeModifiers(ItemMeta itemMeta) {
         List<PowerAttributeModifier> attributeModifiers = getPower(PowerAttributeModifier.class);
         if (!attributeModifiers.isEmpty()) {
@@ -816,8 +910,9 @@ public class RPGItem {
                 }
 
                 //Apply force adjustments
-                if (damager.hasMetadata("RPGItems.Force")) {
-                    damage *= damager.getMetadata("RPGItems.Force").get(0).asFloat();
+                ProjectileRegistry.Record record = ProjectileRegistry.instance().get(damager);
+                if (record != null) {
+                    damage *= record.getForce();
                 }
                 if (getDamageMode() == DamageMode.ADDITIONAL) {
                     damage += originDamage;
@@ -872,24 +967,29 @@ public class RPGItem {
         if (powers.isEmpty()) return false;
         if (checkPermission(player, true) == Event.Result.DENY) return false;
 
+        if (!RPGItemsPowersPreFireEvent.hasListeners()) return true;
         RPGItemsPowersPreFireEvent<TEvent, TPower, TResult, TReturn> preFire = new RPGItemsPowersPreFireEvent<>(player, i, event, this, trigger, powers);
         Bukkit.getServer().getPluginManager().callEvent(preFire);
         return !preFire.isCancelled();
     }
 
     @SuppressWarnings("unchecked")
-    private <T> PowerResult<T> checkConditions(Player player, ItemStack i, Power power, List<PowerCondition> conds, Map<Power, PowerResult> context) {
-        Set<String> ids = power.getConditions();
-        List<PowerCondition> conditions = conds.stream().filter(p -> ids.contains(p.id())).collect(Collectors.toList());
-        List<PowerCondition> failed = conditions.stream().filter(p -> p.isStatic() ? !context.get(p).isOK() : !p.check(player, i, context).isOK()).collect(Collectors.toList());
-        if (failed.isEmpty()) return null;
-        return failed.stream().anyMatch(PowerCondition::isCritical) ? PowerResult.abort() : PowerResult.condition();
+    private <T> PowerResult<T> checkConditions(Player player, ItemStack i, List<PowerCondition> conditions, Map<Power, PowerResult> context) {
+        boolean failed = false;
+        boolean critical = false;
+        for (PowerCondition condition : conditions) {
+            boolean ok = condition.isStatic() ? context.get(condition).isOK() : condition.check(player, i, context).isOK();
+            if (!ok) {
+                failed = true;
+                critical |= condition.isCritical();
+            }
+        }
+        if (!failed) return null;
+        return critical ? PowerResult.abort() : PowerResult.condition();
     }
 
     @SuppressWarnings("unchecked")
-    private Map<PowerCondition, PowerResult> checkStaticCondition(Player player, ItemStack i, List<PowerCondition> conds) {
-        Set<String> ids = powers.stream().flatMap(p -> p.getConditions().stream()).collect(Collectors.toSet());
-        List<PowerCondition> statics = conds.stream().filter(PowerCondition::isStatic).filter(p -> ids.contains(p.id())).collect(Collectors.toList());
+    private Map<PowerCondition, PowerResult> checkStaticCondition(Player player, ItemStack i, List<PowerCondition> statics) {
         Map<PowerCondition, PowerResult> result = new LinkedHashMap<>();
         for (PowerCondition c : statics) {
             result.put(c, c.check(player, i, result));
@@ -898,31 +998,53 @@ public class RPGItem {
     }
 
     public <TEvent extends Event, TPower extends Power, TResult, TReturn> TReturn power(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Object context) {
-        List<TPower> powers = this.getPower(trigger);
+        return power(player, i, event, trigger, context, -1);
+    }
+
+    /**
+     * Fires a per tick trigger, only running the powers whose {@link Power#tickInterval()} is due at {@code tick}
+     *
+     * @param tick Server tick counted by the ticker
+     */
+    public <TEvent extends Event, TPower extends Power, TResult, TReturn> TReturn tick(Player player, ItemStack i, Trigger<TEvent, TPower, TResult, TReturn> trigger, long tick) {
+        return power(player, i, null, trigger, null, tick);
+    }
+
+    private <TEvent extends Event, TPower extends Power, TResult, TReturn> TReturn power(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Object context, long tick) {
+        PowerDispatch dispatch = getDispatch();
+        List<TPower> powers = dispatch.getPowers(trigger);
         TReturn ret = trigger.def(player, i, event);
+        if (tick >= 0 && !anyDue(player, powers, tick)) return ret;
         if (!triggerPreCheck(player, i, event, trigger, powers)) return ret;
+        DurabilityTransaction.instance().begin();
         try {
-            List<PowerCondition> conds = getPower(PowerCondition.class, true);
-            Map<PowerCondition, PowerResult> staticCond = checkStaticCondition(player, i, conds);
-            Map<Power, PowerResult> resultMap = new LinkedHashMap<>(staticCond);
-            for (TPower power : powers) {
-                PowerResult<TResult> result = checkConditions(player, i, power, conds, resultMap);
-                if (result != null) {
-                    resultMap.put(power, result);
-                } else {
+            boolean postFire = RPGItemsPowersPostFireEvent.hasListeners();
+            // Results are only kept for conditions and post fire listeners
+            Map<Power, PowerResult> resultMap = null;
+            if (postFire || dispatch.hasConditions()) {
+                resultMap = new LinkedHashMap<>(checkStaticCondition(player, i, dispatch.getStaticConditions()));
+            }
+            for (int index = 0; index < powers.size(); index++) {
+                TPower power = powers.get(index);
+                if (tick >= 0 && !isDue(player, power, tick)) continue;
+                PowerResult<TResult> result = checkConditions(player, i, dispatch.getConditions(trigger, index), resultMap);
+                if (result == null) {
                     if (power.requiredContext() != null) {
                         result = handleContext(player, i, event, trigger, power);
                     } else {
                         result = trigger.run(power, player, i, event, context);
                     }
+                }
+                if (resultMap != null) {
                     resultMap.put(power, result);
                 }
                 ret = trigger.next(ret, result);
                 if (result.isAbort()) break;
             }
-            triggerPostFire(player, i, event, trigger, resultMap, ret);
+            triggerPostFire(player, i, event, trigger, resultMap, ret, postFire);
             return ret;
         } finally {
+            DurabilityTransaction.instance().commit();
             Context.instance().cleanTemp(player.getUniqueId());
         }
     }
@@ -931,6 +1053,20 @@ public class RPGItem {
         return power(player, i, event, trigger, null);
     }
 
+    private static boolean anyDue(Player player, List<? extends Power> powers, long tick) {
+        for (int index = 0; index < powers.size(); index++) {
+            if (isDue(player, powers.get(index), tick)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isDue(Player player, Power power, long tick) {
+        int interval = power.tickInterval();
+        if (interval <= 1) return true;
+        long phase = player.getUniqueId().hashCode() + System.identityHashCode(power);
+        return Math.floorMod(tick + phase, (long) interval) == 0;
+    }
+
     public <TEvent extends Event, TPower extends Power, TResult, TReturn> PowerResult<TResult> handleContext(Player player, ItemStack i, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, TPower power) {
         PowerResult<TResult> result;
         String contextKey = power.requiredContext();
@@ -959,17 +1095,22 @@ public class RPGItem {
         return result;
     }
 
-    private <TEvent extends Event, TPower extends Power, TResult, TReturn> void triggerPostFire(Player player, ItemStack itemStack, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Map<Power, PowerResult> resultMap, TReturn ret) {
-        RPGItemsPowersPostFireEvent<TEvent, TPower, TResult, TReturn> postFire = new RPGItemsPowersPostFireEvent<>(player, itemStack, event, this, trigger, resultMap, ret);
-        Bukkit.getServer().getPluginManager().callEvent(postFire);
+    private <TEvent extends Event, TPower extends Power, TResult, TReturn> void triggerPostFire(Player player, ItemStack itemStack, TEvent event, Trigger<TEvent, TPower, TResult, TReturn> trigger, Map<Power, PowerResult> resultMap, TReturn ret, boolean callEvent) {
+        if (callEvent) {
+            RPGItemsPowersPostFireEvent<TEvent, TPower, TResult, TReturn> postFire = new RPGItemsPowersPostFireEvent<>(player, itemStack, event, this, trigger, resultMap, ret);
+            Bukkit.getServer().getPluginManager().callEvent(postFire);
+        }
 
-        if (getItemStackDurability(itemStack).map(d -> d <= 0).orElse(false)) {
+        // Only stacks whose durability changed in the open transaction can have been depleted
+        Integer durability = DurabilityTransaction.instance().getPendingDurability(itemStack);
+        if (durability != null && durability <= 0) {
             itemStack.setAmount(0);
             itemStack.setType(Material.AIR);
         }
     }
 
     public void rebuild() {
+        invalidateDispatch();
         List<String> lines = getTooltipLines();
         lines.remove(0);
         setLore(lines);
@@ -996,14 +1137,14 @@ public class RPGItem {
         // compute width
         int width = 0;
         for (String str : output) {
-            width = Math.max(width, Utils.getStringWidth(ChatColor.stripColor(str)));
+            width = Math.max(width, Font.getStringWidth(str));
         }
 
         // compute armorMinLen
         int armorMinLen = 0;
         String damageStr = null;
         if (isShowArmourLore()) {
-            armorMinLen = Utils.getStringWidth(ChatColor.stripColor(getHand() + "     " + getType()));
+            armorMinLen = Font.getStringWidth(getHand() + "     " + getType());
 
             if (getArmour() != 0) {
                 damageStr = getArmour() + "% " + I18n.format("item.armour");
@@ -1019,7 +1160,7 @@ public class RPGItem {
                 }
             }
             if (damageStr != null) {
-                armorMinLen = Math.max(armorMinLen, Utils.getStringWidth(ChatColor.stripColor(damageStr)));
+                armorMinLen = Math.max(armorMinLen, Font.getStringWidth(damageStr));
             }
         }
         tooltipWidth = width = Math.max(width, armorMinLen);
@@ -1028,7 +1169,7 @@ public class RPGItem {
             if (damageStr != null) {
                 output.add(1, ChatColor.WHITE + damageStr);
             }
-            output.add(1, ChatColor.WHITE + getHand() + StringUtils.repeat(" ", (width - Utils.getStringWidth(ChatColor.stripColor(getHand() + getType()))) / 4) + getType());
+            output.add(1, ChatColor.WHITE + getHand() + StringUtils.repeat(" ", (width - Font.getStringWidth(getHand() + getType())) / 4) + getType());
         }
 
         return output;
@@ -1061,6 +1202,7 @@ public class RPGItem {
         meta.commit();
         itemMeta.setDisplayName(getDisplayName());
         itemStack.setItemMeta(itemMeta);
+        ItemManager.getResolutionCache().invalidate(itemStack);
     }
 
     public void unModel(ItemStack itemStack, Player owner) {
@@ -1077,6 +1219,7 @@ public class RPGItem {
         meta.commit();
         itemMeta.setDisplayName(getDisplayName());
         itemStack.setItemMeta(itemMeta);
+        ItemManager.getResolutionCache().invalidate(itemStack);
     }
 
     public Event.Result checkPermission(Player p, boolean showWarn) {
@@ -1138,26 +1281,32 @@ public class RPGItem {
     }
 
     public void setItemStackDurability(ItemStack item, int val) {
-        ItemMeta itemMeta = item.getItemMeta();
-        SubItemTagContainer tagContainer = makeTag(itemMeta, TAG_META);
-        if (getMaxDurability() != -1) {
-            set(tagContainer, TAG_DURABILITY, val);
+        if (getMaxDurability() == -1) {
+            this.updateItem(item, true);
+            return;
         }
-        tagContainer.commit();
-        item.setItemMeta(itemMeta);
-        this.updateItem(item, true);
+        DurabilityTransaction.instance().setDurability(this, item, val);
     }
 
     public Optional<Integer> getItemStackDurability(ItemStack item) {
         if (getMaxDurability() == -1) {
             return Optional.empty();
         }
-        ItemMeta itemMeta = item.getItemMeta();
-        SubItemTagContainer tagContainer = makeTag(itemMeta, TAG_META);
-        int durability = computeIfAbsent(tagContainer, TAG_DURABILITY, ItemTagType.INTEGER, this::getDefaultDurability);
-        tagContainer.commit();
-        item.setItemMeta(itemMeta);
-        return Optional.of(durability);
+        return Optional.of(DurabilityTransaction.instance().getDurability(this, item));
+    }
+
+    /**
+     * Reads the durability stored in a stack without writing anything back
+     */
+    int readDurability(ItemStack item) {
+        if (!item.hasItemMeta()) {
+            return getDefaultDurability();
+        }
+        CustomItemTagContainer tagContainer = item.getItemMeta().getCustomTagContainer();
+        if (!tagContainer.hasCustomTag(TAG_META, ItemTagType.TAG_CONTAINER)) {
+            return getDefaultDurability();
+        }
+        return optInt(getTag(tagContainer, TAG_META), TAG_DURABILITY).orElseGet(this::getDefaultDurability);
     }
 
     public boolean consumeDurability(ItemStack item, int val) {
@@ -1166,35 +1315,25 @@ public class RPGItem {
 
     public boolean consumeDurability(ItemStack item, int val, boolean checkbound) {
         if (val == 0) return true;
-        int durability;
-        ItemMeta itemMeta = item.getItemMeta();
-        if (getMaxDurability() != -1) {
-            SubItemTagContainer tagContainer = makeTag(itemMeta, TAG_META);
-            durability = computeIfAbsent(tagContainer, TAG_DURABILITY, ItemTagType.INTEGER, this::getDefaultDurability);
-            if (checkbound && (
-                    (val > 0 && durability < getDurabilityLowerBound()) ||
-                            (val < 0 && durability > getDurabilityUpperBound())
-            )) {
-                tagContainer.commit();
-                item.setItemMeta(itemMeta);
-                return false;
-            }
-            if (durability <= val
-                        && hasPower(PowerUnbreakable.class)
-                        && !isCustomItemModel()) {
-                tagContainer.commit();
-                item.setItemMeta(itemMeta);
-                return false;
-            }
-            durability -= val;
-            if (durability > getMaxDurability()) {
-                durability = getMaxDurability();
-            }
-            set(tagContainer, TAG_DURABILITY, durability);
-            tagContainer.commit();
+        if (getMaxDurability() == -1) return true;
+        DurabilityTransaction transaction = DurabilityTransaction.instance();
+        int durability = transaction.getDurability(this, item);
+        if (checkbound && (
+                (val > 0 && durability < getDurabilityLowerBound()) ||
+                        (val < 0 && durability > getDurabilityUpperBound())
+        )) {
+            return false;
+        }
+        if (durability <= val
+                    && hasPower(PowerUnbreakable.class)
+                    && !isCustomItemModel()) {
+            return false;
         }
-        item.setItemMeta(itemMeta);
-        this.updateItem(item, true);
+        durability -= val;
+        if (durability > getMaxDurability()) {
+            durability = getMaxDurability();
+        }
+        transaction.setDurability(this, item, durability);
         return true;
     }
 
@@ -1278,6 +1417,7 @@ public class RPGItem {
     private void addPower(NamespacedKey key, Power power, boolean update) {
         powers.add(power);
         powerKeys.put(power, key);
+        invalidateDispatch();
         if (update) {
             rebuild();
         }
@@ -1286,10 +1426,76 @@ public class RPGItem {
     public void removePower(Power power) {
         powers.remove(power);
         powerKeys.remove(power);
+        invalidateDispatch();
         power.deinit();
         rebuild();
     }
 
+    public Power reorderPower(int origin, int next) {
+        Power power = powers.remove(origin);
+        powers.add(next, power);
+        invalidateDispatch();
+        return power;
+    }
+
+    /**
+     * Drops the cached trigger dispatch table.
+     * Must be called after mutating the power list or the triggers and conditions of a power.
+     */
+    public void invalidateDispatch() {
+        dispatch = null;
+        EquipmentIndex.instance().invalidateAll();
+        touch();
+    }
+
+    /**
+     * Starts a new revision of this item, dropping cached rendering so that stacks are fully updated again.
+     * Called by every setter, call it after mutating collections returned by getters.
+     */
+    public void touch() {
+        revision = null;
+        loreFilters = null;
+        durabilityBars = null;
+        numericBarTail = null;
+    }
+
+    /**
+     * Revision of this item, a hash of its saved content and of everything else its stacks are rendered from.
+     * As it only depends on content, stacks stay up to date across restarts and reloads.
+     *
+     * @return Revision
+     */
+    public int getRevision() {
+        Integer current = revision;
+        if (current == null) {
+            YamlConfiguration configuration = new YamlConfiguration();
+            save(configuration);
+            current = Objects.hash(RPGItems.getVersion(), RPGItems.getSerial(), plugin.cfg.language, configuration.saveToString());
+            revision = current;
+        }
+        return current;
+    }
+
+    private PowerDispatch getDispatch() {
+        PowerDispatch current = dispatch;
+        if (current == null) {
+            current = dispatch = new PowerDispatch(powers);
+        }
+        return current;
+    }
+
+    public boolean hasTrigger(Trigger trigger) {
+        return getDispatch().hasTrigger(trigger);
+    }
+
+    /**
+     * @param power Power of this item
+     * @return Selectors of this item referenced by the power
+     */
+    public List<PowerSelector> getSelectors(Power power) {
+        return getDispatch().getSelectors(power);
+    }
+
     public void addDescription(String str) {
         getDescription().add(ChatColor.translateAlternateColorCodes('&', str));
         rebuild();
@@ -1309,10 +1515,6 @@ public class RPGItem {
         return msg;
     }
 
-    private <TEvent extends Event, T extends Power, TResult, TReturn> List<T> getPower(Trigger<TEvent, T, TResult, TReturn> trigger) {
-        return powers.stream().filter(p -> p.getTriggers().contains(trigger)).map(p -> p.cast(trigger.getPowerClass())).collect(Collectors.toList());
-    }
-
     public void deinit() {
         powers.forEach(Power::deinit);
     }
@@ -1334,6 +1536,7 @@ public class RPGItem {
     }
 
     public void setAlwaysAllowMelee(boolean alwaysAllowMelee) {
+        touch();
         this.alwaysAllowMelee = alwaysAllowMelee;
     }
 
@@ -1342,6 +1545,7 @@ public class RPGItem {
     }
 
     public void setArmour(int a, boolean update) {
+        touch();
         armour = a;
         if (update) {
             rebuild();
@@ -1353,6 +1557,7 @@ public class RPGItem {
     }
 
     public void setAuthor(String author) {
+        touch();
         this.author = author;
     }
 
@@ -1361,6 +1566,7 @@ public class RPGItem {
     }
 
     public void setBlockBreakingCost(int blockBreakingCost) {
+        touch();
         this.blockBreakingCost = blockBreakingCost;
     }
 
@@ -1369,10 +1575,12 @@ public class RPGItem {
     }
 
     public void setCanBeOwned(boolean canBeOwned) {
+        touch();
         this.canBeOwned = canBeOwned;
     }
 
     private void setDamageMax(int damageMax) {
+        touch();
         this.damageMax = damageMax;
     }
 
@@ -1381,10 +1589,12 @@ public class RPGItem {
     }
 
     private void setDamageMin(int damageMin) {
+        touch();
         this.damageMin = damageMin;
     }
 
     public void setDamage(int min, int max) {
+        touch();
         setDamageMin(min);
         setDamageMax(max);
         rebuild();
@@ -1395,6 +1605,7 @@ public class RPGItem {
     }
 
     public void setDamageMode(DamageMode damageMode) {
+        touch();
         this.damageMode = damageMode;
     }
 
@@ -1403,6 +1614,7 @@ public class RPGItem {
     }
 
     public void setDataValue(int dataValue) {
+        touch();
         this.dataValue = dataValue;
     }
 
@@ -1411,6 +1623,7 @@ public class RPGItem {
     }
 
     public void setDefaultDurability(int newVal) {
+        touch();
         defaultDurability = newVal;
     }
 
@@ -1419,6 +1632,7 @@ public class RPGItem {
     }
 
     public void setDescription(List<String> description) {
+        touch();
         this.description = description;
     }
 
@@ -1427,6 +1641,7 @@ public class RPGItem {
     }
 
     public void setDisplayName(String displayName) {
+        touch();
         this.displayName = ChatColor.translateAlternateColorCodes('&', displayName);
     }
 
@@ -1435,6 +1650,7 @@ public class RPGItem {
     }
 
     public void setDropChances(Map<String, Double> dropChances) {
+        touch();
         this.dropChances = dropChances;
     }
 
@@ -1443,6 +1659,7 @@ public class RPGItem {
     }
 
     public void setDurabilityLowerBound(int durabilityLowerBound) {
+        touch();
         this.durabilityLowerBound = durabilityLowerBound;
     }
 
@@ -1451,10 +1668,12 @@ public class RPGItem {
     }
 
     public void setDurabilityUpperBound(int durabilityUpperBound) {
+        touch();
         this.durabilityUpperBound = durabilityUpperBound;
     }
 
     public void setDurabilityBound(int min, int max) {
+        touch();
         setDurabilityLowerBound(min);
         setDurabilityUpperBound(max);
     }
@@ -1464,6 +1683,7 @@ public class RPGItem {
     }
 
     public void setEnchantMap(Map<Enchantment, Integer> enchantMap) {
+        touch();
         this.enchantMap = enchantMap;
     }
 
@@ -1476,6 +1696,7 @@ public class RPGItem {
     }
 
     public void setEnchantMode(EnchantMode enchantMode) {
+        touch();
         this.enchantMode = enchantMode;
     }
 
@@ -1492,6 +1713,7 @@ public class RPGItem {
     }
 
     public void setHand(String h, boolean update) {
+        touch();
         hand = ChatColor.translateAlternateColorCodes('&', h);
         if (update) {
             rebuild();
@@ -1503,10 +1725,12 @@ public class RPGItem {
     }
 
     public void setHasStackId(boolean hasStackId) {
+        touch();
         this.hasStackId = hasStackId;
     }
 
     public void setHitCost(int hitCost) {
+        touch();
         this.hitCost = hitCost;
     }
 
@@ -1515,6 +1739,7 @@ public class RPGItem {
     }
 
     public void setHittingCost(int hittingCost) {
+        touch();
         this.hittingCost = hittingCost;
     }
 
@@ -1528,6 +1753,7 @@ public class RPGItem {
     }
 
     public void setItem(Material material) {
+        touch();
         item = material;
     }
 
@@ -1536,6 +1762,7 @@ public class RPGItem {
     }
 
     public void setItemFlags(List<ItemFlag> itemFlags) {
+        touch();
         this.itemFlags = itemFlags;
     }
 
@@ -1544,6 +1771,7 @@ public class RPGItem {
     }
 
     public void setLicense(String license) {
+        touch();
         this.license = license;
     }
 
@@ -1560,6 +1788,7 @@ public class RPGItem {
     }
 
     public void setMaxDurability(int newVal) {
+        touch();
         maxDurability = newVal <= 0 ? -1 : newVal;
         setDefaultDurability(maxDurability);
     }
@@ -1569,6 +1798,7 @@ public class RPGItem {
     }
 
     public void setMcVersion(String mcVersion) {
+        touch();
         this.mcVersion = mcVersion;
     }
 
@@ -1581,6 +1811,7 @@ public class RPGItem {
     }
 
     public void setNamespacedKey(NamespacedKey namespacedKey) {
+        touch();
         this.namespacedKey = namespacedKey;
     }
 
@@ -1589,6 +1820,7 @@ public class RPGItem {
     }
 
     public void setNote(String note) {
+        touch();
         this.note = note;
     }
 
@@ -1597,6 +1829,7 @@ public class RPGItem {
     }
 
     public void setPermission(String p) {
+        touch();
         permission = p;
     }
 
@@ -1629,6 +1862,7 @@ public class RPGItem {
     }
 
     public void setRecipe(List<ItemStack> recipe) {
+        touch();
         this.recipe = recipe;
     }
 
@@ -1637,6 +1871,7 @@ public class RPGItem {
     }
 
     public void setRecipeChance(int p) {
+        touch();
         recipeChance = p;
     }
 
@@ -1653,6 +1888,7 @@ public class RPGItem {
     }
 
     public void setType(String str, boolean update) {
+        touch();
         type = ChatColor.translateAlternateColorCodes('&', str);
         if (update)
             rebuild();
@@ -1667,6 +1903,7 @@ public class RPGItem {
     }
 
     public void setCustomItemModel(boolean customItemModel) {
+        touch();
         this.customItemModel = customItemModel;
     }
 
@@ -1675,6 +1912,7 @@ public class RPGItem {
     }
 
     public void setHasDurabilityBar(boolean hasDurabilityBar) {
+        touch();
         this.hasDurabilityBar = hasDurabilityBar;
     }
 
@@ -1683,6 +1921,7 @@ public class RPGItem {
     }
 
     public void setHasPermission(boolean b) {
+        touch();
         hasPermission = b;
     }
 
@@ -1691,6 +1930,7 @@ public class RPGItem {
     }
 
     public void setHasRecipe(boolean hasRecipe) {
+        touch();
         this.hasRecipe = hasRecipe;
     }
 
@@ -1699,6 +1939,7 @@ public class RPGItem {
     }
 
     public void setHitCostByDamage(boolean hitCostByDamage) {
+        touch();
         this.hitCostByDamage = hitCostByDamage;
     }
 
@@ -1707,6 +1948,7 @@ public class RPGItem {
     }
 
     public void setIgnoreWorldGuard(boolean ignoreWorldGuard) {
+        touch();
         this.ignoreWorldGuard = ignoreWorldGuard;
     }
 
@@ -1715,6 +1957,7 @@ public class RPGItem {
     }
 
     public void setBarFormat(BarFormat barFormat) {
+        touch();
         this.barFormat = barFormat;
     }
 
@@ -1723,6 +1966,7 @@ public class RPGItem {
     }
 
     public void setShowArmourLore(boolean showArmourLore) {
+        touch();
         this.showArmourLore = showArmourLore;
     }
 
@@ -1731,6 +1975,7 @@ public class RPGItem {
     }
 
     public void setShowPowerText(boolean showPowerText) {
+        touch();
         this.showPowerText = showPowerText;
     }
 
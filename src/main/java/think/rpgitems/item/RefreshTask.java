@@ -0,0 +1,128 @@
+package think.rpgitems.item;
+
+import cat.nyaa.nyaacore.Message;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.librazy.nclangchecker.LangKey;
+import think.rpgitems.I18n;
+import think.rpgitems.RPGItems;
+
+import java.util.*;
+
+/**
+ * Updates the RPGItem stacks of all online players, spread over ticks within {@link think.rpgitems.Configuration#refreshBudget}.
+ * <p>
+ * Held, offhand and armour slots of every player come first, then the rest of their inventories,
+ * then open containers if {@link think.rpgitems.Configuration#refreshContainers} is set.
+ * Starting a refresh cancels the one still running.
+ */
+class RefreshTask extends BukkitRunnable {
+    private static final int PROGRESS_INTERVAL = 20;
+
+    private static RefreshTask current;
+
+    private final CommandSender sender;
+    private final Deque<Slot> slots = new ArrayDeque<>();
+    private final int total;
+    private int ticks;
+
+    private RefreshTask(CommandSender sender) {
+        this.sender = sender;
+        Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+        List<Slot> rest = new ArrayList<>();
+        for (Player player : players) {
+            PlayerInventory inventory = player.getInventory();
+            int held = inventory.getHeldItemSlot();
+            slots.add(new Slot(player, inventory, held));
+            slots.add(new Slot(player, inventory, EquipmentIndex.OFFHAND_SLOT));
+            for (int slot = EquipmentIndex.ARMOR_SLOT; slot < EquipmentIndex.OFFHAND_SLOT; slot++) {
+                slots.add(new Slot(player, inventory, slot));
+            }
+            for (int slot = 0; slot < EquipmentIndex.ARMOR_SLOT; slot++) {
+                if (slot != held) {
+                    rest.add(new Slot(player, inventory, slot));
+                }
+            }
+        }
+        slots.addAll(rest);
+        if (RPGItems.plugin.cfg.refreshContainers) {
+            Set<Inventory> containers = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Player player : players) {
+                Inventory top = player.getOpenInventory().getTopInventory();
+                if (top.getType() == InventoryType.CRAFTING || !containers.add(top)) {
+                    continue;
+                }
+                for (int slot = 0; slot < top.getSize(); slot++) {
+                    slots.add(new Slot(null, top, slot));
+                }
+            }
+        }
+        total = slots.size();
+    }
+
+    static void start(CommandSender sender) {
+        RefreshTask previous = current;
+        if (previous != null) {
+            previous.cancel();
+            if (previous.sender != null && previous.sender != sender) {
+                previous.send("message.refresh.superseded");
+            }
+        }
+        current = new RefreshTask(sender);
+        current.runTaskTimer(RPGItems.plugin, 0, 1);
+    }
+
+    @Override
+    public void run() {
+        ++ticks;
+        long deadline = System.nanoTime() + RPGItems.plugin.cfg.refreshBudget;
+        while (!slots.isEmpty()) {
+            slots.poll().refresh();
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        if (slots.isEmpty()) {
+            cancel();
+            current = null;
+            if (ticks > 1) {
+                send("message.refresh.done", total, ticks);
+            }
+        } else if (ticks % PROGRESS_INTERVAL == 0) {
+            send("message.refresh.progress", total - slots.size(), total);
+        }
+    }
+
+    private void send(@LangKey String key, Object... args) {
+        if (sender == null || (sender instanceof Player && !((Player) sender).isOnline())) {
+            return;
+        }
+        new Message(I18n.format(key, args)).send(sender);
+    }
+
+    private static final class Slot {
+        private final Player player;
+        private final Inventory inventory;
+        private final int slot;
+
+        Slot(Player player, Inventory inventory, int slot) {
+            this.player = player;
+            this.inventory = inventory;
+            this.slot = slot;
+        }
+
+        void refresh() {
+            if (player != null && !player.isOnline()) {
+                return;
+            }
+            ItemStack item = inventory.getItem(slot);
+            ItemManager.toRPGItem(item).ifPresent(rpgItem -> rpgItem.updateItem(item));
+        }
+    }
+}
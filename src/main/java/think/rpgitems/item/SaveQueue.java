@@ -0,0 +1,154 @@
+package think.rpgitems.item;
+
+import cat.nyaa.nyaacore.Message;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import think.rpgitems.I18n;
+import think.rpgitems.RPGItems;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Write-behind queue for item files.
+ * <p>
+ * Items are marked dirty on the main thread and serialized once at the next tick, however often they were edited.
+ * Backup, write and verification of the files run on a single background thread, so writes of a file stay in
+ * order, and a write still waiting there is replaced by a newer one of the same file.
+ */
+class SaveQueue {
+    private final RPGItems plugin;
+    private final Set<RPGItem> dirty = new LinkedHashSet<>();
+    private final Map<File, Write> queued = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("RPGItems Save").setDaemon(true).build());
+    private BukkitTask drainTask;
+
+    SaveQueue(RPGItems plugin) {
+        this.plugin = plugin;
+    }
+
+    void markDirty(RPGItem item) {
+        dirty.add(item);
+        if (drainTask == null && plugin.isEnabled()) {
+            drainTask = Bukkit.getScheduler().runTask(plugin, this::drain);
+        }
+    }
+
+    /**
+     * Serializes all dirty items now and waits until every file is written
+     */
+    void flush() {
+        drain();
+        try {
+            executor.submit(() -> {
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void close() {
+        flush();
+        executor.shutdown();
+    }
+
+    private void drain() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        RPGItem[] items = dirty.toArray(new RPGItem[0]);
+        dirty.clear();
+        for (RPGItem item : items) {
+            File file = item.getFile() == null ? ItemManager.createFile(ItemManager.getItemsDir(), item.getName(), "-item", true) : item.getFile();
+            item.setPluginVersion(RPGItems.getVersion());
+            item.setPluginSerial(RPGItems.getSerial());
+            YamlConfiguration configuration = new YamlConfiguration();
+            item.save(configuration);
+            item.setFile(file);
+            Write write = new Write(item.getName(), file, configuration.saveToString());
+            if (queued.put(file, write) == null) {
+                executor.execute(() -> {
+                    Write latest = queued.remove(file);
+                    if (latest != null) {
+                        latest.run();
+                    }
+                });
+            }
+        }
+    }
+
+    private final class Write {
+        private final String itemName;
+        private final File file;
+        private final String content;
+
+        Write(String itemName, File file, String content) {
+            this.itemName = itemName;
+            this.file = file;
+            this.content = content;
+        }
+
+        void run() {
+            File backup = null;
+            try {
+                if (file.exists()) {
+                    backup = ItemManager.unlockAndBackup(file);
+                }
+                Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+                try {
+                    ItemManager.verify(file);
+                    if (backup != null && backup.exists()) {
+                        backup.deleteOnExit();
+                    }
+                    ItemManager.lock(file);
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Error verifying integrity for " + itemName + ".", e);
+                    notifyOps(I18n.format("message.error.verifying", itemName, e.getLocalizedMessage()));
+                    throw e;
+                }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error saving " + itemName + ".", e);
+                plugin.getLogger().severe("Dumping current item");
+                plugin.getLogger().severe("===============");
+                plugin.getLogger().severe(content);
+                plugin.getLogger().severe("===============");
+                if (backup != null && backup.exists()) {
+                    try {
+                        plugin.getLogger().severe("Recovering backup: " + backup);
+                        Files.copy(backup.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        ItemManager.lock(file);
+                    } catch (Exception exRec) {
+                        plugin.getLogger().log(Level.SEVERE, "Error recovering backup: " + backup, exRec);
+                        notifyOps(I18n.format("message.error.recovering", itemName, backup.getPath(), exRec.getLocalizedMessage()));
+                    }
+                }
+            }
+        }
+
+        private void notifyOps(String text) {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                Message message = new Message(text);
+                message.send(Bukkit.getConsoleSender());
+                Bukkit.getOperators().forEach(message::send);
+            });
+        }
+    }
+}
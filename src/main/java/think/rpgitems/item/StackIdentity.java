@@ -0,0 +1,82 @@
+package think.rpgitems.item;
+
+import cat.nyaa.nyaacore.utils.ReflectionUtils;
+import org.bukkit.inventory.ItemStack;
+import think.rpgitems.RPGItems;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.logging.Level;
+
+/**
+ * Identity of a stack held by the server, read without copying its ItemMeta.
+ * <p>
+ * A mirror handed out by an inventory wraps the server's own stack, which is replaced whenever the slot is set.
+ * The hash of the RPGItems tag of that stack changes whenever its uid, revision or durability is rewritten in place.
+ */
+final class StackIdentity {
+    private static final String BUKKIT_VALUES = "PublicBukkitValues";
+    private static final String META = RPGItem.TAG_META.toString();
+
+    private static final MethodHandle handle;
+    private static final MethodHandle getTag;
+    private static final MethodHandle getCompound;
+
+    static {
+        MethodHandle handleGetter = null, tagGetter = null, compoundGetter = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> craftItemStack = ReflectionUtils.getOBCClass("inventory.CraftItemStack");
+            Class<?> nmsItemStack = ReflectionUtils.getNMSClass("ItemStack");
+            Class<?> nbtTagCompound = ReflectionUtils.getNMSClass("NBTTagCompound");
+            Field handleField = craftItemStack.getDeclaredField("handle");
+            handleField.setAccessible(true);
+            handleGetter = lookup.unreflectGetter(handleField).asType(MethodType.methodType(Object.class, ItemStack.class));
+            tagGetter = lookup.unreflect(nmsItemStack.getMethod("getTag")).asType(MethodType.methodType(Object.class, Object.class));
+            compoundGetter = lookup.unreflect(nbtTagCompound.getMethod("getCompound", String.class)).asType(MethodType.methodType(Object.class, Object.class, String.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            RPGItems.logger.log(Level.WARNING, "Cannot read item stack handles, item resolution will not be cached", e);
+            handleGetter = null;
+        }
+        handle = handleGetter;
+        getTag = tagGetter;
+        getCompound = compoundGetter;
+    }
+
+    private StackIdentity() {
+    }
+
+    /**
+     * @param stack Item stack
+     * @return The server's stack behind a mirror, or {@code null} if the stack is not a mirror
+     */
+    static Object handle(ItemStack stack) {
+        if (handle == null || stack.getClass() == ItemStack.class) {
+            return null;
+        }
+        try {
+            return (Object) handle.invokeExact(stack);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param handle The server's stack
+     * @return Hash of its RPGItems tag, {@code 0} if it has none
+     */
+    static int stamp(Object handle) {
+        try {
+            Object tag = (Object) getTag.invokeExact(handle);
+            if (tag == null) {
+                return 0;
+            }
+            Object values = (Object) getCompound.invokeExact(tag, BUKKIT_VALUES);
+            return ((Object) getCompound.invokeExact(values, META)).hashCode();
+        } catch (Throwable e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package think.rpgitems.power;
+
+import org.bukkit.Location;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Command string parsed once into literal text and placeholders, rendered without regular expressions.
+ * <p>
+ * Placeholders are written as {@code {name}}, or with another opening such as {@code ${name}}.
+ * Names not registered by {@link #registerPlaceholder(String, Placeholder)}, and placeholders without
+ * a value in the {@link Context}, are kept as they are.
+ */
+public final class CommandTemplate {
+    private static final Map<String, Placeholder> placeholders = new ConcurrentHashMap<>();
+    private static volatile int registryRevision;
+    private static final ThreadLocal<StringBuilder> buffer = ThreadLocal.withInitial(StringBuilder::new);
+
+    static {
+        registerPlaceholder("player", (out, c) -> c.getPlayer() != null && append(out, c.getPlayer().getName()));
+        registerPlaceholder("player.x", (out, c) -> c.getPlayer() != null && append(out, Float.toString(-c.getPlayerLocation().getBlockX())));
+        registerPlaceholder("player.y", (out, c) -> c.getPlayer() != null && append(out, Float.toString(-c.getPlayerLocation().getBlockY())));
+        registerPlaceholder("player.z", (out, c) -> c.getPlayer() != null && append(out, Float.toString(-c.getPlayerLocation().getBlockZ())));
+        registerPlaceholder("player.yaw", (out, c) -> c.getPlayer() != null && append(out, Float.toString(90 + c.getPlayerEyeLocation().getYaw())));
+        registerPlaceholder("player.pitch", (out, c) -> c.getPlayer() != null && append(out, Float.toString(-c.getPlayerEyeLocation().getPitch())));
+        registerPlaceholder("yaw", (out, c) -> c.getPlayer() != null && append(out, Float.toString(c.getPlayerLocation().getYaw() + 90)));
+        registerPlaceholder("pitch", (out, c) -> c.getPlayer() != null && append(out, Float.toString(-c.getPlayerLocation().getPitch())));
+        registerPlaceholder("entity", (out, c) -> c.getEntity() != null && append(out, c.getEntity().getName()));
+        registerPlaceholder("entity.uuid", (out, c) -> c.getEntity() != null && append(out, c.getEntity().getUniqueId().toString()));
+        registerPlaceholder("entity.x", (out, c) -> c.getEntity() != null && append(out, Float.toString(c.getEntityLocation().getBlockX())));
+        registerPlaceholder("entity.y", (out, c) -> c.getEntity() != null && append(out, Float.toString(c.getEntityLocation().getBlockY())));
+        registerPlaceholder("entity.z", (out, c) -> c.getEntity() != null && append(out, Float.toString(c.getEntityLocation().getBlockZ())));
+        registerPlaceholder("entity.yaw", (out, c) -> c.getEntity() != null && append(out, Float.toString(90 + c.getEntityEyeLocation().getYaw())));
+        registerPlaceholder("entity.pitch", (out, c) -> c.getEntity() != null && append(out, Float.toString(-c.getEntityEyeLocation().getPitch())));
+        registerPlaceholder("damage", (out, c) -> c.getDamage() != null && append(out, String.valueOf((double) c.getDamage())));
+        registerPlaceholder("x", (out, c) -> c.getLocation() != null && append(out, String.valueOf((int) c.getLocation().getX())));
+        registerPlaceholder("y", (out, c) -> c.getLocation() != null && append(out, String.valueOf((int) c.getLocation().getY())));
+        registerPlaceholder("z", (out, c) -> c.getLocation() != null && append(out, String.valueOf((int) c.getLocation().getZ())));
+    }
+
+    private final String source;
+    private final String open;
+    private Object[] segments;
+    private boolean literal;
+    private int revision;
+
+    private CommandTemplate(String source, String open) {
+        this.source = source;
+        this.open = open;
+        parse();
+    }
+
+    /**
+     * @param source Command with {@code {name}} placeholders
+     * @return Parsed template
+     */
+    public static CommandTemplate compile(String source) {
+        return compile(source, "{");
+    }
+
+    /**
+     * @param source Command with placeholders
+     * @param open   Opening of a placeholder, closed by {@code }}
+     * @return Parsed template
+     */
+    public static CommandTemplate compile(String source, String open) {
+        return new CommandTemplate(source, open);
+    }
+
+    /**
+     * Registers a placeholder, templates compiled before pick it up on their next render
+     *
+     * @param name        Name between the braces
+     * @param placeholder Appends the value of the placeholder
+     */
+    public static void registerPlaceholder(String name, Placeholder placeholder) {
+        placeholders.put(name, placeholder);
+        ++registryRevision;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param context Values of the placeholders
+     * @return The command with its placeholders replaced
+     */
+    public String render(Context context) {
+        if (revision != registryRevision) {
+            parse();
+        }
+        if (literal) {
+            return source;
+        }
+        StringBuilder out = buffer.get();
+        out.setLength(0);
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                out.append((String) segment);
+                continue;
+            }
+            Slot slot = (Slot) segment;
+            if (!slot.placeholder.append(out, context)) {
+                out.append(slot.token);
+            }
+        }
+        return out.toString();
+    }
+
+    private void parse() {
+        revision = registryRevision;
+        List<Object> segments = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            int start = source.indexOf(open, i);
+            if (start < 0) break;
+            int end = source.indexOf('}', start + open.length());
+            if (end < 0) break;
+            Placeholder placeholder = placeholders.get(source.substring(start + open.length(), end));
+            if (placeholder == null) {
+                text.append(source, i, start + 1);
+                i = start + 1;
+                continue;
+            }
+            text.append(source, i, start);
+            if (text.length() > 0) {
+                segments.add(text.toString());
+                text.setLength(0);
+            }
+            segments.add(new Slot(source.substring(start, end + 1), placeholder));
+            i = end + 1;
+        }
+        text.append(source, i, source.length());
+        if (text.length() > 0) {
+            segments.add(text.toString());
+        }
+        this.segments = segments.toArray();
+        this.literal = segments.stream().noneMatch(Slot.class::isInstance);
+    }
+
+    private static boolean append(StringBuilder out, String value) {
+        out.append(value);
+        return true;
+    }
+
+    @FunctionalInterface
+    public interface Placeholder {
+        /**
+         * @param out     Command being rendered
+         * @param context Values of the placeholders
+         * @return Whether a value was appended, otherwise the placeholder is kept as is and nothing may be appended
+         */
+        boolean append(StringBuilder out, Context context);
+    }
+
+    /**
+     * Values of the placeholders of one command execution. Locations are read once, on first use.
+     */
+    public static final class Context {
+        private final Player player;
+        private LivingEntity entity;
+        private Double damage;
+        private Location location;
+        private Location playerLocation;
+        private Location playerEyeLocation;
+        private Location entityLocation;
+        private Location entityEyeLocation;
+
+        public Context(Player player) {
+            this.player = player;
+        }
+
+        /**
+         * Sets the target entity, may be called again for the next target
+         */
+        public Context entity(LivingEntity entity) {
+            this.entity = entity;
+            entityLocation = null;
+            entityEyeLocation = null;
+            return this;
+        }
+
+        public Context damage(double damage) {
+            this.damage = damage;
+            return this;
+        }
+
+        public Context location(Location location) {
+            this.location = location;
+            return this;
+        }
+
+        public Player getPlayer() {
+            return player;
+        }
+
+        public LivingEntity getEntity() {
+            return entity;
+        }
+
+        public Double getDamage() {
+            return damage;
+        }
+
+        public Location getLocation() {
+            return location;
+        }
+
+        public Location getPlayerLocation() {
+            if (playerLocation == null) {
+                playerLocation = player.getLocation();
+            }
+            return playerLocation;
+        }
+
+        public Location getPlayerEyeLocation() {
+            if (playerEyeLocation == null) {
+                playerEyeLocation = player.getEyeLocation();
+            }
+            return playerEyeLocation;
+        }
+
+        public Location getEntityLocation() {
+            if (entityLocation == null) {
+                entityLocation = entity.getLocation();
+            }
+            return entityLocation;
+        }
+
+        public Location getEntityEyeLocation() {
+            if (entityEyeLocation == null) {
+                entityEyeLocation = entity.getEyeLocation();
+            }
+            return entityEyeLocation;
+        }
+    }
+
+    private static final class Slot {
+        private final String token;
+        private final Placeholder placeholder;
+
+        Slot(String token, Placeholder placeholder) {
+            this.token = token;
+            this.placeholder = placeholder;
+        }
+    }
+}
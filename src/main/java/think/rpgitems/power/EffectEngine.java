@@ -0,0 +1,248 @@
+package think.rpgitems.power;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+import think.rpgitems.RPGItems;
+import think.rpgitems.item.RPGItem;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Steps every running {@link EffectTask} from a single repeating task.
+ * <p>
+ * Effects are grouped by the world of their owner and kept in arrays, compacted once per tick.
+ * Stepping stops for the tick once {@link think.rpgitems.Configuration#effectBudget} is spent; the effects left out
+ * are deferred and stepped first on the next tick. Step counts and times are kept per power for {@code /rpgitem stats}.
+ */
+public class EffectEngine implements Runnable {
+    private static EffectEngine instance = new EffectEngine();
+
+    private final Map<World, Group> groupByWorld = new HashMap<>();
+    private final List<Group> groups = new ArrayList<>();
+    private final Map<String, Stats> stats = new HashMap<>();
+    private BukkitTask task;
+    private long tick;
+
+    public static EffectEngine instance() {
+        return instance;
+    }
+
+    void schedule(EffectTask effect, Power power, Entity owner, long delay, long period) {
+        if (effect.started) {
+            throw new IllegalStateException("Effect already started");
+        }
+        effect.started = true;
+        effect.world = owner.getWorld();
+        effect.owner = owner.getUniqueId();
+        effect.item = power.getItem();
+        effect.stats = stats.computeIfAbsent(power.getName(), Stats::new);
+        effect.next = tick + Math.max(1, delay);
+        effect.period = Math.max(1, period);
+        Group group = groupByWorld.get(effect.world);
+        if (group == null) {
+            group = new Group(effect.world);
+            groupByWorld.put(effect.world, group);
+            groups.add(group);
+        }
+        group.add(effect);
+        if (task == null && RPGItems.plugin.isEnabled()) {
+            task = Bukkit.getScheduler().runTaskTimer(RPGItems.plugin, this, 1, 1);
+        }
+    }
+
+    @Override
+    public void run() {
+        long now = ++tick;
+        long deadline = System.nanoTime() + RPGItems.plugin.cfg.effectBudget;
+        boolean exhausted = false;
+        for (int i = 0; i < groups.size(); i++) {
+            exhausted = groups.get(i).step(now, deadline, true, exhausted);
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
+            exhausted = group.step(now, deadline, false, exhausted);
+            group.compact();
+        }
+    }
+
+    /**
+     * Cancels the effects of an owner
+     *
+     * @param owner UUID of the owner
+     */
+    public void cancelOwner(UUID owner) {
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                if (owner.equals(group.effects[i].owner)) {
+                    group.effects[i].cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels the effects cast by the powers of an item
+     *
+     * @param item RPGItem
+     */
+    public void cancelItem(RPGItem item) {
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                if (group.effects[i].item == item) {
+                    group.effects[i].cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels and drops the effects in a world, e.g. when it unloads
+     *
+     * @param world World
+     */
+    public void cancelWorld(World world) {
+        Group group = groupByWorld.remove(world);
+        if (group == null) {
+            return;
+        }
+        groups.remove(group);
+        for (int i = 0; i < group.size; i++) {
+            group.effects[i].cancel();
+        }
+    }
+
+    /**
+     * @return Number of running effects
+     */
+    public int size() {
+        int size = 0;
+        for (Group group : groups) {
+            size += group.size;
+        }
+        return size;
+    }
+
+    /**
+     * @return Number of running effects per world
+     */
+    public Map<World, Integer> sizeByWorld() {
+        Map<World, Integer> sizes = new LinkedHashMap<>();
+        for (Group group : groups) {
+            sizes.put(group.world, group.size);
+        }
+        return sizes;
+    }
+
+    /**
+     * @return Step statistics per power name
+     */
+    public Collection<Stats> getStats() {
+        return Collections.unmodifiableCollection(stats.values());
+    }
+
+    public void resetStats() {
+        stats.values().forEach(Stats::reset);
+    }
+
+    /**
+     * Drops every effect, on disable
+     */
+    public void unload() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (Group group : groups) {
+            for (int i = 0; i < group.size; i++) {
+                group.effects[i].cancel();
+            }
+        }
+        groups.clear();
+        groupByWorld.clear();
+    }
+
+    public static final class Stats {
+        private final String power;
+        private long steps;
+        private long nanos;
+
+        private Stats(String power) {
+            this.power = power;
+        }
+
+        public String getPower() {
+            return power;
+        }
+
+        public long getSteps() {
+            return steps;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        private void reset() {
+            steps = 0;
+            nanos = 0;
+        }
+    }
+
+    private static final class Group {
+        private final World world;
+        private EffectTask[] effects = new EffectTask[16];
+        private int size;
+
+        Group(World world) {
+            this.world = world;
+        }
+
+        void add(EffectTask effect) {
+            if (size == effects.length) {
+                effects = Arrays.copyOf(effects, size * 2);
+            }
+            effects[size++] = effect;
+        }
+
+        boolean step(long now, long deadline, boolean deferred, boolean exhausted) {
+            long time = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                EffectTask effect = effects[i];
+                if (effect.cancelled || effect.deferred != deferred || effect.next > now) continue;
+                if (exhausted) {
+                    effect.deferred = true;
+                    continue;
+                }
+                effect.deferred = false;
+                effect.next = now + effect.period;
+                try {
+                    effect.step();
+                } catch (RuntimeException e) {
+                    RPGItems.logger.log(Level.WARNING, "Exception in effect of " + effect.stats.power + ", cancelled", e);
+                    effect.cancel();
+                }
+                long end = System.nanoTime();
+                effect.stats.steps++;
+                effect.stats.nanos += end - time;
+                time = end;
+                exhausted = end >= deadline;
+            }
+            return exhausted;
+        }
+
+        void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                EffectTask effect = effects[i];
+                if (!effect.cancelled) {
+                    effects[kept++] = effect;
+                }
+            }
+            Arrays.fill(effects, kept, size, null);
+            size = kept;
+        }
+    }
+}
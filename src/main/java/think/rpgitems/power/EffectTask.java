@@ -0,0 +1,65 @@
+package think.rpgitems.power;
+
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import think.rpgitems.item.RPGItem;
+
+import java.util.UUID;
+
+/**
+ * Animation of a power, stepped by {@link EffectEngine} instead of a scheduler task of its own.
+ * <p>
+ * Used like a {@link org.bukkit.scheduler.BukkitRunnable}: after {@link #start(Power, Entity, long, long)},
+ * {@link #step()} runs every {@code period} ticks until {@link #cancel()} is called.
+ */
+public abstract class EffectTask {
+    World world;
+    UUID owner;
+    RPGItem item;
+    EffectEngine.Stats stats;
+    long next;
+    long period;
+    boolean started;
+    boolean cancelled;
+    boolean deferred;
+
+    /**
+     * Runs one step of the effect
+     */
+    public abstract void step();
+
+    /**
+     * @param power  Power casting the effect
+     * @param owner  Entity the effect belongs to, its world groups the effect
+     * @param delay  Ticks before the first step
+     * @param period Ticks between two steps
+     * @return This effect
+     */
+    public final EffectTask start(Power power, Entity owner, long delay, long period) {
+        EffectEngine.instance().schedule(this, power, owner, delay, period);
+        return this;
+    }
+
+    /**
+     * Stops the effect, the current step still completes
+     */
+    public final void cancel() {
+        cancelled = true;
+    }
+
+    public final boolean isCancelled() {
+        return cancelled;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public RPGItem getItem() {
+        return item;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+}
@@ -12,6 +12,9 @@ import think.rpgitems.RPGItems;
 import think.rpgitems.item.RPGItem;
 
 import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Objects;
@@ -37,6 +40,28 @@ public interface Power {
      */
     void save(ConfigurationSection s);
 
+    /**
+     * Writes the full state of this power to an item snapshot, so it can be restored without parsing its configuration.
+     * Powers that do not override this are restored through {@link #init(ConfigurationSection)}.
+     *
+     * @param out Output
+     * @return Whether the state was written
+     * @throws IOException On write error
+     */
+    default boolean writeSnapshot(DataOutput out) throws IOException {
+        return false;
+    }
+
+    /**
+     * Restores the state written by {@link #writeSnapshot(DataOutput)}, in place of {@link #init(ConfigurationSection)}
+     *
+     * @param in Input
+     * @throws IOException On read error or outdated data, the item is then loaded from its file instead
+     */
+    default void readSnapshot(DataInput in) throws IOException {
+        throw new IOException("Snapshot not supported by " + getClass());
+    }
+
     /**
      * Static. NamespacedKey of this power
      *
@@ -130,6 +155,13 @@ public interface Power {
 
     String requiredContext();
 
+    /**
+     * @return Interval in ticks between runs by per tick triggers, phases are staggered between players
+     */
+    default int tickInterval() {
+        return 1;
+    }
+
     default void deinit() {
     }
 
@@ -0,0 +1,150 @@
+package think.rpgitems.power;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import think.rpgitems.item.RPGItem;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Base class for adapters exposing a power through a trigger interface it does not implement.
+ * <p>
+ * Every {@link Power} method is delegated to the adapted power.
+ *
+ * @param <G> General interface of the adapted power
+ */
+public abstract class PowerAdapter<G extends Power> implements Power {
+    protected final G origin;
+
+    protected PowerAdapter(G origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * @return The adapted power
+     */
+    public G getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void init(ConfigurationSection s) {
+        origin.init(s);
+    }
+
+    @Override
+    public void save(ConfigurationSection s) {
+        origin.save(s);
+    }
+
+    @Override
+    public NamespacedKey getNamespacedKey() {
+        return origin.getNamespacedKey();
+    }
+
+    @Override
+    public String getName() {
+        return origin.getName();
+    }
+
+    @Override
+    public String getLocalizedName(String locale) {
+        return origin.getLocalizedName(locale);
+    }
+
+    @Override
+    public String getLocalizedName(Locale locale) {
+        return origin.getLocalizedName(locale);
+    }
+
+    @Override
+    public String displayName() {
+        return origin.displayName();
+    }
+
+    @Override
+    public String getDisplayName() {
+        return origin.getDisplayName();
+    }
+
+    @Override
+    public String displayText() {
+        return origin.displayText();
+    }
+
+    @Override
+    public String localizedDisplayText(String locale) {
+        return origin.localizedDisplayText(locale);
+    }
+
+    @Override
+    public String localizedDisplayText(Locale locale) {
+        return origin.localizedDisplayText(locale);
+    }
+
+    @Override
+    public RPGItem getItem() {
+        return origin.getItem();
+    }
+
+    @Override
+    public void setItem(RPGItem item) {
+        origin.setItem(item);
+    }
+
+    @Override
+    public Set<Trigger> getTriggers() {
+        return origin.getTriggers();
+    }
+
+    @Override
+    public Set<String> getSelectors() {
+        return origin.getSelectors();
+    }
+
+    @Override
+    public Set<String> getConditions() {
+        return origin.getConditions();
+    }
+
+    @Override
+    public String requiredContext() {
+        return origin.requiredContext();
+    }
+
+    @Override
+    public int tickInterval() {
+        return origin.tickInterval();
+    }
+
+    @Override
+    public void deinit() {
+        origin.deinit();
+    }
+
+    @Override
+    public <T extends Power> T cast(Class<T> powerClass) {
+        if (powerClass.isInstance(this)) {
+            return powerClass.cast(this);
+        }
+        return origin.cast(powerClass);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return origin.equals(((PowerAdapter<?>) o).origin);
+    }
+
+    @Override
+    public int hashCode() {
+        return origin.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return origin.toString();
+    }
+}
@@ -7,9 +7,11 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashBiMap;
 import org.bukkit.NamespacedKey;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.Plugin;
 import think.rpgitems.AdminHandler;
 import think.rpgitems.RPGItems;
+import think.rpgitems.power.impl.BasePower;
 
 import javax.annotation.CheckForNull;
 import java.lang.reflect.Field;
@@ -29,6 +31,13 @@ import java.util.stream.Stream;
 public class PowerManager {
     private static final Map<Class<? extends Power>, Map<String, PowerProperty>> properties = new HashMap<>();
 
+    /**
+     * Property binders by power class, in the iteration order of {@link #properties}
+     */
+    private static final Map<Class<? extends Power>, PropertyBinder[]> binders = new HashMap<>();
+
+    private static final Map<Class<? extends Power>, Map<String, PropertyBinder>> bindersByName = new HashMap<>();
+
     private static final Map<Class<? extends Power>, PowerMeta> metas = new HashMap<>();
 
     private static final Map<String, Plugin> extensions = new HashMap<>();
@@ -42,12 +51,33 @@ public class PowerManager {
 
     static final HashBasedTable<Class<? extends Power>, Class<? extends Power>, Function> adapters = HashBasedTable.create();
 
+    /**
+     * Bumped when an adapter is registered, dropping the adapters cached on powers
+     */
+    private static int adapterRevision;
+
+    /**
+     * General interfaces with possible adapters by power class, in preference order
+     */
+    private static final Map<Class<? extends Power>, List<Class<? extends Power>>> adaptablePreferences = new HashMap<>();
+
     private static final HashMap<NamespacedKey, NamespacedKey> overrides = new HashMap<>();
 
+    /**
+     * Powers whose whole state is their properties, so they can be restored from an item snapshot
+     */
+    private static final Set<Class<? extends Power>> snapshotable = new HashSet<>();
+
     private static void registerPower(Class<? extends Power> clazz) {
         NamespacedKey key;
+        Map<String, PowerProperty> properties;
+        Map<String, PropertyBinder> binders = new LinkedHashMap<>();
         try {
             Power p = PowerManager.instantiate(clazz);
+            properties = getPowerProperties(clazz);
+            for (PowerProperty property : properties.values()) {
+                binders.put(property.name(), new PropertyBinder(clazz, property.field(), property));
+            }
             key = p.getNamespacedKey();
             if (key != null) {
                 powers.put(key, clazz);
@@ -57,9 +87,21 @@ public class PowerManager {
             RPGItems.plugin.getLogger().log(Level.WARNING, "With {0}", clazz);
             return;
         }
-        Map<String, PowerProperty> properties = getPowerProperties(clazz);
-        PowerManager.properties.put(clazz, properties);
+        PowerManager.properties.put(clazz, Collections.unmodifiableMap(properties));
+        PowerManager.binders.put(clazz, binders.values().toArray(new PropertyBinder[0]));
+        bindersByName.put(clazz, binders);
         metas.put(clazz, clazz.getAnnotation(PowerMeta.class));
+        if (BasePower.class.isAssignableFrom(clazz) && !overridesInit(clazz) && binders.values().stream().allMatch(PropertyBinder::isSnapshotable)) {
+            snapshotable.add(clazz);
+        }
+    }
+
+    private static boolean overridesInit(Class<? extends Power> clazz) {
+        try {
+            return clazz.getMethod("init", ConfigurationSection.class).getDeclaringClass() != BasePower.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
     }
 
     private static Map<String, PowerProperty> getPowerProperties(Class<? extends Power> cls) {
@@ -127,14 +169,16 @@ public class PowerManager {
     }
 
     public static void setPowerProperty(CommandSender sender, Power power, String field, String value) throws IllegalAccessException {
-        Field f;
         Class<? extends Power> cls = power.getClass();
-        try {
-            f = cls.getField(field);
-        } catch (NoSuchFieldException e) {
-            throw new AdminHandler.CommandException("internal.error.invalid_command_arg", e);//TODO
+        PropertyBinder binder = bindersByName.getOrDefault(cls, Collections.emptyMap()).get(field);
+        if (binder == null) {
+            try {
+                binder = getBinder(cls, cls.getField(field));
+            } catch (NoSuchFieldException e) {
+                throw new AdminHandler.CommandException("internal.error.invalid_command_arg", e);//TODO
+            }
         }
-        Utils.setPowerProperty(sender, power, f, value);
+        binder.set(sender, power, value);
     }
 
     public static List<String> getAcceptedValue(Class<? extends Power> cls, AcceptedValue anno) {
@@ -172,16 +216,41 @@ public class PowerManager {
     }
 
     public static Map<String, PowerProperty>  getProperties(Class<? extends Power> cls) {
-        return Collections.unmodifiableMap(properties.get(cls));
+        return properties.get(cls);
     }
 
     public static Map<String, PowerProperty>  getProperties(NamespacedKey key) {
         return getProperties(powers.get(key));
     }
 
+    /**
+     * @return Binders of all properties of a registered power, shared and not to be modified
+     */
+    public static PropertyBinder[] getBinders(Class<? extends Power> cls) {
+        return binders.get(cls);
+    }
+
+    /**
+     * @return Whether a registered power can be written to an item snapshot through its binders
+     */
+    public static boolean isSnapshotable(Class<? extends Power> cls) {
+        return snapshotable.contains(cls);
+    }
+
+    /**
+     * @return Binder of {@code field}, created on the fly if it is not a property of a registered power
+     */
+    public static PropertyBinder getBinder(Class<? extends Power> cls, Field field) {
+        PropertyBinder binder = bindersByName.getOrDefault(cls, Collections.emptyMap()).get(field.getName());
+        if (binder != null && binder.field().equals(field)) {
+            return binder;
+        }
+        return new PropertyBinder(cls, field, PowerProperty.from(field, field.getAnnotation(Property.class), false));
+    }
+
     @CheckForNull
     public static Class<? extends Power> getPower(NamespacedKey key) {
-        return powers.get(overrides.computeIfAbsent(key, Function.identity()));
+        return powers.get(overrides.getOrDefault(key, key));
     }
 
     public static <T extends Power> T instantiate(Class<T> power) {
@@ -223,12 +292,38 @@ public class PowerManager {
 
     public static <G extends Power, S extends Power> void registerAdapter(Class<G> general, Class<S> specified, Function<G, S> adapter) {
         adapters.put(general, specified, adapter);
+        ++adapterRevision;
     }
 
+    /**
+     * Adapts {@code power} to {@code specified} with a registered adapter.
+     * The adapter is created once per {@link BasePower} instance and kept on it, other powers get a new adapter.
+     *
+     * @param power     Power to adapt
+     * @param specified Interface to adapt to
+     * @param <T>       Interface to adapt to
+     * @return Adapted power
+     * @throws ClassCastException if no adapter applies
+     */
     public static <T extends Power> T adaptPower(Power power, Class<T> specified) {
-        List<Class<? extends Power>> generals = Arrays.asList(getMeta(power.getNamespacedKey()).generalInterface());
-        Set<Class<? extends Power>> statics = Power.getStaticInterfaces(power.getClass());
-        List<Class<? extends Power>> preferences = generals.stream().filter(statics::contains).collect(Collectors.toList());
+        if (!(power instanceof BasePower)) {
+            return createAdapter(power, specified);
+        }
+        Map<Class<? extends Power>, Power> adaptedPowers = ((BasePower) power).getAdapters(adapterRevision);
+        Power adaptedPower = adaptedPowers.get(specified);
+        if (adaptedPower == null) {
+            adaptedPower = createAdapter(power, specified);
+            adaptedPowers.put(specified, adaptedPower);
+        }
+        return specified.cast(adaptedPower);
+    }
+
+    private static <T extends Power> T createAdapter(Power power, Class<T> specified) {
+        List<Class<? extends Power>> preferences = adaptablePreferences.computeIfAbsent(power.getClass(), cls -> {
+            List<Class<? extends Power>> generals = Arrays.asList(getMeta(power.getNamespacedKey()).generalInterface());
+            Set<Class<? extends Power>> statics = Power.getStaticInterfaces(cls);
+            return generals.stream().filter(statics::contains).collect(Collectors.toList());
+        });
 
         for (Class<? extends Power> general : preferences) {
             if (adapters.contains(general, specified)) {
@@ -0,0 +1,63 @@
+package think.rpgitems.power;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.event.player.PlayerToggleSprintEvent;
+import org.bukkit.inventory.ItemStack;
+import think.rpgitems.item.RPGItem;
+
+/**
+ * Adapters firing a {@link PowerPlain} from triggers it does not implement
+ */
+public abstract class PowerPlainAdapter extends PowerAdapter<PowerPlain> {
+
+    protected PowerPlainAdapter(PowerPlain origin) {
+        super(origin);
+    }
+
+    public static class OffhandClick extends PowerPlainAdapter implements PowerOffhandClick {
+        public OffhandClick(PowerPlain origin) {
+            super(origin);
+        }
+
+        @Override
+        public PowerResult<Void> offhandClick(Player player, ItemStack stack, PlayerInteractEvent event) {
+            return origin.fire(player, stack);
+        }
+    }
+
+    public static class Sprint extends PowerPlainAdapter implements PowerSprint {
+        public Sprint(PowerPlain origin) {
+            super(origin);
+        }
+
+        @Override
+        public PowerResult<Void> sprint(Player player, ItemStack stack, PlayerToggleSprintEvent event) {
+            return origin.fire(player, stack);
+        }
+    }
+
+    public static class Sneak extends PowerPlainAdapter implements PowerSneak {
+        public Sneak(PowerPlain origin) {
+            super(origin);
+        }
+
+        @Override
+        public PowerResult<Void> sneak(Player player, ItemStack stack, PlayerToggleSneakEvent event) {
+            return origin.fire(player, stack);
+        }
+    }
+
+    public static class Attachment extends PowerPlainAdapter implements PowerAttachment {
+        public Attachment(PowerPlain origin) {
+            super(origin);
+        }
+
+        @Override
+        public PowerResult<Void> attachment(Player player, ItemStack stack, RPGItem originItem, Event originEvent, ItemStack originStack) {
+            return origin.fire(player, stack);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package think.rpgitems.power;
+
+import cat.nyaa.nyaacore.Message;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import think.rpgitems.AdminHandler;
+import think.rpgitems.I18n;
+import think.rpgitems.utils.MaterialUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Accessor of a power property, resolved once when the power is registered.
+ * <p>
+ * Holds method handles to read and write the field, and the parser and serializer picked for its type,
+ * so loading, saving and the {@code set} command do not inspect the field again for every value.
+ */
+@SuppressWarnings("unchecked")
+public class PropertyBinder {
+    private static final Object SKIP = new Object();
+
+    private final Class<? extends Power> cls;
+    private final Field field;
+    private final PowerProperty property;
+    private final MethodHandle setter;
+    private final MethodHandle getter;
+    private final Parser parser;
+    private final BiFunction<Power, Object, Object> serializer;
+    private final BooleanChoice booleanChoice;
+    private final AcceptedValue acceptedValue;
+    private final Codec codec;
+
+    PropertyBinder(Class<? extends Power> cls, Field field, PowerProperty property) {
+        this.cls = cls;
+        this.field = field;
+        this.property = property;
+        try {
+            field.setAccessible(true);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Power.class, Object.class));
+            getter = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Power.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Inaccessible property " + field, e);
+        }
+        parser = parser(field);
+        serializer = serializer(field);
+        booleanChoice = field.getAnnotation(BooleanChoice.class);
+        acceptedValue = field.getAnnotation(AcceptedValue.class);
+        codec = codec(field);
+    }
+
+    public String name() {
+        return field.getName();
+    }
+
+    public Field field() {
+        return field;
+    }
+
+    /**
+     * @return The property, or {@code null} if the field is not annotated with {@link Property}
+     */
+    public PowerProperty property() {
+        return property;
+    }
+
+    public boolean isItemStack() {
+        return field.getType().isAssignableFrom(ItemStack.class);
+    }
+
+    public Object get(Power power) {
+        try {
+            return (Object) getter.invokeExact(power);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void setValue(Power power, Object value) {
+        try {
+            setter.invokeExact(power, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Sets the property from user input, checking {@link BooleanChoice} and {@link AcceptedValue} first
+     */
+    public void set(CommandSender sender, Power power, String value) {
+        if (booleanChoice != null) {
+            String trueChoice = booleanChoice.trueChoice();
+            String falseChoice = booleanChoice.falseChoice();
+            if (value.equalsIgnoreCase(trueChoice) || value.equalsIgnoreCase(falseChoice)) {
+                setValue(power, value.equalsIgnoreCase(trueChoice));
+            } else {
+                throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), falseChoice + ", " + trueChoice);//TODO
+            }
+            return;
+        }
+        if (acceptedValue != null) {
+            List<String> acc = PowerManager.getAcceptedValue(cls, acceptedValue);
+            if (!Collection.class.isAssignableFrom(field.getType())) {
+                if (!acc.contains(value))
+                    throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), String.join(", ", acc));
+            } else {
+                String[] valueStrs = value.split(",");
+                List<String> values = Arrays.stream(valueStrs).filter(s -> !s.isEmpty()).map(String::trim).collect(Collectors.toList());
+                if (values.stream().filter(s -> !s.isEmpty()).anyMatch(v -> !acc.contains(v))) {
+                    throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), String.join(", ", acc));
+                }
+            }
+        }
+        setUnchecked(sender, power, value);
+    }
+
+    /**
+     * Sets the property from its string representation, as read from the item file
+     */
+    public void setUnchecked(CommandSender sender, Power power, String value) {
+        if (value.equals("null")) {
+            setValue(power, null);
+            return;
+        }
+        Object parsed = parser.parse(sender, power, value);
+        if (parsed != SKIP) {
+            setValue(power, parsed);
+        }
+    }
+
+    /**
+     * Writes the property to {@code section}, nothing if it is {@code null} or an empty collection
+     */
+    public void save(Power power, ConfigurationSection section, String name) {
+        Object val = get(power);
+        if (val == null) return;
+        Object serialized = serializer.apply(power, val);
+        if (serialized != SKIP) {
+            section.set(name, serialized);
+        }
+    }
+
+    /**
+     * @return Whether the property can be written to an item snapshot, which excludes custom (de)serialized and item stack properties
+     */
+    public boolean isSnapshotable() {
+        return codec != null;
+    }
+
+    /**
+     * Writes the property to an item snapshot
+     */
+    public void writeSnapshot(Power power, DataOutput out) throws IOException {
+        Object val = get(power);
+        out.writeBoolean(val != null);
+        if (val != null) {
+            codec.write(out, val);
+        }
+    }
+
+    /**
+     * Restores the property written by {@link #writeSnapshot(Power, DataOutput)}
+     */
+    public void readSnapshot(Power power, DataInput in) throws IOException {
+        setValue(power, in.readBoolean() ? codec.read(in) : null);
+    }
+
+    @FunctionalInterface
+    private interface Parser {
+        Object parse(CommandSender sender, Power power, String value);
+    }
+
+    private static BiFunction<Power, Object, Object> serializer(Field field) {
+        Serializer getter = field.getAnnotation(Serializer.class);
+        Class<?> type = field.getType();
+        if (getter != null) {
+            return (p, val) -> Getter.from(p, getter.value()).get(val);
+        } else if (Collection.class.isAssignableFrom(type)) {
+            boolean sorted = Set.class.isAssignableFrom(type);
+            return (p, val) -> {
+                Collection<?> c = (Collection<?>) val;
+                if (c.isEmpty()) return SKIP;
+                Stream<String> strings = c.stream().map(Object::toString);
+                return (sorted ? strings.sorted() : strings).collect(Collectors.joining(","));
+            };
+        } else if (type.isEnum()) {
+            return (p, val) -> ((Enum<?>) val).name();
+        } else {
+            return (p, val) -> val;
+        }
+    }
+
+    private static Parser parser(Field field) {
+        Deserializer st = field.getAnnotation(Deserializer.class);
+        Class<?> type = field.getType();
+        if (st != null) {
+            return (sender, power, value) -> {
+                try {
+                    Optional<Object> v = Setter.from(power, st.value()).set(value);
+                    return v.isPresent() ? v.get() : SKIP;
+                } catch (IllegalArgumentException e) {
+                    new Message(I18n.format(st.message(), value)).send(sender);
+                    return SKIP;
+                }
+            };
+        } else if (type.equals(int.class) || type.equals(Integer.class)) {
+            return number(Integer::parseInt, "internal.error.bad_int");
+        } else if (type.equals(long.class) || type.equals(Long.class)) {
+            return number(Long::parseLong, "internal.error.bad_int");
+        } else if (type.equals(float.class) || type.equals(Float.class)) {
+            return number(Float::parseFloat, "internal.error.bad_double");
+        } else if (type.equals(double.class) || type.equals(Double.class)) {
+            return number(Double::parseDouble, "internal.error.bad_double");
+        } else if (type.equals(String.class)) {
+            return (sender, power, value) -> value;
+        } else if (type.equals(boolean.class) || type.equals(Boolean.class)) {
+            return (sender, power, value) -> {
+                if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                    return Boolean.valueOf(value);
+                }
+                throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), "true, false");
+            };
+        } else if (type.isEnum()) {
+            return (sender, power, value) -> {
+                try {
+                    return Enum.valueOf((Class<Enum>) type, value);
+                } catch (IllegalArgumentException e) {
+                    throw new AdminHandler.CommandException("internal.error.bad_enum", field.getName(), Stream.of(type.getEnumConstants()).map(Object::toString).collect(Collectors.joining(", ")));
+                }
+            };
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return collection(field);
+        } else if (type == ItemStack.class) {
+            return (sender, power, value) -> {
+                Material m = MaterialUtils.getMaterial(value, sender);
+                ItemStack item;
+                if (sender instanceof Player && value.equalsIgnoreCase("HAND")) {
+                    ItemStack hand = ((Player) sender).getInventory().getItemInMainHand();
+                    if (hand == null || hand.getType() == Material.AIR) {
+                        throw new AdminHandler.CommandException("message.error.iteminhand");
+                    }
+                    item = hand.clone();
+                    item.setAmount(1);
+                } else if (m == null || m == Material.AIR || !m.isItem()) {
+                    throw new AdminHandler.CommandException("message.error.material", value);
+                } else {
+                    item = new ItemStack(m);
+                }
+                return item.clone();
+            };
+        } else {
+            return (sender, power, value) -> {
+                throw new AdminHandler.CommandException("internal.error.invalid_command_arg", power.getName(), field.getName());
+            };
+        }
+    }
+
+    private static Parser number(Function<String, Object> parse, String badNumber) {
+        return (sender, power, value) -> {
+            try {
+                return parse.apply(value);
+            } catch (NumberFormatException e) {
+                throw new AdminHandler.CommandException(badNumber, value);
+            }
+        };
+    }
+
+    private static Parser collection(Field field) {
+        ParameterizedType listType = (ParameterizedType) field.getGenericType();
+        Class<?> listArg = (Class<?>) listType.getActualTypeArguments()[0];
+        boolean list = field.getType().equals(List.class);
+        Function<String, Object> element;
+        if (listArg.isEnum()) {
+            Class<? extends Enum> enumClass = (Class<? extends Enum>) listArg;
+            element = v -> Enum.valueOf(enumClass, v);
+        } else if (listArg.equals(String.class)) {
+            element = v -> v;
+        } else if (listArg.equals(Integer.class)) {
+            element = Integer::parseInt;
+        } else if (listArg.equals(Double.class)) {
+            element = Double::parseDouble;
+        } else if (listArg.equals(Trigger.class) && !list) {
+            return (sender, power, value) -> {
+                Set<String> ignored = new LinkedHashSet<>();
+                Set<Trigger> set = Trigger.getValid(split(value).collect(Collectors.toList()), ignored);
+                if (!ignored.isEmpty()) {
+                    new Message(I18n.format("message.power.ignored_trigger", String.join(", ", ignored), power.getName(), power.getItem().getName())).send(sender);
+                }
+                return set;
+            };
+        } else {
+            return (sender, power, value) -> {
+                throw new AdminHandler.CommandException("internal.error.command_exception");
+            };
+        }
+        if (list) {
+            return (sender, power, value) -> split(value).map(element).collect(Collectors.toList());
+        }
+        return (sender, power, value) -> split(value).map(element).collect(Collectors.toSet());
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutput out, Object value) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Reader {
+        Object read(DataInput in) throws IOException;
+    }
+
+    private static final class Codec {
+        private final Writer writer;
+        private final Reader reader;
+
+        Codec(Writer writer, Reader reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        void write(DataOutput out, Object value) throws IOException {
+            writer.write(out, value);
+        }
+
+        Object read(DataInput in) throws IOException {
+            return reader.read(in);
+        }
+    }
+
+    private static Codec codec(Field field) {
+        if (field.getAnnotation(Serializer.class) != null || field.getAnnotation(Deserializer.class) != null) {
+            return null;
+        }
+        Class<?> type = field.getType();
+        if (Collection.class.isAssignableFrom(type)) {
+            Type generic = field.getGenericType();
+            Type arg = generic instanceof ParameterizedType ? ((ParameterizedType) generic).getActualTypeArguments()[0] : null;
+            Codec element = arg instanceof Class ? elementCodec((Class<?>) arg) : null;
+            if (element == null || !(type.equals(List.class) || type.equals(Set.class))) {
+                return null;
+            }
+            boolean list = type.equals(List.class);
+            return new Codec((out, value) -> {
+                Collection<?> c = (Collection<?>) value;
+                out.writeInt(c.size());
+                for (Object o : c) {
+                    element.write(out, o);
+                }
+            }, in -> {
+                int size = in.readInt();
+                Collection<Object> c = list ? new ArrayList<>(size) : new HashSet<>(size);
+                for (int i = 0; i < size; i++) {
+                    c.add(element.read(in));
+                }
+                return c;
+            });
+        }
+        if (type.equals(int.class) || type.equals(Integer.class)) {
+            return elementCodec(Integer.class);
+        } else if (type.equals(long.class) || type.equals(Long.class)) {
+            return new Codec((out, v) -> out.writeLong((Long) v), DataInput::readLong);
+        } else if (type.equals(float.class) || type.equals(Float.class)) {
+            return new Codec((out, v) -> out.writeFloat((Float) v), DataInput::readFloat);
+        } else if (type.equals(double.class) || type.equals(Double.class)) {
+            return elementCodec(Double.class);
+        } else if (type.equals(boolean.class) || type.equals(Boolean.class)) {
+            return new Codec((out, v) -> out.writeBoolean((Boolean) v), DataInput::readBoolean);
+        }
+        return elementCodec(type);
+    }
+
+    private static Codec elementCodec(Class<?> type) {
+        if (type.equals(Integer.class)) {
+            return new Codec((out, v) -> out.writeInt((Integer) v), DataInput::readInt);
+        } else if (type.equals(Double.class)) {
+            return new Codec((out, v) -> out.writeDouble((Double) v), DataInput::readDouble);
+        } else if (type.equals(String.class)) {
+            return new Codec((out, v) -> writeString(out, (String) v), PropertyBinder::readString);
+        } else if (type.isEnum()) {
+            Class<? extends Enum> enumClass = (Class<? extends Enum>) type;
+            return new Codec((out, v) -> writeString(out, ((Enum<?>) v).name()), in -> {
+                String name = readString(in);
+                try {
+                    return Enum.valueOf(enumClass, name);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unknown " + enumClass.getSimpleName() + " " + name);
+                }
+            });
+        } else if (type.equals(Trigger.class)) {
+            return new Codec((out, v) -> writeString(out, ((Trigger) v).name()), in -> {
+                String name = readString(in);
+                Trigger trigger = Trigger.get(name);
+                if (trigger == null) {
+                    throw new IOException("Unknown trigger " + name);
+                }
+                return trigger;
+            });
+        }
+        return null;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Bad length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Stream<String> split(String value) {
+        return Arrays.stream(value.split(",")).filter(s -> !s.isEmpty()).map(String::trim);
+    }
+}
@@ -21,6 +21,14 @@ public class RPGItemsPowersPostFireEvent<TEvent extends Event, TPower extends Po
         return handlers;
     }
 
+    /**
+     * @return Whether any listener is registered, so the event is worth constructing.
+     * The listener array is cached by the {@link HandlerList} until listeners are (un)registered.
+     */
+    public static boolean hasListeners() {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
     private final TEvent event;
     private final ItemStack itemStack;
     private final RPGItem rpgItem;
@@ -59,6 +59,14 @@ public class RPGItemsPowersPreFireEvent<TEvent extends Event, TPower extends Pow
         return handlers;
     }
 
+    /**
+     * @return Whether any listener is registered, so the event is worth constructing.
+     * The listener array is cached by the {@link HandlerList} until listeners are (un)registered.
+     */
+    public static boolean hasListeners() {
+        return handlers.getRegisteredListeners().length > 0;
+    }
+
     @Override
     public boolean isCancelled() {
         return cancel;
@@ -4,8 +4,13 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
 import org.bukkit.scheduler.BukkitRunnable;
+import think.rpgitems.RPGItems;
 import think.rpgitems.data.Context;
+import think.rpgitems.data.EntityGrid;
+import think.rpgitems.data.ProjectileRegistry;
+import think.rpgitems.item.EquipmentIndex;
 import think.rpgitems.item.ItemManager;
 import think.rpgitems.item.RPGItem;
 
@@ -13,35 +18,53 @@ import java.util.Optional;
 
 /**
  * BukkitRunnable that runs {@link PowerTick#tick(Player, ItemStack)}
+ * <p>
+ * Only players carrying items with per tick or sneaking powers are visited, as told by {@link EquipmentIndex}.
+ * Powers with a {@link Power#tickInterval()} run on every n-th tick, at a phase depending on the player.
  */
 public class Ticker extends BukkitRunnable {
+    private long ticks;
 
     @Override
     public void run() {
         Context.instance().cleanTick();
+        EntityGrid.clear();
+        ProjectileRegistry.instance().tick();
+        EquipmentIndex index = EquipmentIndex.instance();
+        long tick = ++ticks;
+        index.tick(tick, RPGItems.plugin.cfg.equipmentReconcileInterval);
         for (final Player player : Bukkit.getOnlinePlayers()) {
+            if (!index.isTicking(player)) continue;
             if (ItemManager.canUse(player, null, false) == Event.Result.DENY) continue;
-            ItemStack[] armour = player.getInventory().getArmorContents();
-            for (ItemStack part : armour) {
-                Optional<RPGItem> item = ItemManager.toRPGItem(part);
+            PlayerInventory inventory = player.getInventory();
+            int heldSlot = inventory.getHeldItemSlot();
+            for (int slot : index.getSlots(player, Trigger.TICK)) {
+                if (slot < EquipmentIndex.ARMOR_SLOT || slot >= EquipmentIndex.OFFHAND_SLOT) continue;
+                ItemStack part = inventory.getItem(slot);
+                Optional<RPGItem> item = ItemManager.toRPGItem(player, slot, part);
                 if (!item.isPresent())
                     continue;
                 RPGItem rgi = item.get();
-                rgi.power(player, part, null, Trigger.TICK);
+                rgi.tick(player, part, Trigger.TICK, tick);
             }
-            ItemStack itemInMainHand = player.getInventory().getItemInMainHand();
-            ItemStack itemInOffHand = player.getInventory().getItemInOffHand();
-            Optional<RPGItem> offhand = ItemManager.toRPGItem(itemInOffHand);
-            Optional<RPGItem> mainhand = ItemManager.toRPGItem(itemInMainHand);
-            if (mainhand.isPresent()) {
-                mainhand.get().power(player, itemInMainHand, null, Trigger.TICK);
-
-                if (player.isSneaking()) {
-                    mainhand.get().power(player, itemInMainHand, null, Trigger.SNEAKING);
+            boolean mainhandTick = index.hasTrigger(player, heldSlot, Trigger.TICK);
+            boolean mainhandSneaking = player.isSneaking() && index.hasTrigger(player, heldSlot, Trigger.SNEAKING);
+            if (mainhandTick || mainhandSneaking) {
+                ItemStack itemInMainHand = inventory.getItemInMainHand();
+                Optional<RPGItem> mainhand = ItemManager.toRPGItem(player, heldSlot, itemInMainHand);
+                if (mainhand.isPresent()) {
+                    if (mainhandTick) {
+                        mainhand.get().tick(player, itemInMainHand, Trigger.TICK, tick);
+                    }
+                    if (mainhandSneaking) {
+                        mainhand.get().tick(player, itemInMainHand, Trigger.SNEAKING, tick);
+                    }
                 }
             }
-            if (offhand.isPresent()){
-                offhand.get().power(player, itemInOffHand, null, Trigger.TICK_OFFHAND);
+            if (index.hasTrigger(player, EquipmentIndex.OFFHAND_SLOT, Trigger.TICK_OFFHAND)) {
+                ItemStack itemInOffHand = inventory.getItemInOffHand();
+                Optional<RPGItem> offhand = ItemManager.toRPGItem(player, EquipmentIndex.OFFHAND_SLOT, itemInOffHand);
+                offhand.ifPresent(rpgItem -> rpgItem.tick(player, itemInOffHand, Trigger.TICK_OFFHAND, tick));
             }
         }
     }
@@ -1,70 +1,58 @@
 package think.rpgitems.power;
 
-import cat.nyaa.nyaacore.Message;
 import cat.nyaa.nyaacore.Pair;
 import com.google.common.base.Strings;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.permissions.PermissionAttachment;
 import org.bukkit.util.BoundingBox;
 import org.bukkit.util.Vector;
-import think.rpgitems.AdminHandler;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.data.CooldownStore;
+import think.rpgitems.data.EntityGrid;
 import think.rpgitems.data.Font;
+import think.rpgitems.data.PermissionElevation;
 import think.rpgitems.power.impl.PowerSelector;
-import think.rpgitems.utils.MaterialUtils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.ParameterizedType;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class Utils {
 
-    private static Map<String, Long> cooldowns = new HashMap<>();
-
-    private static LoadingCache<String, List<String>> permissionCache = CacheBuilder
-                                                                                .newBuilder()
-                                                                                .concurrencyLevel(1)
-                                                                                .maximumSize(1000)
-                                                                                .build(CacheLoader.from(Utils::parsePermission));
-
-    private static List<String> parsePermission(String str) {
-        return Arrays.asList(str.split(";"));
-    }
-
     public static List<Entity> getNearbyEntities(Power power, Location l, Player player, double radius, double dx, double dy, double dz) {
         List<Entity> entities = new ArrayList<>();
+        Predicate<Entity> selector = selectorOf(power, player);
+        double max = radius * radius;
+        Location location = new Location(null, 0, 0, 0);
         for (Entity e : l.getWorld().getNearbyEntities(l, dx, dy, dz)) {
-            if (l.distance(e.getLocation()) <= radius) {
+            if (l.distanceSquared(e.getLocation(location)) <= max && (selector == null || selector.test(e))) {
                 entities.add(e);
             }
         }
-        power.getItem().getPowers().stream().filter(pow -> pow instanceof PowerSelector).forEach(
-                selector -> {
-                    if (power.getSelectors().contains(((PowerSelector) selector).id())) {
-                        ((PowerSelector) selector).inPlaceFilter(player, entities);
-                    }
-                }
-        );
         return entities;
     }
 
+    /**
+     * @return Conjunction of the selectors of the power, {@code null} if it has none
+     */
+    private static Predicate<Entity> selectorOf(Power power, Player player) {
+        Predicate<Entity> result = null;
+        for (PowerSelector selector : power.getItem().getSelectors(power)) {
+            Predicate<Entity> matcher = selector.matcher(player);
+            result = result == null ? matcher : result.and(matcher);
+        }
+        return result;
+    }
+
     /**
      * Get nearby entities.
      *
@@ -89,19 +77,8 @@ public class Utils {
      * @return nearby living entities ordered by distance
      */
     public static List<LivingEntity> getNearestLivingEntities(Power power, Location l, Player player, double radius, double min) {
-        final List<Map.Entry<LivingEntity, Double>> entities = new ArrayList<>();
-        for (Entity e : getNearbyEntities(power, l, player, radius)) {
-            if (e instanceof LivingEntity && !player.equals(e)) {
-                double d = l.distance(e.getLocation());
-                if (d <= radius && d >= min) {
-                    entities.add(new AbstractMap.SimpleImmutableEntry<>((LivingEntity) e, d));
-                }
-            }
-        }
-        List<LivingEntity> entity = new ArrayList<>();
-        entities.sort(Comparator.comparing(Map.Entry::getValue));
-        entities.forEach((k) -> entity.add(k.getKey()));
-        return entity;
+        Predicate<Entity> selector = selectorOf(power, player);
+        return EntityGrid.of(l.getWorld()).sphere(l, radius, min, e -> !player.equals(e) && (selector == null || selector.test(e)));
     }
 
     /**
@@ -115,15 +92,17 @@ public class Utils {
      */
     public static List<LivingEntity> getLivingEntitiesInCone(List<LivingEntity> entities, org.bukkit.util.Vector startPos, double degrees, org.bukkit.util.Vector direction) {
         List<LivingEntity> newEntities = new LinkedList<>();
-        float relativeAngle = 0;
-        float minAngle = 180;
+        // Compare cosines instead of angles, a larger cosine being a smaller angle
+        double minCos = degrees >= 180 ? -2 : Math.cos(Math.toRadians(degrees));
+        double maxCos = -1;
+        double directionLength = direction.length();
         for (LivingEntity e : entities) {
             org.bukkit.util.Vector relativePosition = e.getEyeLocation().toVector();
             relativePosition.subtract(startPos);
-            relativeAngle = getAngleBetweenVectors(direction, relativePosition);
-            if (relativeAngle > degrees) continue;
-            if (relativeAngle < minAngle) {
-                minAngle = relativeAngle;
+            double relativeCos = relativePosition.dot(direction) / (relativePosition.length() * directionLength);
+            if (relativeCos < minCos) continue;
+            if (relativeCos > maxCos) {
+                maxCos = relativeCos;
                 newEntities.add(0,e);
             } else {
                 newEntities.add(e);
@@ -154,80 +133,69 @@ public class Utils {
      * @return the boolean
      */
     public static boolean checkCooldown(Power power, Player player, long cdTicks, boolean showWarn, boolean showPower) {
-        String key = player.getName() + "." + power.getItem().getUid() + "." + power.getNamespacedKey().toString() + ".cooldown";
+        long key = CooldownStore.instance().key(power.getItem().getUid(), power.getNamespacedKey());
         return checkAndSetCooldown(power, player, cdTicks, showWarn, showPower, key);
     }
 
     public static boolean checkCooldownByString(Power power, Player player, String key, long cdTicks, boolean showWarn, boolean showPower) {
-        String cdKey = player.getName() + "." + power.getItem().getUid() + "." + "key." + key + ".cooldown";
+        long cdKey = CooldownStore.instance().key(power.getItem().getUid(), key);
         return checkAndSetCooldown(power, player, cdTicks, showWarn, showPower, cdKey);
     }
 
-    private static boolean checkAndSetCooldown(Power power, Player player, long cooldownTime, boolean showWarn, boolean showPower, String key) {
-        long cooldown;
-        Long value = cooldowns.get(key);
-        long nowTick = System.currentTimeMillis() / 50;
-        if (value == null) {
-            cooldown = nowTick;
-            cooldowns.put(key, cooldown);
-        } else {
-            cooldown = value;
-        }
-        if (cooldown <= nowTick) {
-            cooldowns.put(key, nowTick + cooldownTime);
+    /**
+     * Get remaining cooldown of a power without starting it.
+     *
+     * @param power  Power
+     * @param player the player
+     * @return remaining ticks, 0 if not cooling down
+     */
+    public static long getCooldown(Power power, Player player) {
+        long key = CooldownStore.instance().key(power.getItem().getUid(), power.getNamespacedKey());
+        return CooldownStore.instance().getRemaining(player.getUniqueId(), key);
+    }
+
+    /**
+     * Get remaining cooldown of a custom key without starting it.
+     *
+     * @param power  Power
+     * @param player the player
+     * @param key    the key used with {@link #checkCooldownByString}
+     * @return remaining ticks, 0 if not cooling down
+     */
+    public static long getCooldownByString(Power power, Player player, String key) {
+        long cdKey = CooldownStore.instance().key(power.getItem().getUid(), key);
+        return CooldownStore.instance().getRemaining(player.getUniqueId(), cdKey);
+    }
+
+    private static boolean checkAndSetCooldown(Power power, Player player, long cooldownTime, boolean showWarn, boolean showPower, long key) {
+        long remaining = CooldownStore.instance().acquire(player.getUniqueId(), key, cooldownTime);
+        if (remaining == 0) {
             return true;
         } else {
             if (showWarn) {
                 if (showPower || (!Strings.isNullOrEmpty(power.displayName()) && !power.displayName().equals(power.getLocalizedName(RPGItems.plugin.cfg.language)))) {
-                    player.sendMessage(I18n.format("message.cooldown.power", ((double) (cooldown - nowTick)) / 20d, power.getDisplayName()));
+                    player.sendMessage(I18n.format("message.cooldown.power", ((double) remaining) / 20d, power.getDisplayName()));
                 } else {
-                    player.sendMessage(I18n.format("message.cooldown.general", ((double) (cooldown - nowTick)) / 20d));
+                    player.sendMessage(I18n.format("message.cooldown.general", ((double) remaining) / 20d));
                 }
             }
             return false;
         }
     }
 
+    /**
+     * Grants the permissions until the next tick
+     *
+     * @deprecated Use a scoped {@link PermissionElevation#grant(Player, String)}
+     */
+    @Deprecated
     public static void attachPermission(Player player, String permissions) {
-        if (permissions.length() != 0 && !permissions.equals("*")) {
-            List<String> permissionList = permissionCache.getUnchecked(permissions);
-            for (String permission : permissionList) {
-                if (player.hasPermission(permission)) {
-                    return;
-                }
-                PermissionAttachment attachment = player.addAttachment(RPGItems.plugin, 1);
-                String[] perms = permission.split("\\.");
-                StringBuilder p = new StringBuilder();
-                for (String perm : perms) {
-                    p.append(perm);
-                    attachment.setPermission(p.toString(), true);
-                    p.append('.');
-                }
-            }
-        }
+        PermissionElevation.instance().grant(player, permissions).close();
     }
 
     @SuppressWarnings("unchecked")
     public static void saveProperty(Power p, ConfigurationSection section, String property, Field field) throws IllegalAccessException {
-        Serializer getter = field.getAnnotation(Serializer.class);
-        Object val = field.get(p);
-        if (val == null) return;
-        if (getter != null) {
-            section.set(property, Getter.from(p, getter.value()).get(val));
-        } else {
-            if (Collection.class.isAssignableFrom(field.getType())) {
-                Collection c = (Collection) val;
-                if (c.isEmpty()) return;
-                if (Set.class.isAssignableFrom(field.getType())) {
-                    section.set(property, c.stream().map(Object::toString).sorted().collect(Collectors.joining(",")));
-                } else {
-                    section.set(property, c.stream().map(Object::toString).collect(Collectors.joining(",")));
-                }
-            } else {
-                val = field.getType().isEnum() ? ((Enum<?>) val).name() : val;
-                section.set(property, val);
-            }
-        }
+        PowerManager.getBinder(p.getClass(), field).save(p, section, property);
     }
 
     public static String getProperty(Power p, String property, Field field) {
@@ -387,16 +355,16 @@ public class Utils {
         if (words.size() <= 0) return Collections.emptyList();
 
         for (String str : words) {
-            int len = getStringWidth(ChatColor.stripColor(str));
+            int len = Font.getStringWidth(str);
             if (len > maxwidth) maxwidth = len;
         }
 
         List<String> ans = new ArrayList<>();
-        int idx = 0, currlen = getStringWidth(ChatColor.stripColor(words.get(0)));
+        int idx = 0, currlen = Font.getStringWidth(words.get(0));
         ans.add(words.remove(0));
         while (words.size() > 0) {
             String tmp = words.remove(0);
-            int word_len = getStringWidth(ChatColor.stripColor(tmp));
+            int word_len = Font.getStringWidth(tmp);
             if (currlen + 4 + word_len <= maxwidth) {
                 currlen += 4 + word_len;
                 ans.set(idx, ans.get(idx) + " " + tmp);
@@ -417,7 +385,7 @@ public class Utils {
         int width = 0;
         for (int i = 0; i < str.length(); i++) {
             char c = str.charAt(i);
-            width += Font.widths[c] + 1;
+            width += Font.charWidth(c) + 1;
         }
         return width;
     }
@@ -441,165 +409,13 @@ public class Utils {
         return (format == null ? "" : format);
     }
 
-    @SuppressWarnings("unchecked")
     public static void setPowerPropertyUnchecked(CommandSender sender, Power power, Field field, String value) {
-        try {
-            if (value.equals("null")) {
-                field.set(power, null);
-                return;
-            }
-            Deserializer st = field.getAnnotation(Deserializer.class);
-            field.setAccessible(true);
-            if (st != null) {
-                try {
-                    Optional<Object> v = Setter.from(power, st.value()).set(value);
-                    if (!v.isPresent()) return;
-                    field.set(power, v.get());
-                } catch (IllegalArgumentException e) {
-                    new Message(I18n.format(st.message(), value)).send(sender);
-                }
-            } else {
-                if (field.getType().equals(int.class) || field.getType().equals(Integer.class)) {
-                    try {
-                        field.set(power, Integer.parseInt(value));
-                    } catch (NumberFormatException e) {
-                        throw new AdminHandler.CommandException("internal.error.bad_int", value);
-                    }
-                } else if (field.getType().equals(long.class) || field.getType().equals(Long.class)) {
-                    try {
-                        field.set(power, Long.parseLong(value));
-                    } catch (NumberFormatException e) {
-                        throw new AdminHandler.CommandException("internal.error.bad_int", value);
-                    }
-                } else if (field.getType().equals(float.class) || field.getType().equals(Float.class)) {
-                    try {
-                        field.set(power, Float.parseFloat(value));
-                    } catch (NumberFormatException e) {
-                        throw new AdminHandler.CommandException("internal.error.bad_double", value);
-                    }
-                } else if (field.getType().equals(double.class) || field.getType().equals(Double.class)) {
-                    try {
-                        field.set(power, Double.parseDouble(value));
-                    } catch (NumberFormatException e) {
-                        throw new AdminHandler.CommandException("internal.error.bad_double", value);
-                    }
-                } else if (field.getType().equals(String.class)) {
-                    field.set(power, value);
-                } else if (field.getType().equals(boolean.class) || field.getType().equals(Boolean.class)) {
-                    if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
-                        field.set(power, Boolean.valueOf(value));
-                    } else {
-                        throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), "true, false");
-                    }
-                } else if (field.getType().isEnum()) {
-                    try {
-                        field.set(power, Enum.valueOf((Class<Enum>) field.getType(), value));
-                    } catch (IllegalArgumentException e) {
-                        throw new AdminHandler.CommandException("internal.error.bad_enum", field.getName(), Stream.of(field.getType().getEnumConstants()).map(Object::toString).collect(Collectors.joining(", ")));
-                    }
-                } else if (Collection.class.isAssignableFrom(field.getType())) {
-                    ParameterizedType listType = (ParameterizedType) field.getGenericType();
-                    Class<?> listArg = (Class<?>) listType.getActualTypeArguments()[0];
-                    String[] valueStrs = value.split(",");
-                    Stream<String> values = Arrays.stream(valueStrs).filter(s -> !s.isEmpty()).map(String::trim);
-                    if (field.getType().equals(List.class)) {
-                        if (listArg.isEnum()) {
-                            Class<? extends Enum> enumClass = (Class<? extends Enum>) listArg;
-                            Stream<Enum> enumStream = values.map(v -> Enum.valueOf(enumClass, v));
-                            List<Enum> list = enumStream.collect(Collectors.toList());
-                            field.set(power, list);
-                        } else if (listArg.equals(String.class)) {
-                            List<String> list = values.collect(Collectors.toList());
-                            field.set(power, list);
-                        } else if (listArg.equals(Integer.class)) {
-                            List<Integer> list = values.map(Integer::parseInt).collect(Collectors.toList());
-                            field.set(power, list);
-                        } else if (listArg.equals(Double.class)) {
-                            List<Double> list = values.map(Double::parseDouble).collect(Collectors.toList());
-                            field.set(power, list);
-                        } else {
-                            throw new AdminHandler.CommandException("internal.error.command_exception");
-                        }
-                    } else {
-                        if (listArg.isEnum()) {
-                            Class<? extends Enum> enumClass = (Class<? extends Enum>) listArg;
-                            Stream<Enum> enumStream = values.map(v -> Enum.valueOf(enumClass, v));
-                            Set<Enum> set = enumStream.collect(Collectors.toSet());
-                            field.set(power, set);
-                        } else if (listArg.equals(String.class)) {
-                            Set<String> set = values.collect(Collectors.toSet());
-                            field.set(power, set);
-                        } else if (listArg.equals(Trigger.class)) {
-                            Set<String> ignored = new LinkedHashSet<>();
-                            Set<Trigger> set = Trigger.getValid(values.collect(Collectors.toList()), ignored);
-                            if (!ignored.isEmpty()) {
-                                new Message(I18n.format("message.power.ignored_trigger", String.join(", ", ignored), power.getName(), power.getItem().getName())).send(sender);
-                            }
-                            field.set(power, set);
-                        } else if (listArg.equals(Integer.class)) {
-                            Set<Integer> list = values.map(Integer::parseInt).collect(Collectors.toSet());
-                            field.set(power, list);
-                        } else if (listArg.equals(Double.class)) {
-                            Set<Double> list = values.map(Double::parseDouble).collect(Collectors.toSet());
-                            field.set(power, list);
-                        } else {
-                            throw new AdminHandler.CommandException("internal.error.command_exception");
-                        }
-                    }
-                } else if (field.getType() == ItemStack.class) {
-                    Material m = MaterialUtils.getMaterial(value, sender);
-                    ItemStack item;
-                    if (sender instanceof Player && value.equalsIgnoreCase("HAND")) {
-                        ItemStack hand = ((Player) sender).getInventory().getItemInMainHand();
-                        if (hand == null || hand.getType() == Material.AIR) {
-                            throw new AdminHandler.CommandException("message.error.iteminhand");
-                        }
-                        item = hand.clone();
-                        item.setAmount(1);
-                    } else if (m == null || m == Material.AIR || !m.isItem()) {
-                        throw new AdminHandler.CommandException("message.error.material", value);
-                    } else {
-                        item = new ItemStack(m);
-                    }
-                    field.set(power, item.clone());
-                } else {
-                    throw new AdminHandler.CommandException("internal.error.invalid_command_arg", power.getName(), field.getName());
-                }
-            }
-        } catch (IllegalAccessException e) {
-            throw new AdminHandler.CommandException("internal.error.command_exception", e);
-        }
+        PowerManager.getBinder(power.getClass(), field).setUnchecked(sender, power, value);
     }
 
     public static void setPowerProperty(CommandSender sender, Power power, Field field, String value) throws
             IllegalAccessException {
-        Class<? extends Power> cls = power.getClass();
-        BooleanChoice bc = field.getAnnotation(BooleanChoice.class);
-        if (bc != null) {
-            String trueChoice = bc.trueChoice();
-            String falseChoice = bc.falseChoice();
-            if (value.equalsIgnoreCase(trueChoice) || value.equalsIgnoreCase(falseChoice)) {
-                field.set(power, value.equalsIgnoreCase(trueChoice));
-            } else {
-                throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), falseChoice + ", " + trueChoice);//TODO
-            }
-            return;
-        }
-        AcceptedValue as = field.getAnnotation(AcceptedValue.class);
-        if (as != null) {
-            List<String> acc = PowerManager.getAcceptedValue(cls, as);
-            if (!Collection.class.isAssignableFrom(field.getType())) {
-                if (!acc.contains(value))
-                    throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), String.join(", ", acc));
-            } else {
-                String[] valueStrs = value.split(",");
-                List<String> values = Arrays.stream(valueStrs).filter(s -> !s.isEmpty()).map(String::trim).collect(Collectors.toList());
-                if (values.stream().filter(s -> !s.isEmpty()).anyMatch(v -> !acc.contains(v))) {
-                    throw new AdminHandler.CommandException("message.error.invalid_option", value, field.getName(), String.join(", ", acc));
-                }
-            }
-        }
-        setPowerPropertyUnchecked(sender, power, field, value);
+        PowerManager.getBinder(power.getClass(), field).set(sender, power, value);
     }
 
     public static byte[] decodeUUID(UUID complex) {
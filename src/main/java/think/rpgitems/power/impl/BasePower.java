@@ -9,8 +9,10 @@ import think.rpgitems.RPGItems;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Field;
 import java.util.*;
 
 /**
@@ -19,6 +21,9 @@ import java.util.*;
 public abstract class BasePower implements Serializable, Power {
     RPGItem item;
 
+    private transient Map<Class<? extends Power>, Power> adapters;
+    private transient int adapterRevision;
+
     @Property
     public String displayName;
 
@@ -35,6 +40,9 @@ public abstract class BasePower implements Serializable, Power {
     @Property
     public String requiredContext;
 
+    @Property
+    public Integer tickInterval;
+
     @Override
     public RPGItem getItem() {
         return item;
@@ -47,49 +55,35 @@ public abstract class BasePower implements Serializable, Power {
 
     @Override
     public void save(ConfigurationSection section) {
-        Map<String, PowerProperty> properties = PowerManager.getProperties(this.getClass());
         PowerMeta powerMeta = this.getClass().getAnnotation(PowerMeta.class);
 
-        for (Map.Entry<String, PowerProperty> entry : properties.entrySet()) {
-            String name = entry.getKey();
-            PowerProperty property = entry.getValue();
-            Field field = property.field();
+        for (PropertyBinder binder : PowerManager.getBinders(this.getClass())) {
+            String name = binder.name();
             if (name.equals("triggers") && powerMeta.immutableTrigger()) {
                 continue;
             }
-            try {
-                Utils.saveProperty(this, section, name, field);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException(e);
-            }
+            binder.save(this, section, name);
         }
     }
 
     @Override
     public void init(ConfigurationSection section) {
         PowerMeta powerMeta = this.getClass().getAnnotation(PowerMeta.class);
-        Map<String, PowerProperty> properties = PowerManager.getProperties(this.getClass());
-        for (Map.Entry<String, PowerProperty> entry : properties.entrySet()) {
-            String name = entry.getKey();
-            PowerProperty property = entry.getValue();
-            Field field = property.field();
+        for (PropertyBinder binder : PowerManager.getBinders(this.getClass())) {
+            String name = binder.name();
             if (name.equals("triggers") && powerMeta.immutableTrigger()) {
                 continue;
             }
-            if (field.getType().isAssignableFrom(ItemStack.class)) {
+            if (binder.isItemStack()) {
                 ItemStack itemStack = section.getItemStack(name);
                 if (itemStack != null) {
-                    try {
-                        field.set(this, itemStack);
-                        continue;
-                    } catch (IllegalAccessException e) {
-                        throw new RuntimeException(e);
-                    }
+                    binder.setValue(this, itemStack);
+                    continue;
                 }
             }
             String value = section.getString(name);
             if (value == null) {
-                for (String alias : property.alias()) {
+                for (String alias : binder.property().alias()) {
                     value = section.getString(alias);
                     if (value != null) break;
                 }
@@ -98,8 +92,43 @@ public abstract class BasePower implements Serializable, Power {
                 value = section.getString("consumption");
             }
             if (value != null) {
-                Utils.setPowerPropertyUnchecked(Bukkit.getConsoleSender(), this, field, value);
+                binder.setUnchecked(Bukkit.getConsoleSender(), this, value);
+            }
+        }
+    }
+
+    /**
+     * Writes every property through its binder, unless the power overrides {@link #init(ConfigurationSection)}
+     * or has a property without a snapshot form
+     */
+    @Override
+    public boolean writeSnapshot(DataOutput out) throws IOException {
+        if (!PowerManager.isSnapshotable(this.getClass())) {
+            return false;
+        }
+        PropertyBinder[] binders = PowerManager.getBinders(this.getClass());
+        out.writeInt(binders.length);
+        for (PropertyBinder binder : binders) {
+            out.writeUTF(binder.name());
+            binder.writeSnapshot(this, out);
+        }
+        return true;
+    }
+
+    @Override
+    public void readSnapshot(DataInput in) throws IOException {
+        if (!PowerManager.isSnapshotable(this.getClass())) {
+            throw new IOException("Snapshot not supported by " + getName());
+        }
+        PropertyBinder[] binders = PowerManager.getBinders(this.getClass());
+        if (in.readInt() != binders.length) {
+            throw new IOException("Outdated snapshot of " + getName());
+        }
+        for (PropertyBinder binder : binders) {
+            if (!in.readUTF().equals(binder.name())) {
+                throw new IOException("Outdated snapshot of " + getName());
             }
+            binder.readSnapshot(this, in);
         }
     }
 
@@ -137,4 +166,24 @@ public abstract class BasePower implements Serializable, Power {
     public String requiredContext() {
         return requiredContext;
     }
+
+    @Override
+    public int tickInterval() {
+        return tickInterval == null ? 1 : Math.max(1, tickInterval);
+    }
+
+    /**
+     * Adapters of this power by adapted interface, filled by {@link PowerManager#adaptPower(Power, Class)}.
+     * Kept on the power so they are collected with it.
+     *
+     * @param revision Current adapter revision, older adapters are dropped
+     * @return Mutable map of adapters
+     */
+    public Map<Class<? extends Power>, Power> getAdapters(int revision) {
+        if (adapters == null || adapterRevision != revision) {
+            adapters = new HashMap<>(4);
+            adapterRevision = revision;
+        }
+        return adapters;
+    }
 }
@@ -6,6 +6,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
+import think.rpgitems.data.PermissionElevation;
 import think.rpgitems.power.*;
 
 import java.util.List;
@@ -81,9 +82,10 @@ public class PowerAOECommand extends PowerCommand implements PowerHit {
         if (!getItem().consumeDurability(stack, cost)) return PowerResult.cost();
         if (!player.isOnline()) return PowerResult.noop();
 
-        attachPermission(player, permission);
+        PermissionElevation.Grant grant = PermissionElevation.instance().grant(player, permission);
 
-        String usercmd = handlePlayerPlaceHolder(player, command);
+        CommandTemplate template = getTemplate();
+        CommandTemplate.Context context = new CommandTemplate.Context(player);
 
         boolean wasOp = player.isOp();
         try {
@@ -97,7 +99,6 @@ public class PowerAOECommand extends PowerCommand implements PowerHit {
                 List<LivingEntity> ent = getLivingEntitiesInCone(nearbyEntities, player.getEyeLocation().toVector(), facing, player.getEyeLocation().getDirection());
                 LivingEntity[] entities = ent.toArray(new LivingEntity[0]);
                 for (int i = 0; i < count && i < entities.length; ++i) {
-                    String cmd = usercmd;
                     LivingEntity e = entities[i];
                     if ((mustsee && !player.hasLineOfSight(e))
                                 || (!selfapplication && e == player)
@@ -107,13 +108,13 @@ public class PowerAOECommand extends PowerCommand implements PowerHit {
                         ++count;
                         continue;
                     }
-                    cmd = PowerCommandHit.handleEntityPlaceHolder(e, cmd);
-                    Bukkit.getServer().dispatchCommand(player, cmd);
+                    Bukkit.getServer().dispatchCommand(player, template.render(context.entity(e)));
                 }
             }
         } finally {
             if (permission.equals("*"))
                 player.setOp(wasOp);
+            grant.close();
         }
 
         return PowerResult.ok();
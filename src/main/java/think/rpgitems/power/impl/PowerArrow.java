@@ -50,7 +50,7 @@ public class PowerArrow extends BasePower implements PowerRightClick, PowerLeftC
         Events.registerRPGProjectile(this.getItem(), stack, player);
         Arrow arrow = player.launchProjectile(Arrow.class);
         arrow.setPickupStatus(Arrow.PickupStatus.DISALLOWED);
-        Events.autoRemoveProjectile(arrow.getEntityId());
+        Events.autoRemoveProjectile(arrow);
         arrow.setPersistent(false);
         return PowerResult.ok();
     }
@@ -6,10 +6,8 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import think.rpgitems.I18n;
-import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
 
 import java.util.List;
@@ -126,18 +124,18 @@ public class PowerAttract extends BasePower implements PowerTick, PowerLeftClick
     public PowerResult<Void> fire(Player player, ItemStack stack) {
         if (!checkCooldown(this, player, cooldown, true, true)) return PowerResult.cd();
         if (!item.consumeDurability(stack, cost)) return PowerResult.cost();
-        new BukkitRunnable() {
+        new EffectTask() {
             int dur = duration;
 
             @Override
-            public void run() {
+            public void step() {
                 if (--dur <= 0) {
                     this.cancel();
                     return;
                 }
                 attract(player, stack);
             }
-        }.runTaskTimer(RPGItem.getPlugin(), 0, 1);
+        }.start(this, player, 0, 1);
         return PowerResult.ok();
     }
 }
@@ -16,6 +16,7 @@ import org.bukkit.util.Vector;
 import org.librazy.nclangchecker.LangKey;
 import think.rpgitems.RPGItems;
 import think.rpgitems.data.Context;
+import think.rpgitems.data.EntityGrid;
 import think.rpgitems.power.*;
 
 import java.util.*;
@@ -148,8 +149,8 @@ public class PowerBeam extends BasePower implements PowerRightClick, PowerLeftCl
             particleSpawnLocation.add(temp.clone());
         }
 
-        List<Entity> nearbyEntities = from.getNearbyEntities(actualLength, actualLength, actualLength).stream()
-                                          .filter(entity -> entity instanceof LivingEntity)
+        List<Entity> nearbyEntities = EntityGrid.of(from.getWorld()).box(from.getLocation(), actualLength, actualLength, actualLength, entity -> !from.equals(entity)).stream()
+                                          .map(entity -> (Entity) entity)
                                           //mobs in front of player
                                           .filter(entity -> entity.getLocation().subtract(fromLocation).toVector().angle(towards) < (Math.PI / 4))
                                           .sorted((o1, o2) -> {
@@ -163,7 +164,7 @@ public class PowerBeam extends BasePower implements PowerRightClick, PowerLeftCl
                 new PlainTask(from, particle, particleSpawnLocation, apS, nearbyEntities).runTask(RPGItems.plugin);
                 break;
             case PROJECTILE:
-                new MovingTask(from, particle, particleSpawnLocation, apS, actualMovementTicks, nearbyEntities).runTask(RPGItems.plugin);
+                new MovingTask(from, particle, particleSpawnLocation, apS, actualMovementTicks, nearbyEntities).start(this, from, 1, 1);
                 break;
         }
         return PowerResult.ok();
@@ -275,14 +276,16 @@ public class PowerBeam extends BasePower implements PowerRightClick, PowerLeftCl
         ;
     }
 
-    private class MovingTask extends BukkitRunnable {
+    private class MovingTask extends EffectTask {
         private final LivingEntity from;
         private final Particle particle;
         private final List<Location> particleSpawnLocation;
         private final int amountPerSec;
         private final int ticks;
         private final List<Entity> nearbyEntities;
-        private final List<BukkitRunnable> runnables = new LinkedList<>();
+        private final int spS;
+        private final Iterator<Location> iterator;
+        private int tick;
 
         public MovingTask(LivingEntity from, Particle particle, List<Location> particleSpawnLocation, int amountPerSec, int ticks, List<Entity> nearbyEntities) {
             this.from = from;
@@ -291,45 +294,41 @@ public class PowerBeam extends BasePower implements PowerRightClick, PowerLeftCl
             this.amountPerSec = amountPerSec;
             this.ticks = ticks;
             this.nearbyEntities = nearbyEntities;
+            this.spS = (int) Math.ceil(((double) particleSpawnLocation.size()) / ((double) ticks));
+            this.iterator = particleSpawnLocation.iterator();
         }
 
         @Override
-        public void run() {
-            if (particleSpawnLocation.isEmpty()) return;
-            Location location = particleSpawnLocation.get(0);
-            World world = location.getWorld();
-            if (world == null) return;
-            int size = particleSpawnLocation.size();
-            int spS = (int) Math.ceil(((double) size) / ((double) ticks));
-            Iterator<Location> iterator = particleSpawnLocation.iterator();
-            for (int i = 0; i < ticks; i++) {
-                BukkitRunnable bukkitRunnable = new BukkitRunnable() {
-                    @Override
-                    public void run() {
-                        Location lastLocation = particleSpawnLocation.get(0);
-                        for (int j = 0; j < spS; j++) {
-                            boolean isHit = false;
-                            if (!iterator.hasNext()) return;
-                            Location loc = iterator.next();
-                            if (!loc.equals(lastLocation)) {
-                                Vector step = loc.toVector().subtract(lastLocation.toVector()).multiply(0.25);
-                                for (int i = 0; i < 4; i++) {
-                                    isHit = tryHit(from, lastLocation, nearbyEntities) || isHit;
-                                    spawnParticle(from, world, lastLocation, amountPerSec / 4);
-                                    lastLocation.add(step);
-                                }
-                            }
-                            if (isHit) {
-                                if (!runnables.isEmpty()) {
-                                    runnables.forEach(BukkitRunnable::cancel);
-                                }
-                                return;
-                            }
-                        }
+        public void step() {
+            if (particleSpawnLocation.isEmpty() || tick++ >= ticks) {
+                cancel();
+                return;
+            }
+            Location lastLocation = particleSpawnLocation.get(0);
+            World world = lastLocation.getWorld();
+            if (world == null) {
+                cancel();
+                return;
+            }
+            for (int j = 0; j < spS; j++) {
+                boolean isHit = false;
+                if (!iterator.hasNext()) {
+                    cancel();
+                    return;
+                }
+                Location loc = iterator.next();
+                if (!loc.equals(lastLocation)) {
+                    Vector step = loc.toVector().subtract(lastLocation.toVector()).multiply(0.25);
+                    for (int i = 0; i < 4; i++) {
+                        isHit = tryHit(from, lastLocation, nearbyEntities) || isHit;
+                        spawnParticle(from, world, lastLocation, amountPerSec / 4);
+                        lastLocation.add(step);
                     }
-                };
-                runnables.add(bukkitRunnable);
-                bukkitRunnable.runTaskLater(RPGItems.plugin, i);
+                }
+                if (isHit) {
+                    cancel();
+                    return;
+                }
             }
         }
     }
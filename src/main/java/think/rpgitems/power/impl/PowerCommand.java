@@ -10,11 +10,11 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.event.player.PlayerToggleSprintEvent;
 import org.bukkit.inventory.ItemStack;
+import think.rpgitems.data.PermissionElevation;
 import think.rpgitems.power.*;
 
 import java.util.Collections;
 
-import static think.rpgitems.power.Utils.attachPermission;
 import static think.rpgitems.power.Utils.checkCooldownByString;
 
 /**
@@ -59,6 +59,8 @@ public class PowerCommand extends BasePower implements PowerRightClick, PowerLef
     @Property
     public boolean requireHurtByEntity = true;
 
+    private CommandTemplate template;
+
     @Override
     public void init(ConfigurationSection section) {
         if (section.isBoolean("isRight")) {
@@ -66,6 +68,18 @@ public class PowerCommand extends BasePower implements PowerRightClick, PowerLef
             triggers = Collections.singleton(isRight ? Trigger.RIGHT_CLICK : Trigger.LEFT_CLICK);
         }
         super.init(section);
+        template = CommandTemplate.compile(command);
+    }
+
+    /**
+     * @return {@link #command} parsed, parsed again if it was changed after {@link #init}
+     */
+    protected CommandTemplate getTemplate() {
+        CommandTemplate current = template;
+        if (current == null || !current.getSource().equals(command)) {
+            current = template = CommandTemplate.compile(command);
+        }
+        return current;
     }
 
     @Override
@@ -90,38 +104,35 @@ public class PowerCommand extends BasePower implements PowerRightClick, PowerLef
     protected PowerResult<Void> executeCommand(Player player) {
         if (!player.isOnline()) return PowerResult.noop();
 
-        String cmd = handlePlayerPlaceHolder(player, command);
+        String cmd = getTemplate().render(new CommandTemplate.Context(player));
         if (permission.equals("console")) {
             Bukkit.dispatchCommand(Bukkit.getConsoleSender(), cmd);
         } else {
             boolean wasOp = player.isOp();
-            attachPermission(player, permission);
-            if (permission.equals("*")) {
-                try {
-                    player.setOp(true);
-                    player.performCommand(cmd);
-                } finally {
-                    if (!wasOp) {
-                        player.setOp(false);
+            try (PermissionElevation.Grant ignored = PermissionElevation.instance().grant(player, permission)) {
+                if (permission.equals("*")) {
+                    try {
+                        player.setOp(true);
+                        player.performCommand(cmd);
+                    } finally {
+                        if (!wasOp) {
+                            player.setOp(false);
+                        }
                     }
+                } else {
+                    player.performCommand(cmd);
                 }
-            } else {
-                player.performCommand(cmd);
             }
         }
         return PowerResult.ok();
     }
 
+    /**
+     * @deprecated Parses {@code cmd} on every call, use a {@link CommandTemplate}
+     */
+    @Deprecated
     public static String handlePlayerPlaceHolder(Player player, String cmd) {
-        cmd = cmd.replaceAll("\\{player}", player.getName());
-        cmd = cmd.replaceAll("\\{player\\.x}", Float.toString(-player.getLocation().getBlockX()));
-        cmd = cmd.replaceAll("\\{player\\.y}", Float.toString(-player.getLocation().getBlockY()));
-        cmd = cmd.replaceAll("\\{player\\.z}", Float.toString(-player.getLocation().getBlockZ()));
-        cmd = cmd.replaceAll("\\{player\\.yaw}", Float.toString(90 + player.getEyeLocation().getYaw()));
-        cmd = cmd.replaceAll("\\{player\\.pitch}", Float.toString(-player.getEyeLocation().getPitch()));
-        cmd = cmd.replaceAll("\\{yaw}", Float.toString(player.getLocation().getYaw() + 90));
-        cmd = cmd.replaceAll("\\{pitch}", Float.toString(-player.getLocation().getPitch()));
-        return cmd;
+        return CommandTemplate.compile(cmd).render(new CommandTemplate.Context(player));
     }
 
     @Override
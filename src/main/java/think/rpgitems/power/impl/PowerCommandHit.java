@@ -5,9 +5,9 @@ import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.inventory.ItemStack;
+import think.rpgitems.data.PermissionElevation;
 import think.rpgitems.power.*;
 
-import static think.rpgitems.power.Utils.attachPermission;
 import static think.rpgitems.power.Utils.checkCooldownByString;
 
 
@@ -39,37 +39,29 @@ public class PowerCommandHit extends PowerCommand implements PowerHit, PowerLivi
     protected PowerResult<Void> executeCommand(Player player, LivingEntity e, double damage) {
         if (!player.isOnline()) return PowerResult.noop();
 
-        attachPermission(player, permission);
+        PermissionElevation.Grant grant = PermissionElevation.instance().grant(player, permission);
         boolean wasOp = player.isOp();
         try {
             if (permission.equals("*"))
                 player.setOp(true);
 
-            String cmd = command;
-
-            cmd = handleEntityPlaceHolder(e, cmd);
-
-            cmd = handlePlayerPlaceHolder(player, cmd);
-
-            cmd = cmd.replaceAll("\\{damage}", String.valueOf(damage));
+            String cmd = getTemplate().render(new CommandTemplate.Context(player).entity(e).damage(damage));
 
             boolean result = player.performCommand(cmd);
             return result ? PowerResult.ok() : PowerResult.fail();
         } finally {
             if (permission.equals("*"))
                 player.setOp(wasOp);
+            grant.close();
         }
     }
 
+    /**
+     * @deprecated Parses {@code cmd} on every call, use a {@link CommandTemplate}
+     */
+    @Deprecated
     public static String handleEntityPlaceHolder(LivingEntity e, String cmd) {
-        cmd = cmd.replaceAll("\\{entity}", e.getName());
-        cmd = cmd.replaceAll("\\{entity\\.uuid}", e.getUniqueId().toString());
-        cmd = cmd.replaceAll("\\{entity\\.x}", Float.toString(e.getLocation().getBlockX()));
-        cmd = cmd.replaceAll("\\{entity\\.y}", Float.toString(e.getLocation().getBlockY()));
-        cmd = cmd.replaceAll("\\{entity\\.z}", Float.toString(e.getLocation().getBlockZ()));
-        cmd = cmd.replaceAll("\\{entity\\.yaw}", Float.toString(90 + e.getEyeLocation().getYaw()));
-        cmd = cmd.replaceAll("\\{entity\\.pitch}", Float.toString(-e.getEyeLocation().getPitch()));
-        return cmd;
+        return CommandTemplate.compile(cmd).render(new CommandTemplate.Context(null).entity(e));
     }
 
     @Override
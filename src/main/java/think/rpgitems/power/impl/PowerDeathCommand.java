@@ -2,11 +2,13 @@ package think.rpgitems.power.impl;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.I18n;
+import think.rpgitems.power.CommandTemplate;
 import think.rpgitems.power.PowerHit;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
@@ -53,6 +55,14 @@ public class PowerDeathCommand extends BasePower implements PowerHit {
     @Property
     public int cost = 0;
 
+    private CommandTemplate template;
+
+    @Override
+    public void init(ConfigurationSection section) {
+        super.init(section);
+        template = CommandTemplate.compile(command, "${");
+    }
+
     @Override
     public String getName() {
         return "deathcommand";
@@ -68,11 +78,11 @@ public class PowerDeathCommand extends BasePower implements PowerHit {
         if (rand.nextInt(chance) == 0) {
             if (!getItem().consumeDurability(stack, cost)) return PowerResult.cost();
             Location loc = entity.getLocation();
-            int x = (int) loc.getX();
-            int y = (int) loc.getY();
-            int z = (int) loc.getZ();
             entity.setHealth(0);
-            String cmd = command.replace("${x}", String.valueOf(x)).replace("${y}", String.valueOf(y)).replace("${z}", String.valueOf(z));
+            if (template == null || !template.getSource().equals(command)) {
+                template = CommandTemplate.compile(command, "${");
+            }
+            String cmd = template.render(new CommandTemplate.Context(player).location(loc));
             for (int i = 0; i < count; i++) Bukkit.dispatchCommand(Bukkit.getConsoleSender(), cmd);
             return PowerResult.ok(damage);
         }
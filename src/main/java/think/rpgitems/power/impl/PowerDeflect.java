@@ -134,7 +134,7 @@ public class PowerDeflect extends BasePower implements PowerHitTaken, PowerRight
             event.setCancelled(true);
             target.getLocation().getWorld().playSound(target.getLocation(), Sound.ITEM_SHIELD_BLOCK, 1.0f, 3.0f);
             Projectile t = target.launchProjectile(p.getClass());
-            Events.registerRPGProjectile(t.getEntityId(), getItem().getUid());
+            Events.registerRPGProjectile(t, getItem().getUid());
             if (p instanceof TippedArrow) {
                 TippedArrow tippedArrowP = (TippedArrow) p;
                 TippedArrow tippedArrowT = (TippedArrow) t;
@@ -157,7 +157,7 @@ public class PowerDeflect extends BasePower implements PowerHitTaken, PowerRight
             t.setGravity(p.hasGravity());
             t.setBounce(p.doesBounce());
             t.setShooter(target);
-            Events.autoRemoveProjectile(t.getEntityId());
+            Events.autoRemoveProjectile(t);
             p.eject();
             p.remove();
             return PowerResult.ok(0.0);
@@ -1,7 +1,10 @@
 package think.rpgitems.power.impl;
 
 import com.udojava.evalex.Expression;
+import org.bukkit.Location;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
@@ -11,8 +14,12 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.projectiles.ProjectileSource;
 import think.rpgitems.item.RPGItem;
 import think.rpgitems.power.*;
+import think.rpgitems.utils.DoubleExpression;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 
@@ -29,9 +36,174 @@ public class PowerEvalDamage extends BasePower implements PowerHit, PowerHitTake
     public String expression = "";
 
     // Feel free to add variable below
+    private static final List<String> VARIABLES = Arrays.asList(
+            "damage", "finalDamage", "isDamageByEntity", "isDamageByProjectile", "damagerTicksLived", "distance",
+            "playerYaw", "playerPitch", "playerX", "playerY", "playerZ", "playerLastDamage",
+            "entityYaw", "entityPitch", "entityX", "entityY", "entityZ", "entityLastDamage"
+    );
+    private static final int DAMAGE = 0, FINAL_DAMAGE = 1, IS_DAMAGE_BY_ENTITY = 2, IS_DAMAGE_BY_PROJECTILE = 3, DAMAGER_TICKS_LIVED = 4, DISTANCE = 5,
+            PLAYER_YAW = 6, PLAYER_PITCH = 7, PLAYER_X = 8, PLAYER_Y = 9, PLAYER_Z = 10, PLAYER_LAST_DAMAGE = 11,
+            ENTITY_YAW = 12, ENTITY_PITCH = 13, ENTITY_X = 14, ENTITY_Y = 15, ENTITY_Z = 16, ENTITY_LAST_DAMAGE = 17;
+
+    private static final BitSet HIT_VARIABLES = range(DAMAGE, ENTITY_LAST_DAMAGE, IS_DAMAGE_BY_ENTITY, PLAYER_LAST_DAMAGE);
+    private static final BitSet TAKE_HIT_VARIABLES = range(DAMAGE, PLAYER_LAST_DAMAGE, IS_DAMAGE_BY_PROJECTILE, DAMAGER_TICKS_LIVED, DISTANCE);
+    private static final BitSet TAKE_HIT_ENTITY_VARIABLES = range(DAMAGE, ENTITY_Z);
+    private static final BitSet PLAYER_LOCATION = range(PLAYER_YAW, PLAYER_Z);
+    private static final BitSet ENTITY_LOCATION = range(ENTITY_YAW, ENTITY_Z);
+
+    private static final ThreadLocal<double[]> values = ThreadLocal.withInitial(() -> new double[VARIABLES.size()]);
+
+    private String compiledExpression;
+    private DoubleExpression compiled;
+    private boolean interpreted;
+    private Exception compileError;
+
+    private static BitSet range(int from, int to, int... excluded) {
+        BitSet set = new BitSet();
+        set.set(from, to + 1);
+        for (int i : excluded) {
+            set.clear(i);
+        }
+        return set;
+    }
+
+    @Override
+    public void init(ConfigurationSection section) {
+        super.init(section);
+        compile();
+        if (compiled == null && !interpreted) {
+            RPGItem.getPlugin().getLogger().log(Level.WARNING, "bad expression: " + expression, compileError);
+        }
+    }
+
+    private void compile() {
+        compiledExpression = expression;
+        compiled = null;
+        interpreted = false;
+        try {
+            compiled = DoubleExpression.compile(expression, VARIABLES);
+            return;
+        } catch (IllegalArgumentException e) {
+            compileError = e;
+        }
+        // Formulas outside the compiled subset, e.g. using string variables, are still interpreted by EvalEx
+        try {
+            Expression ex = new Expression(expression);
+            for (String variable : VARIABLES) {
+                ex.and(variable, BigDecimal.ZERO);
+            }
+            ex.and("damagerType", EntityType.PLAYER.name()).and("entityType", EntityType.PLAYER.name()).and("cause", EntityDamageEvent.DamageCause.CUSTOM.name());
+            ex.eval();
+            interpreted = true;
+        } catch (ArithmeticException e) {
+            interpreted = true;
+        } catch (Expression.ExpressionException e) {
+            compileError = e;
+        }
+    }
+
+    private DoubleExpression getCompiled() {
+        if (!expression.equals(compiledExpression)) {
+            compile();
+        }
+        return compiled;
+    }
+
+    private PowerResult<Double> badExpression(Player player, Exception ex) {
+        RPGItem.getPlugin().getLogger().log(Level.WARNING, "bad expression: " + expression, ex);
+        if (player.isOp() || player.hasPermission("rpgitem")) {
+            player.sendMessage("bad expression: " + expression);
+            player.sendMessage(ex.getMessage());
+        }
+        return PowerResult.fail();
+    }
+
+    private PowerResult<Double> unboundVariable(Player player, DoubleExpression compiled, BitSet bound) {
+        BitSet unbound = compiled.getVariables();
+        unbound.andNot(bound);
+        return badExpression(player, new IllegalArgumentException("unknown variable " + VARIABLES.get(unbound.nextSetBit(0))));
+    }
+
+    private static boolean usesAny(DoubleExpression compiled, BitSet variables) {
+        for (int i = variables.nextSetBit(0); i >= 0; i = variables.nextSetBit(i + 1)) {
+            if (compiled.uses(i)) return true;
+        }
+        return false;
+    }
+
+    private static boolean usesOnly(DoubleExpression compiled, BitSet variables) {
+        BitSet used = compiled.getVariables();
+        used.andNot(variables);
+        return used.isEmpty();
+    }
+
+    private static void bindLocation(double[] v, int offset, Location location) {
+        v[offset] = location.getYaw();
+        v[offset + 1] = location.getPitch();
+        v[offset + 2] = location.getX();
+        v[offset + 3] = location.getY();
+        v[offset + 4] = location.getZ();
+    }
 
     @Override
     public PowerResult<Double> hit(Player player, ItemStack stack, LivingEntity entity, double damage, EntityDamageByEntityEvent event) {
+        DoubleExpression compiled = getCompiled();
+        if (compiled == null) {
+            return interpreted ? interpretHit(player, entity, damage, event) : badExpression(player, compileError);
+        }
+        if (!usesOnly(compiled, HIT_VARIABLES)) {
+            return unboundVariable(player, compiled, HIT_VARIABLES);
+        }
+        double[] v = values.get();
+        Entity damager = event.getDamager();
+        v[DAMAGE] = damage;
+        if (compiled.uses(FINAL_DAMAGE)) v[FINAL_DAMAGE] = event.getFinalDamage();
+        v[IS_DAMAGE_BY_PROJECTILE] = damager instanceof Projectile ? 1 : 0;
+        if (compiled.uses(DAMAGER_TICKS_LIVED)) v[DAMAGER_TICKS_LIVED] = damager.getTicksLived();
+        if (compiled.uses(DISTANCE)) v[DISTANCE] = player.getLocation().distance(entity.getLocation());
+        if (usesAny(compiled, PLAYER_LOCATION)) bindLocation(v, PLAYER_YAW, player.getLocation());
+        if (usesAny(compiled, ENTITY_LOCATION)) bindLocation(v, ENTITY_YAW, entity.getLocation());
+        if (compiled.uses(ENTITY_LAST_DAMAGE)) v[ENTITY_LAST_DAMAGE] = entity.getLastDamage();
+        return PowerResult.ok(compiled.eval(v));
+    }
+
+    @Override
+    public PowerResult<Double> takeHit(Player player, ItemStack stack, double damage, EntityDamageEvent event) {
+        DoubleExpression compiled = getCompiled();
+        if (compiled == null) {
+            return interpreted ? interpretTakeHit(player, damage, event) : badExpression(player, compileError);
+        }
+        boolean byEntity = event instanceof EntityDamageByEntityEvent;
+        BitSet bound = byEntity ? TAKE_HIT_ENTITY_VARIABLES : TAKE_HIT_VARIABLES;
+        if (!usesOnly(compiled, bound)) {
+            return unboundVariable(player, compiled, bound);
+        }
+        double[] v = values.get();
+        v[DAMAGE] = damage;
+        if (compiled.uses(FINAL_DAMAGE)) v[FINAL_DAMAGE] = event.getFinalDamage();
+        v[IS_DAMAGE_BY_ENTITY] = byEntity ? 1 : 0;
+        if (usesAny(compiled, PLAYER_LOCATION)) bindLocation(v, PLAYER_YAW, player.getLocation());
+        if (compiled.uses(PLAYER_LAST_DAMAGE)) v[PLAYER_LAST_DAMAGE] = player.getLastDamage();
+        if (byEntity) {
+            Entity damager = ((EntityDamageByEntityEvent) event).getDamager();
+            Entity entity = damager;
+            boolean byProjectile = false;
+            if (entity instanceof Projectile) {
+                ProjectileSource shooter = ((Projectile) entity).getShooter();
+                if (shooter instanceof Entity) {
+                    entity = (Entity) shooter;
+                    byProjectile = true;
+                }
+            }
+            v[IS_DAMAGE_BY_PROJECTILE] = byProjectile ? 1 : 0;
+            if (compiled.uses(DAMAGER_TICKS_LIVED)) v[DAMAGER_TICKS_LIVED] = damager.getTicksLived();
+            if (compiled.uses(DISTANCE)) v[DISTANCE] = player.getLocation().distance(entity.getLocation());
+            if (usesAny(compiled, ENTITY_LOCATION)) bindLocation(v, ENTITY_YAW, entity.getLocation());
+        }
+        return PowerResult.ok(compiled.eval(v));
+    }
+
+    private PowerResult<Double> interpretHit(Player player, LivingEntity entity, double damage, EntityDamageByEntityEvent event) {
         try {
             Expression ex = new Expression(expression);
             boolean byProjectile = false;
@@ -63,12 +235,7 @@ public class PowerEvalDamage extends BasePower implements PowerHit, PowerHitTake
             BigDecimal result = ex.eval();
             return PowerResult.ok(result.doubleValue());
         } catch (Expression.ExpressionException ex) {
-            RPGItem.getPlugin().getLogger().log(Level.WARNING, "bad expression: " + expression, ex);
-            if (player.isOp() || player.hasPermission("rpgitem")) {
-                player.sendMessage("bad expression: " + expression);
-                player.sendMessage(ex.getMessage());
-            }
-            return PowerResult.fail();
+            return badExpression(player, ex);
         }
     }
 
@@ -86,11 +253,9 @@ public class PowerEvalDamage extends BasePower implements PowerHit, PowerHitTake
         };
     }
 
-    @Override
-    public PowerResult<Double> takeHit(Player player, ItemStack stack, double damage, EntityDamageEvent event) {
+    private PowerResult<Double> interpretTakeHit(Player player, double damage, EntityDamageEvent event) {
         boolean byEntity = event instanceof EntityDamageByEntityEvent;
         try {
-
             Expression ex = new Expression(expression);
             ex
                     .and("damage", BigDecimal.valueOf(damage))
@@ -132,12 +297,7 @@ public class PowerEvalDamage extends BasePower implements PowerHit, PowerHitTake
             BigDecimal result = ex.eval();
             return PowerResult.ok(result.doubleValue());
         } catch (Expression.ExpressionException ex) {
-            RPGItem.getPlugin().getLogger().log(Level.WARNING, "bad expression: " + expression, ex);
-            if (player.isOp() || player.hasPermission("rpgitem")) {
-                player.sendMessage("bad expression: " + expression);
-                player.sendMessage(ex.getMessage());
-            }
-            return PowerResult.fail();
+            return badExpression(player, ex);
         }
     }
 
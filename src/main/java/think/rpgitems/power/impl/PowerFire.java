@@ -29,10 +29,8 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.event.player.PlayerToggleSprintEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import think.rpgitems.I18n;
-import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
 
 import java.util.ArrayList;
@@ -101,11 +99,11 @@ public class PowerFire extends BasePower implements PowerRightClick, PowerLeftCl
         direction.normalize();
         location.add(direction.multiply(4));
 
-        BukkitRunnable run = new BukkitRunnable() {
+        EffectTask run = new EffectTask() {
             private boolean finishedFire = false, blockDead = false;
             private int count = 0;
 
-            public void run() {
+            public void step() {
                 if (!finishedFire) {
                     if (!location.getBlock().getType().equals(Material.AIR)) {
                         finishedFire = true;
@@ -130,9 +128,9 @@ public class PowerFire extends BasePower implements PowerRightClick, PowerLeftCl
                     count++;
 
                     if (finishedFire) {
-                        (new BukkitRunnable() {
+                        (new EffectTask() {
                             @Override
-                            public void run() {
+                            public void step() {
                                 if (fireblocks.isEmpty()) {
                                     cancel();
                                     return;
@@ -142,7 +140,7 @@ public class PowerFire extends BasePower implements PowerRightClick, PowerLeftCl
                                 fb.setType(Material.AIR);
                                 fireblocks.remove(fb);
                             }
-                        }).runTaskTimer(RPGItems.plugin, 4 * 20 + new Random().nextInt(40), 3);
+                        }).start(PowerFire.this, player, 4 * 20 + new Random().nextInt(40), 3);
                     }
                 }
 
@@ -164,7 +162,7 @@ public class PowerFire extends BasePower implements PowerRightClick, PowerLeftCl
                     cancel();
             }
         };
-        run.runTaskTimer(RPGItems.plugin, 0, 1);
+        run.start(this, player, 0, 1);
         return PowerResult.ok();
     }
 
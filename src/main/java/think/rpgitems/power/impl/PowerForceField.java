@@ -12,6 +12,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.power.EffectTask;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.PowerRightClick;
@@ -89,8 +90,7 @@ public class PowerForceField extends BasePower implements PowerRightClick {
         if (h > 255) h = 255;
         if (h < 1) return PowerResult.noop();
 
-        buildWallTask tsk = new buildWallTask(w, circlePoints(w, x, z, radius, l), l, h, ttl);
-        tsk.setId(Bukkit.getScheduler().scheduleSyncRepeatingTask(RPGItems.plugin, tsk, 1, 1));
+        new buildWallTask(w, circlePoints(w, x, z, radius, l), l, h, ttl).start(this, player, 1, 1);
         return PowerResult.ok();
     }
 
@@ -120,7 +120,7 @@ public class PowerForceField extends BasePower implements PowerRightClick {
         return list;
     }
 
-    private static class buildWallTask implements Runnable {
+    private static class buildWallTask extends EffectTask {
         /**
          * The W.
          */
@@ -151,10 +151,6 @@ public class PowerForceField extends BasePower implements PowerRightClick {
          * The Current.
          */
         int current;
-        /**
-         * The Id.
-         */
-        int id;
 
         /**
          * Instantiates a new Build wall task.
@@ -176,17 +172,8 @@ public class PowerForceField extends BasePower implements PowerRightClick {
             this.ttl = ttl;
         }
 
-        /**
-         * Sets id.
-         *
-         * @param id the id
-         */
-        public void setId(int id) {
-            this.id = id;
-        }
-
         @Override
-        public void run() {
+        public void step() {
             if (current != -1) {
                 for (Location l : circlePoints) {
                     if (wasWool.contains(l)) {
@@ -225,7 +212,7 @@ public class PowerForceField extends BasePower implements PowerRightClick {
                     }
                 }
             } else {
-                Bukkit.getScheduler().cancelTask(id);
+                cancel();
                 Bukkit.getScheduler().scheduleSyncDelayedTask(RPGItems.plugin, () -> {
                     for (int i = h; i >= l; i--) {
                         for (Location l : circlePoints) {
@@ -12,9 +12,9 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.power.EffectTask;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.PowerRightClick;
@@ -67,11 +67,11 @@ public class PowerGlove extends BasePower implements PowerRightClick {
                     Bukkit.getPluginManager().registerEvents(listener, RPGItems.plugin);
                 }
                 Listener finalListener = listener;
-                new BukkitRunnable() {
+                new EffectTask() {
                     private long ticks = 0L;
 
                     @Override
-                    public void run() {
+                    public void step() {
                         if (ticks >= maxTicks || player.getPassengers().isEmpty() || entity.isDead()) {
                             cancel();
                             if (finalListener != null) {
@@ -83,7 +83,7 @@ public class PowerGlove extends BasePower implements PowerRightClick {
                         }
                         ticks++;
                     }
-                }.runTaskTimer(RPGItems.plugin, 1, 1);
+                }.start(this, player, 1, 1);
                 return PowerResult.ok();
             }
         }
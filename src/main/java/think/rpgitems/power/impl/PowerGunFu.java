@@ -8,10 +8,8 @@ import org.bukkit.entity.Projectile;
 import org.bukkit.event.entity.EntityShootBowEvent;
 import org.bukkit.event.entity.ProjectileLaunchEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import think.rpgitems.I18n;
-import think.rpgitems.RPGItems;
 import think.rpgitems.data.Context;
 import think.rpgitems.power.*;
 
@@ -106,12 +104,12 @@ public class PowerGunFu extends BasePower implements PowerProjectileLaunch, Powe
         if (!entities.isEmpty()) {
             LivingEntity target = entities.get(0);
             Context.instance().putExpiringSeconds(player.getUniqueId(), "gunfu.target", target, 3);
-            new BukkitRunnable() {
+            new EffectTask() {
 
                 private int ticks = maxTicks;
 
                 @Override
-                public void run() {
+                public void step() {
                     if (!target.isValid() || projectile.isDead() || !projectile.isValid() || ticks-- <= 0) {
                         cancel();
                         return;
@@ -126,7 +124,7 @@ public class PowerGunFu extends BasePower implements PowerProjectileLaunch, Powe
                         ((Fireball) projectile).setDirection(rel.normalize());
                     }
                 }
-            }.runTaskTimer(RPGItems.plugin, 1, 0);
+            }.start(this, player, 1, 0);
         }
         return ok(force * (float) initVelFactor);
     }
@@ -10,9 +10,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerToggleSneakEvent;
 import org.bukkit.event.player.PlayerToggleSprintEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.I18n;
-import think.rpgitems.RPGItems;
 import think.rpgitems.power.*;
 
 import java.util.HashMap;
@@ -65,8 +63,8 @@ public class PowerIce extends BasePower implements PowerRightClick, PowerLeftCli
         block.setVelocity(player.getLocation().getDirection().multiply(2d));
         block.setDropItem(false);
 
-        BukkitRunnable run = new BukkitRunnable() {
-            public void run() {
+        EffectTask run = new EffectTask() {
+            public void step() {
                 boolean hit = false;
                 World world = block.getWorld();
 
@@ -105,11 +103,11 @@ public class PowerIce extends BasePower implements PowerRightClick, PowerLeftCli
                     }
 
                     // ice block remove timer
-                    (new BukkitRunnable() {
+                    (new EffectTask() {
                         Random random = new Random();
 
                         @Override
-                        public void run() {
+                        public void step() {
                             for (int i = 0; i < 4; i++) {
                                 if (changedBlocks.isEmpty()) {
                                     cancel();
@@ -125,12 +123,12 @@ public class PowerIce extends BasePower implements PowerRightClick, PowerLeftCli
                             }
 
                         }
-                    }).runTaskTimer(RPGItems.plugin, 4 * 20 + new Random().nextInt(40), 3);
+                    }).start(PowerIce.this, player, 4 * 20 + new Random().nextInt(40), 3);
                 }
 
             }
         };
-        run.runTaskTimer(RPGItems.plugin, 0, 1);
+        run.start(this, player, 0, 1);
         return PowerResult.ok();
     }
 
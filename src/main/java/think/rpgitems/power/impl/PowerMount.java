@@ -11,9 +11,9 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.power.EffectTask;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.PowerRightClick;
@@ -53,11 +53,11 @@ public class PowerMount extends BasePower implements PowerRightClick {
                     }
                 };
                 Bukkit.getPluginManager().registerEvents(listener, RPGItems.plugin);
-                new BukkitRunnable() {
+                new EffectTask() {
                     private long ticks = 0L;
 
                     @Override
-                    public void run() {
+                    public void step() {
                         if (ticks >= maxTicks || entity.isDead() || entity.getPassengers().isEmpty() || player.isDead()) {
                             cancel();
                             HandlerList.unregisterAll(listener);
@@ -68,7 +68,7 @@ public class PowerMount extends BasePower implements PowerRightClick {
                         }
                         ticks++;
                     }
-                }.runTaskTimer(RPGItems.plugin, 1, 1);
+                }.start(this, player, 1, 1);
                 return PowerResult.ok();
             }
         }
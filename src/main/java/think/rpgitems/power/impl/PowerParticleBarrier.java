@@ -22,7 +22,6 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.EulerAngle;
 import org.bukkit.util.Vector;
 import think.rpgitems.RPGItems;
@@ -181,11 +180,11 @@ public class PowerParticleBarrier extends BasePower implements PowerPlain, Power
 
         ArmorStand asB = makeAs(eyeLocation.clone().subtract(f.multiply(2)));
 
-        new BukkitRunnable() {
+        new EffectTask() {
             private int dur = 100;
 
             @Override
-            public void run() {
+            public void step() {
                 UUID uuid = target.getUniqueId();
                 Double barrierRemain = barriers.getIfPresent(uuid);
                 if (dur > 0 && barrierRemain != null && barrierRemain > 0) {
@@ -211,7 +210,7 @@ public class PowerParticleBarrier extends BasePower implements PowerPlain, Power
                 asL.teleport(eyeLocation.clone().add(l.multiply(1 + dur / 100.0)));
                 asB.teleport(eyeLocation.clone().subtract(f.multiply(1 + dur / 100.0)));
             }
-        }.runTaskTimer(RPGItems.plugin, 0, 1L);
+        }.start(this, source, 0, 1);
     }
 
     @SuppressWarnings("deprecation")
@@ -256,7 +256,7 @@ public class PowerProjectile extends BasePower implements PowerRightClick, Power
             ((Fireball) projectile).setDirection(v.clone().normalize().multiply(speed));
         }
         if (Arrow.class.isAssignableFrom(projectileType)) {
-            Events.autoRemoveProjectile(projectile.getEntityId());
+            Events.autoRemoveProjectile(projectile);
             ((Arrow) projectile).setPickupStatus(Arrow.PickupStatus.DISALLOWED);
         }
         if (!gravity) {
@@ -6,10 +6,9 @@ import org.bukkit.entity.FallingBlock;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import think.rpgitems.I18n;
-import think.rpgitems.RPGItems;
+import think.rpgitems.power.EffectTask;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.PowerRightClick;
@@ -72,12 +71,12 @@ public class PowerRainbow extends BasePower implements PowerRightClick {
             block.setDropItem(false);
             blocks.add(block);
         }
-        (new BukkitRunnable() {
+        (new EffectTask() {
 
             ArrayList<Location> fallLocs = new ArrayList<>();
             Random random = new Random();
 
-            public void run() {
+            public void step() {
 
                 Iterator<Location> l = fallLocs.iterator();
                 while (l.hasNext()) {
@@ -109,7 +108,7 @@ public class PowerRainbow extends BasePower implements PowerRightClick {
                 }
 
             }
-        }).runTaskTimer(RPGItems.plugin, 0, 5);
+        }).start(this, player, 0, 5);
         return PowerResult.ok();
     }
 
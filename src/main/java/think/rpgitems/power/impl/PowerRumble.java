@@ -10,10 +10,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 import think.rpgitems.I18n;
 import think.rpgitems.RPGItems;
+import think.rpgitems.power.EffectTask;
 import think.rpgitems.power.PowerMeta;
 import think.rpgitems.power.PowerResult;
 import think.rpgitems.power.PowerRightClick;
@@ -66,10 +66,10 @@ public class PowerRumble extends BasePower implements PowerRightClick {
         final Vector direction = player.getLocation().getDirection();
         direction.setY(0);
         direction.normalize();
-        BukkitRunnable task = new BukkitRunnable() {
+        EffectTask task = new EffectTask() {
             private int count = 0;
 
-            public void run() {
+            public void step() {
                 Location above = location.clone().add(0, 1, 0);
                 if (above.getBlock().getType().isSolid() || !location.getBlock().getType().isSolid()) {
                     cancel();
@@ -117,7 +117,7 @@ public class PowerRumble extends BasePower implements PowerRightClick {
                 count++;
             }
         };
-        task.runTaskTimer(RPGItems.plugin, 0, 3);
+        task.start(this, player, 0, 3);
         return PowerResult.ok();
     }
 
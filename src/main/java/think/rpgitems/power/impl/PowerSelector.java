@@ -19,6 +19,7 @@ import think.rpgitems.power.Property;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -253,46 +254,42 @@ public class PowerSelector extends BasePower {
                        && tags.stream().noneMatch(t -> tagLimit.getValue().contains(t));
     }
 
-    private boolean inRadius(Entity e, Location l, Integer r, Integer rm) {
-        boolean result = true;
-        double dis = e.getLocation().distance(l);
-        if (r != null && r > 0) result = dis < r;
-        if (rm != null && rm > 0) result &= dis >= rm;
-        return result;
-    }
-
-    private boolean inVolume(Entity e, Location l, Integer dx, Integer dy, Integer dz) {
-        boolean result = true;
-        Location loc = e.getLocation();
-        if (dx != null && dx > 0) result = loc.getX() - l.getX() < dx;
-        if (dy != null && dy > 0) result &= loc.getY() - l.getY() < dy;
-        if (dz != null && dz > 0) result &= loc.getZ() - l.getZ() < dz;
-        return result;
+    /**
+     * @param p Player making the query
+     * @return Predicate keeping the entities this selector selects
+     */
+    public Predicate<Entity> matcher(Player p) {
+        Location ref = reference(p);
+        double max = r != null && r > 0 ? (double) r * r : -1;
+        double min = rm != null && rm > 0 ? (double) rm * rm : -1;
+        boolean volume = Stream.of(dx, dy, dz).anyMatch(Objects::nonNull);
+        Set<EntityType> allowType = type == null ? null : typeCache.getUnchecked(type);
+        Pair<Set<String>, Set<String>> tagLimit = tag == null ? null : tagCache.getUnchecked(tag);
+        Pair<Set<String>, Set<String>> teamLimit = team == null ? null : teamCache.getUnchecked(team);
+        Map<String, Pair<Integer, Integer>> scoreLimit = score == null ? null : scoreCache.getUnchecked(score);
+        Scoreboard scoreboard = teamLimit != null || scoreLimit != null ? p.getScoreboard() : null;
+        Location loc = new Location(null, 0, 0, 0);
+        return entity -> {
+            entity.getLocation(loc);
+            if (max >= 0 || min >= 0) {
+                double dis = loc.distanceSquared(ref);
+                if (max >= 0 && dis >= max) return false;
+                if (min >= 0 && dis < min) return false;
+            }
+            if (volume) {
+                if (dx != null && dx > 0 && loc.getX() - ref.getX() >= dx) return false;
+                if (dy != null && dy > 0 && loc.getY() - ref.getY() >= dy) return false;
+                if (dz != null && dz > 0 && loc.getZ() - ref.getZ() >= dz) return false;
+            }
+            if (allowType != null && !allowType.contains(entity.getType())) return false;
+            if (tagLimit != null && !matchTag(entity, tagLimit)) return false;
+            if (teamLimit != null && !matchTeam(entity, scoreboard, teamLimit)) return false;
+            return scoreLimit == null || matchScore(entity, scoreboard, scoreLimit);
+        };
     }
 
     public void inPlaceFilter(Player p, List<Entity> entities) {
-        Location ref = reference(p);
-        List<Entity> ents = entities.stream().filter(entity -> inRadius(entity, ref, r, rm)).collect(Collectors.toList());
-        if (Stream.of(dx, dy, dz).anyMatch(Objects::nonNull))
-            ents = ents.stream().filter(entity -> inVolume(entity, ref, dx, dy, dz)).collect(Collectors.toList());
-        if (type != null) {
-            Set<EntityType> allowType = typeCache.getUnchecked(type);
-            ents = ents.stream().filter(entity -> allowType.contains(entity.getType())).collect(Collectors.toList());
-        }
-        if (tag != null) {
-            Pair<Set<String>, Set<String>> t = tagCache.getUnchecked(tag);
-            ents = ents.stream().filter(entity -> matchTag(entity, t)).collect(Collectors.toList());
-        }
-        if (team != null) {
-            Pair<Set<String>, Set<String>> t = teamCache.getUnchecked(team);
-            ents = ents.stream().filter(entity -> matchTeam(entity, p.getScoreboard(), t)).collect(Collectors.toList());
-        }
-        if (score != null) {
-            Map<String, Pair<Integer, Integer>> t = scoreCache.getUnchecked(score);
-            ents = ents.stream().filter(entity -> matchScore(entity, p.getScoreboard(), t)).collect(Collectors.toList());
-        }
-        entities.clear();
-        entities.addAll(ents);
+        entities.removeIf(matcher(p).negate());
     }
 
     @Override
@@ -62,7 +62,7 @@ public class PowerTippedArrow extends BasePower implements PowerRightClick {
         Events.registerRPGProjectile(this.getItem(), stack, player);
         TippedArrow arrow = player.launchProjectile(TippedArrow.class);
         arrow.addCustomEffect(new PotionEffect(type, duration, amplifier), true);
-        Events.autoRemoveProjectile(arrow.getEntityId());
+        Events.autoRemoveProjectile(arrow);
         return PowerResult.ok();
     }
 
@@ -121,16 +121,13 @@ public class WGHandler extends Handler {
         Collection<String> ei = set.queryValue(localPlayer, enabledItem);
         Collection<String> du = set.queryValue(localPlayer, disabledPlayer);
         Collection<String> eu = set.queryValue(localPlayer, enabledPlayer);
-        WGSupport.warningMessageByPlayer.put(uuid, wm);
-        WGSupport.disabledPowerByPlayer.put(uuid, dp);
-        WGSupport.enabledPowerByPlayer.put(uuid, ep);
-        WGSupport.disabledItemByPlayer.put(uuid, di);
-        WGSupport.enabledItemByPlayer.put(uuid, ei);
+        boolean disabled;
         if (eu == null || eu.isEmpty()) {
-            WGSupport.disabledByPlayer.put(uuid, du != null && du.contains(uuid.toString()));
+            disabled = du != null && du.contains(uuid.toString());
         } else {
-            WGSupport.disabledByPlayer.put(uuid, !eu.contains(uuid.toString()));
+            disabled = !eu.contains(uuid.toString());
         }
+        WGSupport.getState(uuid).update(wm, dp, ep, di, ei, disabled);
     }
 
     static void registerHandler() {
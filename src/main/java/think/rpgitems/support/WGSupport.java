@@ -7,6 +7,8 @@ import com.sk89q.worldguard.protection.flags.Flags;
 import com.sk89q.worldguard.protection.flags.StateFlag.State;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
@@ -21,21 +23,19 @@ import think.rpgitems.power.RPGItemsPowersPreFireEvent;
 import java.io.File;
 import java.util.*;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 public class WGSupport {
 
     public static boolean useWorldGuard = true;
     public static boolean forceRefresh = false;
-    static Map<UUID, String> warningMessageByPlayer;
-    static Map<UUID, Collection<String>> disabledPowerByPlayer;
-    static Map<UUID, Collection<String>> enabledPowerByPlayer;
-    static Map<UUID, Collection<String>> disabledItemByPlayer;
-    static Map<UUID, Collection<String>> enabledItemByPlayer;
-    static Map<UUID, Boolean> disabledByPlayer;
+    static Map<UUID, PlayerState> stateByPlayer;
     static WorldGuardPlugin wgPlugin;
     private static RPGItems plugin;
     private static boolean hasSupport = false;
+    /**
+     * Bumped to drop the cached region queries of all players
+     */
+    private static int regionRevision;
 
     public static void load() {
         try {
@@ -68,12 +68,7 @@ public class WGSupport {
             }
             hasSupport = true;
             WGHandler.registerHandler();
-            warningMessageByPlayer = new HashMap<>();
-            disabledPowerByPlayer = new HashMap<>();
-            enabledPowerByPlayer = new HashMap<>();
-            disabledItemByPlayer = new HashMap<>();
-            enabledItemByPlayer = new HashMap<>();
-            disabledByPlayer = new HashMap<>();
+            stateByPlayer = new HashMap<>();
             Bukkit.getPluginManager().registerEvents(new EventListener(), plugin);
             for (Player p : plugin.getServer().getOnlinePlayers()) {
                 WGHandler.refreshPlayerWG(p);
@@ -90,6 +85,7 @@ public class WGSupport {
 
     public static void reload() {
         hasSupport = false;
+        ++regionRevision;
         try {
             unload();
         } catch (NoClassDefFoundError ignored) {
@@ -101,46 +97,44 @@ public class WGSupport {
         return hasSupport;
     }
 
-    private static Event.Result canPvP(Player player) {
-        if (!hasSupport || !useWorldGuard)
-            return Event.Result.ALLOW;
+    /**
+     * Drops the region state of a player, on quit
+     *
+     * @param player Player
+     */
+    public static void release(Player player) {
+        if (stateByPlayer != null) {
+            stateByPlayer.remove(player.getUniqueId());
+        }
+    }
 
-        LocalPlayer localPlayer = wgPlugin.wrapPlayer(player);
-        State stat = WorldGuard.getInstance().getPlatform().getRegionContainer().createQuery().queryState(localPlayer.getLocation(), localPlayer, Flags.PVP);
-        return (stat == null || stat.equals(State.ALLOW)) ? Event.Result.ALLOW : Event.Result.DENY;
+    static PlayerState getState(UUID uuid) {
+        return stateByPlayer.computeIfAbsent(uuid, u -> new PlayerState());
     }
 
     private static Event.Result canUse(Player player, RPGItem item, Collection<? extends Power> powers) {
         if (!hasSupport || !useWorldGuard) {
             return Event.Result.DEFAULT;
         }
-        if (plugin.cfg.wgNoPvP && canPvP(player) == Event.Result.DENY) return Event.Result.DENY;
         if (forceRefresh) WGHandler.refreshPlayerWG(player);
-        Boolean disabled = disabledByPlayer.get(player.getUniqueId());
-        if (disabled != null && disabled) {
+        PlayerState state = getState(player.getUniqueId());
+        if (plugin.cfg.wgNoPvP && state.canPvP(player) == Event.Result.DENY) return Event.Result.DENY;
+        if (state.disabled) {
             return Event.Result.DENY;
         }
-        Collection<String> disableds = disabledItemByPlayer.get(player.getUniqueId());
-        Collection<String> enableds = enabledItemByPlayer.get(player.getUniqueId());
-
-        if (disableds != null && disableds.contains("*")) {
+        if (state.disabledItems != null && state.disabledItems.contains("*")) {
             return Event.Result.DENY;
         }
         if (item == null || item.isIgnoreWorldGuard()) {
             return Event.Result.ALLOW;
         }
-        List<String> disabledItems = disableds == null ? null : disableds.stream().map(ItemManager::getItems).flatMap(Set::stream).map(RPGItem::getName).collect(Collectors.toList());
-        List<String> enabledItems = enableds == null ? null : enableds.stream().map(ItemManager::getItems).flatMap(Set::stream).map(RPGItem::getName).collect(Collectors.toList());
-        String itemName = item.getName();
-        if (notEnabled(disabledItems, enabledItems, itemName)) return Event.Result.DENY;
-
-        Collection<String> disabledPower = disabledPowerByPlayer.get(player.getUniqueId());
-        Collection<String> enabledPower = enabledPowerByPlayer.get(player.getUniqueId());
+        state.resolveItems();
+        if (notEnabled(state.disabledUids, state.enabledUids, item.getUid())) return Event.Result.DENY;
 
         if (powers == null) return Event.Result.ALLOW;
         for (Power power : powers) {
             String powerName = item.getPowerKey(power).toString();
-            if (notEnabled(disabledPower, enabledPower, powerName)) return Event.Result.DENY;
+            if (notEnabled(state.disabledPowers, state.enabledPowers, powerName)) return Event.Result.DENY;
         }
         return Event.Result.ALLOW;
     }
@@ -148,7 +142,8 @@ public class WGSupport {
     public static Event.Result canUse(Player player, RPGItem item, Collection<? extends Power> powers, boolean showWarn) {
         Event.Result result = canUse(player, item, powers);
         if (result == Event.Result.DENY && showWarn) {
-            String message = warningMessageByPlayer.get(player.getUniqueId());
+            PlayerState state = stateByPlayer.get(player.getUniqueId());
+            String message = state == null ? null : state.warningMessage;
             if (message != null) {
                 player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
             }
@@ -162,6 +157,12 @@ public class WGSupport {
         } else return !(enabled.contains(name) || enabled.contains("*"));
     }
 
+    private static boolean notEnabled(int[] disabled, int[] enabled, int uid) {
+        if (enabled == null || enabled.length == 0) {
+            return disabled != null && Arrays.binarySearch(disabled, uid) >= 0;
+        } else return Arrays.binarySearch(enabled, uid) < 0;
+    }
+
     public static void unload() {
         if (!hasSupport) {
             return;
@@ -169,6 +170,90 @@ public class WGSupport {
         WGHandler.unregisterHandler();
     }
 
+    /**
+     * Region derived state of a player, set by {@link WGHandler} when the player enters or leaves regions.
+     * <p>
+     * Item lists are resolved to sorted uids, again once items or groups change. The PvP flag is queried
+     * once per block position, and again after {@link #PVP_TTL} milliseconds or a region refresh, since region
+     * flags can be edited without the player moving.
+     */
+    static final class PlayerState {
+        private static final long PVP_TTL = 1000;
+
+        String warningMessage;
+        Collection<String> disabledPowers;
+        Collection<String> enabledPowers;
+        Collection<String> disabledItems;
+        Collection<String> enabledItems;
+        boolean disabled;
+
+        private int[] disabledUids;
+        private int[] enabledUids;
+        private int membershipRevision;
+        private boolean resolved;
+
+        private final Location location = new Location(null, 0, 0, 0);
+        private Event.Result pvp;
+        private World pvpWorld;
+        private int pvpX;
+        private int pvpY;
+        private int pvpZ;
+        private int pvpRevision;
+        private long pvpExpiry;
+
+        void update(String warningMessage, Collection<String> disabledPowers, Collection<String> enabledPowers, Collection<String> disabledItems, Collection<String> enabledItems, boolean disabled) {
+            this.warningMessage = warningMessage;
+            this.disabledPowers = disabledPowers;
+            this.enabledPowers = enabledPowers;
+            this.disabledItems = disabledItems;
+            this.enabledItems = enabledItems;
+            this.disabled = disabled;
+            resolved = false;
+            resolveItems();
+            pvp = null;
+            pvpWorld = null;
+        }
+
+        void resolveItems() {
+            if (resolved && membershipRevision == ItemManager.getMembershipRevision()) {
+                return;
+            }
+            disabledUids = resolve(disabledItems);
+            enabledUids = resolve(enabledItems);
+            membershipRevision = ItemManager.getMembershipRevision();
+            resolved = true;
+        }
+
+        Event.Result canPvP(Player player) {
+            player.getLocation(location);
+            World world = location.getWorld();
+            int x = location.getBlockX();
+            int y = location.getBlockY();
+            int z = location.getBlockZ();
+            long now = System.currentTimeMillis();
+            if (pvp == null || pvpRevision != regionRevision || now >= pvpExpiry || world != pvpWorld || x != pvpX || y != pvpY || z != pvpZ) {
+                LocalPlayer localPlayer = wgPlugin.wrapPlayer(player);
+                State stat = WorldGuard.getInstance().getPlatform().getRegionContainer().createQuery().queryState(localPlayer.getLocation(), localPlayer, Flags.PVP);
+                pvp = (stat == null || stat.equals(State.ALLOW)) ? Event.Result.ALLOW : Event.Result.DENY;
+                pvpRevision = regionRevision;
+                pvpExpiry = now + PVP_TTL;
+                pvpWorld = world;
+                pvpX = x;
+                pvpY = y;
+                pvpZ = z;
+            }
+            location.setWorld(null);
+            return pvp;
+        }
+
+        private static int[] resolve(Collection<String> names) {
+            if (names == null) {
+                return null;
+            }
+            return names.stream().map(ItemManager::getItems).flatMap(Set::stream).mapToInt(RPGItem::getUid).sorted().distinct().toArray();
+        }
+    }
+
     public static class EventListener implements Listener {
         @EventHandler
         public <TEvent extends Event, TPower extends Power, TResult, TReturn> void onPreTrigger(RPGItemsPowersPreFireEvent<TEvent, TPower, TResult, TReturn> event) {
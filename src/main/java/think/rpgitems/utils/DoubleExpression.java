@@ -0,0 +1,538 @@
+package think.rpgitems.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Arithmetic expression compiled to a tree evaluated on primitive doubles.
+ * <p>
+ * Accepts the numeric subset of EvalEx: the operators {@code + - * / % ^ = == != <> < <= > >= && || !},
+ * the constants {@code PI e TRUE FALSE} and the usual EvalEx functions, trigonometry in degrees included.
+ * Names are case insensitive. Variables are resolved at compile time to indexes of the {@code double[]}
+ * passed to {@link #eval(double[])}.
+ */
+public final class DoubleExpression {
+    private final String source;
+    private final Node root;
+    private final BitSet variables;
+
+    private DoubleExpression(String source, Node root, BitSet variables) {
+        this.source = source;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /**
+     * @param source    Expression
+     * @param variables Names of the variables, indexed as the array given to {@link #eval(double[])}
+     * @return Compiled expression
+     * @throws IllegalArgumentException if the expression is malformed or uses an unsupported construct
+     */
+    public static DoubleExpression compile(String source, List<String> variables) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            indexes.put(variables.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        Parser parser = new Parser(source, indexes);
+        Node root = parser.parse();
+        return new DoubleExpression(source, root, parser.used);
+    }
+
+    /**
+     * @param index Variable index
+     * @return Whether the expression reads this variable
+     */
+    public boolean uses(int index) {
+        return variables.get(index);
+    }
+
+    /**
+     * @return Indexes of the variables the expression reads
+     */
+    public BitSet getVariables() {
+        return (BitSet) variables.clone();
+    }
+
+    public double eval(double[] values) {
+        return root.eval(values);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static boolean bool(double value) {
+        return value != 0;
+    }
+
+    private static double of(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    private interface Node {
+        double eval(double[] v);
+
+        default boolean isConstant() {
+            return false;
+        }
+    }
+
+    private static final class Constant implements Node {
+        private final double value;
+
+        private Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return value;
+        }
+
+        @Override
+        public boolean isConstant() {
+            return true;
+        }
+    }
+
+    private static final class Variable implements Node {
+        private final int index;
+
+        private Variable(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return v[index];
+        }
+    }
+
+    private static final class Unary implements Node {
+        private final DoubleUnaryOperator op;
+        private final Node operand;
+
+        private Unary(DoubleUnaryOperator op, Node operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return op.applyAsDouble(operand.eval(v));
+        }
+    }
+
+    private static final class Binary implements Node {
+        private final DoubleBinaryOperator op;
+        private final Node left;
+        private final Node right;
+
+        private Binary(DoubleBinaryOperator op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return op.applyAsDouble(left.eval(v), right.eval(v));
+        }
+    }
+
+    private static final class And implements Node {
+        private final Node left;
+        private final Node right;
+
+        private And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return of(bool(left.eval(v)) && bool(right.eval(v)));
+        }
+    }
+
+    private static final class Or implements Node {
+        private final Node left;
+        private final Node right;
+
+        private Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return of(bool(left.eval(v)) || bool(right.eval(v)));
+        }
+    }
+
+    private static final class If implements Node {
+        private final Node condition;
+        private final Node then;
+        private final Node otherwise;
+
+        private If(Node condition, Node then, Node otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            return bool(condition.eval(v)) ? then.eval(v) : otherwise.eval(v);
+        }
+    }
+
+    private static final class Extremum implements Node {
+        private final Node[] operands;
+        private final boolean max;
+
+        private Extremum(Node[] operands, boolean max) {
+            this.operands = operands;
+            this.max = max;
+        }
+
+        @Override
+        public double eval(double[] v) {
+            double result = operands[0].eval(v);
+            for (int i = 1; i < operands.length; i++) {
+                double value = operands[i].eval(v);
+                result = max ? Math.max(result, value) : Math.min(result, value);
+            }
+            return result;
+        }
+    }
+
+    private static final class Random implements Node {
+        @Override
+        public double eval(double[] v) {
+            return ThreadLocalRandom.current().nextDouble();
+        }
+    }
+
+    private static final Map<String, DoubleUnaryOperator> UNARY_FUNCTIONS = new HashMap<>();
+    private static final Map<String, DoubleBinaryOperator> BINARY_FUNCTIONS = new HashMap<>();
+    private static final Map<String, Double> CONSTANTS = new HashMap<>();
+
+    static {
+        UNARY_FUNCTIONS.put("not", x -> of(!bool(x)));
+        UNARY_FUNCTIONS.put("abs", Math::abs);
+        UNARY_FUNCTIONS.put("floor", Math::floor);
+        UNARY_FUNCTIONS.put("ceiling", Math::ceil);
+        UNARY_FUNCTIONS.put("log", Math::log);
+        UNARY_FUNCTIONS.put("log10", Math::log10);
+        UNARY_FUNCTIONS.put("sqrt", Math::sqrt);
+        UNARY_FUNCTIONS.put("fact", x -> {
+            double result = 1;
+            for (int i = 2; i <= (int) x; i++) result *= i;
+            return result;
+        });
+        UNARY_FUNCTIONS.put("rad", Math::toRadians);
+        UNARY_FUNCTIONS.put("deg", Math::toDegrees);
+        UNARY_FUNCTIONS.put("sin", x -> Math.sin(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("cos", x -> Math.cos(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("tan", x -> Math.tan(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("cot", x -> 1 / Math.tan(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("sec", x -> 1 / Math.cos(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("csc", x -> 1 / Math.sin(Math.toRadians(x)));
+        UNARY_FUNCTIONS.put("asin", x -> Math.toDegrees(Math.asin(x)));
+        UNARY_FUNCTIONS.put("acos", x -> Math.toDegrees(Math.acos(x)));
+        UNARY_FUNCTIONS.put("atan", x -> Math.toDegrees(Math.atan(x)));
+        UNARY_FUNCTIONS.put("acot", x -> Math.toDegrees(Math.atan(1 / x)));
+        UNARY_FUNCTIONS.put("sinr", Math::sin);
+        UNARY_FUNCTIONS.put("cosr", Math::cos);
+        UNARY_FUNCTIONS.put("tanr", Math::tan);
+        UNARY_FUNCTIONS.put("cotr", x -> 1 / Math.tan(x));
+        UNARY_FUNCTIONS.put("secr", x -> 1 / Math.cos(x));
+        UNARY_FUNCTIONS.put("cscr", x -> 1 / Math.sin(x));
+        UNARY_FUNCTIONS.put("asinr", Math::asin);
+        UNARY_FUNCTIONS.put("acosr", Math::acos);
+        UNARY_FUNCTIONS.put("atanr", Math::atan);
+        UNARY_FUNCTIONS.put("acotr", x -> Math.atan(1 / x));
+        UNARY_FUNCTIONS.put("sinh", Math::sinh);
+        UNARY_FUNCTIONS.put("cosh", Math::cosh);
+        UNARY_FUNCTIONS.put("tanh", Math::tanh);
+        UNARY_FUNCTIONS.put("sech", x -> 1 / Math.cosh(x));
+        UNARY_FUNCTIONS.put("csch", x -> 1 / Math.sinh(x));
+        UNARY_FUNCTIONS.put("coth", x -> 1 / Math.tanh(x));
+        UNARY_FUNCTIONS.put("asinh", x -> Math.log(x + Math.sqrt(x * x + 1)));
+        UNARY_FUNCTIONS.put("acosh", x -> Math.log(x + Math.sqrt(x * x - 1)));
+        UNARY_FUNCTIONS.put("atanh", x -> 0.5 * Math.log((1 + x) / (1 - x)));
+
+        BINARY_FUNCTIONS.put("round", (x, precision) -> BigDecimal.valueOf(x).setScale((int) precision, RoundingMode.HALF_EVEN).doubleValue());
+        BINARY_FUNCTIONS.put("atan2", (y, x) -> Math.toDegrees(Math.atan2(y, x)));
+        BINARY_FUNCTIONS.put("atan2r", Math::atan2);
+
+        CONSTANTS.put("pi", Math.PI);
+        CONSTANTS.put("e", Math.E);
+        CONSTANTS.put("true", 1d);
+        CONSTANTS.put("false", 0d);
+    }
+
+    private static Node fold(Node node, Node... operands) {
+        for (Node operand : operands) {
+            if (!operand.isConstant()) return node;
+        }
+        return new Constant(node.eval(null));
+    }
+
+    /**
+     * Precedence climbing parser, with EvalEx precedences:
+     * {@code ||} 2, {@code &&} 4, comparisons 10, additive 20, multiplicative 30, {@code ^} 40 (right associative), unary 60
+     */
+    private static final class Parser {
+        private final String source;
+        private final Map<String, Integer> indexes;
+        private final BitSet used = new BitSet();
+        private int pos;
+
+        private Parser(String source, Map<String, Integer> indexes) {
+            this.source = source;
+            this.indexes = indexes;
+        }
+
+        private Node parse() {
+            Node node = parseBinary(0);
+            skipSpaces();
+            if (pos < source.length()) {
+                throw error("unexpected '" + source.charAt(pos) + "'");
+            }
+            return node;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at character " + (pos + 1) + " of: " + source);
+        }
+
+        private void skipSpaces() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) ++pos;
+        }
+
+        private String peekOperator() {
+            skipSpaces();
+            for (String op : new String[]{"||", "&&", "==", "!=", "<>", "<=", ">=", "=", "<", ">", "+", "-", "*", "/", "%", "^"}) {
+                if (source.startsWith(op, pos)) return op;
+            }
+            return null;
+        }
+
+        private static int precedence(String op) {
+            switch (op) {
+                case "||":
+                    return 2;
+                case "&&":
+                    return 4;
+                case "+":
+                case "-":
+                    return 20;
+                case "*":
+                case "/":
+                case "%":
+                    return 30;
+                case "^":
+                    return 40;
+                default:
+                    return 10;
+            }
+        }
+
+        private Node parseBinary(int minPrecedence) {
+            Node left = parseUnary();
+            for (String op = peekOperator(); op != null && precedence(op) >= minPrecedence; op = peekOperator()) {
+                int precedence = precedence(op);
+                pos += op.length();
+                Node right = parseBinary(op.equals("^") ? precedence : precedence + 1);
+                left = binary(op, left, right);
+            }
+            return left;
+        }
+
+        private Node binary(String op, Node left, Node right) {
+            switch (op) {
+                case "||":
+                    return fold(new Or(left, right), left, right);
+                case "&&":
+                    return fold(new And(left, right), left, right);
+                case "+":
+                    return fold(new Binary(Double::sum, left, right), left, right);
+                case "-":
+                    return fold(new Binary((a, b) -> a - b, left, right), left, right);
+                case "*":
+                    return fold(new Binary((a, b) -> a * b, left, right), left, right);
+                case "/":
+                    return fold(new Binary((a, b) -> a / b, left, right), left, right);
+                case "%":
+                    return fold(new Binary((a, b) -> a % b, left, right), left, right);
+                case "^":
+                    return fold(new Binary(Math::pow, left, right), left, right);
+                case "=":
+                case "==":
+                    return fold(new Binary((a, b) -> of(a == b), left, right), left, right);
+                case "!=":
+                case "<>":
+                    return fold(new Binary((a, b) -> of(a != b), left, right), left, right);
+                case "<":
+                    return fold(new Binary((a, b) -> of(a < b), left, right), left, right);
+                case "<=":
+                    return fold(new Binary((a, b) -> of(a <= b), left, right), left, right);
+                case ">":
+                    return fold(new Binary((a, b) -> of(a > b), left, right), left, right);
+                case ">=":
+                    return fold(new Binary((a, b) -> of(a >= b), left, right), left, right);
+                default:
+                    throw error("unknown operator " + op);
+            }
+        }
+
+        private Node parseUnary() {
+            skipSpaces();
+            if (pos >= source.length()) {
+                throw error("unexpected end");
+            }
+            char c = source.charAt(pos);
+            if (c == '-' || c == '+' || (c == '!' && !source.startsWith("!=", pos))) {
+                ++pos;
+                Node operand = parseUnary();
+                // Unary operators bind tighter than ^, as in EvalEx
+                if (c == '-') return fold(new Unary(x -> -x, operand), operand);
+                if (c == '!') return fold(new Unary(x -> of(!bool(x)), operand), operand);
+                return operand;
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            char c = source.charAt(pos);
+            if (c == '(') {
+                ++pos;
+                Node node = parseBinary(0);
+                expect(')');
+                return node;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return new Constant(parseNumber());
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) ++pos;
+                String name = source.substring(start, pos).toLowerCase(Locale.ROOT);
+                skipSpaces();
+                if (pos < source.length() && source.charAt(pos) == '(') {
+                    ++pos;
+                    return function(name, parseArguments());
+                }
+                Integer index = indexes.get(name);
+                if (index != null) {
+                    used.set(index);
+                    return new Variable(index);
+                }
+                Double constant = CONSTANTS.get(name);
+                if (constant != null) {
+                    return new Constant(constant);
+                }
+                pos = start;
+                throw error("unknown variable " + source.substring(start, start + name.length()));
+            }
+            throw error("unexpected '" + c + "'");
+        }
+
+        private double parseNumber() {
+            int start = pos;
+            if (source.startsWith("0x", pos) || source.startsWith("0X", pos)) {
+                pos += 2;
+                while (pos < source.length() && Character.digit(source.charAt(pos), 16) >= 0) ++pos;
+                return Long.parseLong(source.substring(start + 2, pos), 16);
+            }
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) ++pos;
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                int exponent = pos + 1;
+                if (exponent < source.length() && (source.charAt(exponent) == '+' || source.charAt(exponent) == '-')) ++exponent;
+                if (exponent < source.length() && Character.isDigit(source.charAt(exponent))) {
+                    pos = exponent;
+                    while (pos < source.length() && Character.isDigit(source.charAt(pos))) ++pos;
+                }
+            }
+            try {
+                return Double.parseDouble(source.substring(start, pos));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("bad number");
+            }
+        }
+
+        private List<Node> parseArguments() {
+            List<Node> arguments = new ArrayList<>();
+            skipSpaces();
+            if (pos < source.length() && source.charAt(pos) == ')') {
+                ++pos;
+                return arguments;
+            }
+            while (true) {
+                arguments.add(parseBinary(0));
+                skipSpaces();
+                if (pos < source.length() && source.charAt(pos) == ',') {
+                    ++pos;
+                    continue;
+                }
+                expect(')');
+                return arguments;
+            }
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (pos >= source.length() || source.charAt(pos) != c) {
+                throw error("expected '" + c + "'");
+            }
+            ++pos;
+        }
+
+        private Node function(String name, List<Node> arguments) {
+            Node[] args = arguments.toArray(new Node[0]);
+            switch (name) {
+                case "random":
+                    arity(name, args, 0);
+                    return new Random();
+                case "if":
+                    arity(name, args, 3);
+                    if (args[0].isConstant()) return bool(args[0].eval(null)) ? args[1] : args[2];
+                    return new If(args[0], args[1], args[2]);
+                case "min":
+                case "max":
+                    if (args.length == 0) throw error(name + " requires at least one parameter");
+                    return fold(new Extremum(args, name.equals("max")), args);
+                default:
+                    DoubleUnaryOperator unary = UNARY_FUNCTIONS.get(name);
+                    if (unary != null) {
+                        arity(name, args, 1);
+                        return fold(new Unary(unary, args[0]), args);
+                    }
+                    DoubleBinaryOperator binary = BINARY_FUNCTIONS.get(name);
+                    if (binary != null) {
+                        arity(name, args, 2);
+                        return fold(new Binary(binary, args[0], args[1]), args);
+                    }
+                    throw error("unknown function " + name);
+            }
+        }
+
+        private void arity(String name, Node[] args, int count) {
+            if (args.length != count) {
+                throw error(name + " requires " + count + " parameter(s)");
+            }
+        }
+    }
+}